@@ -0,0 +1,46 @@
+package com.ahmad.hogwartsartifactsonline;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Runs the JMH benchmarks of src/jmh/java and writes their results as JSON, one file per run, so they can be
+ * compared across commits. -Djmh.include narrows the run to the benchmarks matching a regular expression and
+ * -Djmh.result changes where the JSON goes.
+ * Opt-in: mvn test -Pjmh [-Djmh.include=JwtProviderBenchmark] [-Djmh.result=target/jmh-result.json]
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("JMH benchmarks of the hot paths")
+class JmhBenchmarks {
+
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("jmh.include", JmhBenchmarks.class.getPackageName() + ".*Benchmark"))
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", "target/jmh-result.json"))
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertThat(results).isNotEmpty();
+    }
+}
@@ -0,0 +1,114 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Point lookups and table plus index size with the old VARCHAR(255) artifact key versus the BIGINT key.
+ * Both tables mirror the artifact table, including the owner_id secondary index, and live in a file based H2
+ * database so their size on disk can be measured; the sizes are logged when the trial ends.
+ * Opt-in: mvn test -Pjmh -Djmh.include=ArtifactIdBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArtifactIdBenchmark {
+
+    @Param({"100000", "1000000"})
+    int rows;
+
+    private Path directory;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private long[] ids;
+
+    // Same sequence of keys for both tables.
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("artifact-id-benchmark");
+        dataSource = new SingleConnectionDataSource("jdbc:h2:file:" + directory.resolve("artifacts"), "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        createTable("artifact_varchar_id", "varchar(255)");
+        createTable("artifact_bigint_id", "bigint");
+
+        IdWorker idWorker = new IdWorker(1);
+        ids = new long[rows];
+        List<Object[]> varcharBatch = new ArrayList<>();
+        List<Object[]> bigintBatch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            ids[i] = idWorker.nextId();
+            String name = "Artifact " + i;
+            varcharBatch.add(new Object[]{String.valueOf(ids[i]), name, i % 1000});
+            bigintBatch.add(new Object[]{ids[i], name, i % 1000});
+            if (varcharBatch.size() == 10_000) {
+                insert(varcharBatch, bigintBatch);
+            }
+        }
+        insert(varcharBatch, bigintBatch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.report(ArtifactIdBenchmark.class, "rows=%d size varchar=%dKB bigint=%dKB",
+                rows, diskSpaceUsed("artifact_varchar_id") / 1024, diskSpaceUsed("artifact_bigint_id") / 1024);
+        jdbcTemplate.execute("shutdown");
+        dataSource.destroy();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public String lookupVarcharId() {
+        return jdbcTemplate.queryForObject("select name from artifact_varchar_id where id = ?", String.class,
+                String.valueOf(ids[random.nextInt(ids.length)]));
+    }
+
+    @Benchmark
+    public String lookupBigintId() {
+        return jdbcTemplate.queryForObject("select name from artifact_bigint_id where id = ?", String.class,
+                ids[random.nextInt(ids.length)]);
+    }
+
+    private void createTable(String table, String idType) {
+        jdbcTemplate.execute("create table " + table + " (id " + idType + " not null primary key, name varchar(255), owner_id int)");
+        jdbcTemplate.execute("create index " + table + "_owner on " + table + " (owner_id)");
+    }
+
+    private void insert(List<Object[]> varcharBatch, List<Object[]> bigintBatch) {
+        jdbcTemplate.batchUpdate("insert into artifact_varchar_id (id, name, owner_id) values (?, ?, ?)", varcharBatch);
+        jdbcTemplate.batchUpdate("insert into artifact_bigint_id (id, name, owner_id) values (?, ?, ?)", bigintBatch);
+        varcharBatch.clear();
+        bigintBatch.clear();
+    }
+
+    private long diskSpaceUsed(String table) {
+        Long bytes = jdbcTemplate.queryForObject("select disk_space_used('" + table.toUpperCase() + "')", Long.class);
+        return bytes == null ? 0 : bytes;
+    }
+}
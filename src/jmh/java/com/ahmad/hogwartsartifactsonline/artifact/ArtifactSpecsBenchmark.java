@@ -0,0 +1,76 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/*
+ * Building the Specification of an artifact search and its criteria Predicate, as ArtifactService.findByCriteria
+ * does on every search: name, description and owner name, and the same narrowed to 1000 candidate ids from the search
+ * index. Hibernate's criteria builder is bootstrapped on an empty in-memory H2 database; no query is run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArtifactSpecsBenchmark {
+
+    private static final List<Long> CANDIDATE_IDS = LongStream.range(0, 1000).boxed().toList();
+
+    private SessionFactory sessionFactory;
+
+    private CriteriaBuilder criteriaBuilder;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Artifact.class)
+                .addAnnotatedClass(Wizard.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:artifact-specs")
+                .buildSessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate searchByNameDescriptionAndOwner() {
+        Specification<Artifact> spec = Specification.<Artifact>where(null)
+                .and(ArtifactSpecs.containsName("Deluminator"))
+                .and(ArtifactSpecs.containsDescription("lighter"))
+                .and(ArtifactSpecs.hasOwnerName("Albus Dumbledore"));
+        return toPredicate(spec);
+    }
+
+    @Benchmark
+    public Predicate searchByCandidateIds() {
+        Specification<Artifact> spec = Specification.<Artifact>where(null)
+                .and(ArtifactSpecs.hasIdIn(CANDIDATE_IDS))
+                .and(ArtifactSpecs.containsName("Deluminator"));
+        return toPredicate(spec);
+    }
+
+    private Predicate toPredicate(Specification<Artifact> spec) {
+        CriteriaQuery<Artifact> query = criteriaBuilder.createQuery(Artifact.class);
+        return spec.toPredicate(query.from(Artifact.class), query, criteriaBuilder);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ahmad.hogwartsartifactsonline.artifact.converter;
+
+import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.system.SyntheticCatalog;
+import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import com.ahmad.hogwartsartifactsonline.wizard.converter.WizardToWizardDtoConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The Artifact to ArtifactDto conversion, owner included, for one artifact and for the default page of 20 as
+ * GET /artifacts maps it. The artifacts come from SyntheticCatalog, like those of the large-catalog profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArtifactToArtifactDtoConverterBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final ArtifactToArtifactDtoConverter artifactToArtifactDtoConverter = new ArtifactToArtifactDtoConverter(new WizardToWizardDtoConverter());
+
+    private Artifact artifact;
+
+    private Page<Artifact> artifactPage;
+
+    @Setup
+    public void setUp() {
+        SyntheticCatalog syntheticCatalog = new SyntheticCatalog(42, 1, 1.0, 0);
+        Wizard owner = new Wizard();
+        owner.setId(1);
+        owner.setName(syntheticCatalog.wizardName(0));
+        owner.setNumberOfArtifacts(PAGE_SIZE);
+
+        List<Artifact> artifacts = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Artifact artifact = syntheticCatalog.nextArtifact(1250808601744904191L + i);
+            artifact.setOwner(owner);
+            artifacts.add(artifact);
+        }
+        artifact = artifacts.get(0);
+        artifactPage = new PageImpl<>(artifacts, PageRequest.of(0, PAGE_SIZE), 1000);
+    }
+
+    @Benchmark
+    public ArtifactDto convertArtifact() {
+        return artifactToArtifactDtoConverter.convert(artifact);
+    }
+
+    @Benchmark
+    public Page<ArtifactDto> convertPage() {
+        return artifactPage.map(artifactToArtifactDtoConverter::convert);
+    }
+}
@@ -0,0 +1,59 @@
+package com.ahmad.hogwartsartifactsonline.artifact.utils;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Contended IdWorker.nextId() throughput: 8 threads share one generator in the JmhBenchmarks run, and the test below
+ * sweeps 1 to 64 threads.
+ * Opt-in: mvn test -Pjmh -Dtest=IdWorkerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class IdWorkerBenchmark {
+
+    private final IdWorker idWorker = new IdWorker(1);
+
+    @Benchmark
+    public long nextId() {
+        return idWorker.nextId();
+    }
+
+    @Test
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkContendedThroughput() throws Exception {
+        for (int threads : new int[]{1, 2, 4, 8, 16, 32, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(IdWorkerBenchmark.class.getName() + ".nextId")
+                    .threads(threads)
+                    .forks(1)
+                    .warmupIterations(2)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(3)
+                    .measurementTime(TimeValue.seconds(1))
+                    .build();
+            for (RunResult result : new Runner(options).run()) {
+                Benchmarks.report(IdWorkerBenchmark.class, "threads=%d nextId=%.0f ops/ms", threads, result.getPrimaryResult().getScore());
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ahmad.hogwartsartifactsonline.hogwartsuser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * MyUserPrincipal.getAuthorities(), which splits the space separated roles column on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MyUserPrincipalBenchmark {
+
+    @Param({"user", "admin user"})
+    public String roles;
+
+    private MyUserPrincipal principal;
+
+    @Setup
+    public void setUp() {
+        HogwartsUser user = new HogwartsUser();
+        user.setId(1);
+        user.setUsername("john");
+        user.setPassword("123456");
+        user.setEnabled(true);
+        user.setRoles(roles);
+        principal = new MyUserPrincipal(user);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return principal.getAuthorities();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ahmad.hogwartsartifactsonline.security;
+
+import com.ahmad.hogwartsartifactsonline.hogwartsuser.HogwartsUser;
+import com.ahmad.hogwartsartifactsonline.hogwartsuser.MyUserPrincipal;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Issuing a token with JwtProvider.createToken and decoding it again, with a 2048 bit RSA key and the same Nimbus
+ * encoder and decoder as SecurityConfiguration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtProviderBenchmark {
+
+    private JwtProvider jwtProvider;
+
+    private JwtDecoder jwtDecoder;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        JWK jwk = new RSAKey.Builder(publicKey).privateKey((RSAPrivateKey) keyPair.getPrivate()).build();
+        jwtProvider = new JwtProvider(new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwk))));
+        jwtDecoder = NimbusJwtDecoder.withPublicKey(publicKey).build();
+
+        HogwartsUser user = new HogwartsUser();
+        user.setId(1);
+        user.setUsername("john");
+        user.setPassword("123456");
+        user.setEnabled(true);
+        user.setRoles("admin user");
+        MyUserPrincipal principal = new MyUserPrincipal(user);
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        token = jwtProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public String encode() {
+        return jwtProvider.createToken(authentication);
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return jwtDecoder.decode(token);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ahmad.hogwartsartifactsonline.system;
+
+import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.wizard.dto.WizardDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JSON serialization of the Result that GET /artifacts returns: a Page<ArtifactDto> of 20 or 100 artifacts, written
+ * with an ObjectMapper configured the way Spring Boot configures the one of the message converters. The artifacts come
+ * from SyntheticCatalog, like those of the large-catalog profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResultSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Result result;
+
+    @Setup
+    public void setUp() {
+        SyntheticCatalog syntheticCatalog = new SyntheticCatalog(42, 1, 1.0, 0);
+        WizardDto owner = new WizardDto(1, syntheticCatalog.wizardName(0), pageSize);
+        List<ArtifactDto> artifactDtos = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Artifact artifact = syntheticCatalog.nextArtifact(1250808601744904191L + i);
+            artifactDtos.add(new ArtifactDto(String.valueOf(artifact.getId()), artifact.getName(), artifact.getDescription(),
+                    artifact.getImageUrl(), owner));
+        }
+        result = new Result(true, StatusCode.SUCCESS, "Find All Success",
+                new PageImpl<>(artifactDtos, PageRequest.of(0, pageSize), 1000));
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(result);
+    }
+}
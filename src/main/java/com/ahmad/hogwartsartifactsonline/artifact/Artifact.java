@@ -4,12 +4,13 @@ import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
 import jakarta.persistence.*;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 
 @Entity
 public class Artifact implements Serializable {
 
     @Id
-    private String id;
+    private Long id;
 
     private String name;
 
@@ -20,6 +21,16 @@ public class Artifact implements Serializable {
     @ManyToOne
     private Wizard owner;
 
+    // Bumped by Hibernate on every update; the ETag of GET /artifacts/{id} is derived from it.
+    @Version
+    private Long version;
+
+    // Set by the database on every insert and update, however the row is written, so ArtifactSearchIndex can find
+    // the rows it may have missed.
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "timestamp(3) default current_timestamp(3) on update current_timestamp(3)")
+    private LocalDateTime updatedAt;
+
     public Artifact() {
     }
 
@@ -31,14 +42,26 @@ public class Artifact implements Serializable {
         this.owner = owner;
     }
 
-    public String getId() {
+    public Long getId() {
         return id;
     }
 
-    public void setId(String id) {
+    public void setId(Long id) {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,82 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.system.entitycache.EntityCache;
+import com.ahmad.hogwartsartifactsonline.system.entitycache.EntityCacheContext;
+import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardCache;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Cached artifacts. The owner association is kept as the owner's id and resolved through the {@link WizardCache}, so
+ * a change to a wizard never has to touch the entries of its artifacts.
+ */
+@Component
+public class ArtifactCache extends EntityCache<ArtifactCache.ArtifactSnapshot> {
+
+    private final WizardCache wizardCache;
+
+    public ArtifactCache(EntityCacheContext context, WizardCache wizardCache) {
+        super("artifact", ArtifactSnapshot.class, context);
+        this.wizardCache = wizardCache;
+    }
+
+    /**
+     * Returns a detached copy of the cached artifact with its owner, or null if either of them is not cached.
+     */
+    public Artifact get(Long artifactId) {
+        ArtifactSnapshot snapshot = getSnapshot(String.valueOf(artifactId));
+        if (snapshot == null) {
+            return null;
+        }
+        Wizard owner = null;
+        if (snapshot.ownerId() != null) {
+            owner = wizardCache.get(snapshot.ownerId());
+            if (owner == null) {
+                return null;
+            }
+        }
+        return snapshot.toArtifact(owner);
+    }
+
+    /**
+     * Caches an artifact read from the database, and its owner.
+     */
+    public void put(Artifact artifact, long generation) {
+        putSnapshot(String.valueOf(artifact.getId()), () -> ArtifactSnapshot.of(artifact), generation);
+        if (artifact.getOwner() != null) {
+            wizardCache.put(artifact.getOwner(), generation);
+        }
+    }
+
+    public void evict(Long artifactId) {
+        evictSnapshot(String.valueOf(artifactId));
+    }
+
+    /**
+     * Drops changed artifacts, after commit; the next read caches them again.
+     */
+    public void invalidate(Collection<Long> artifactIds) {
+        invalidateSnapshots(artifactIds.stream().map(String::valueOf).toList());
+    }
+
+    public record ArtifactSnapshot(Long id, String name, String description, String imageUrl, Long version, Integer ownerId) {
+
+        static ArtifactSnapshot of(Artifact artifact) {
+            return new ArtifactSnapshot(artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(),
+                    artifact.getVersion(), artifact.getOwner() != null ? artifact.getOwner().getId() : null);
+        }
+
+        Artifact toArtifact(Wizard owner) {
+            Artifact artifact = new Artifact();
+            artifact.setId(id);
+            artifact.setName(name);
+            artifact.setDescription(description);
+            artifact.setImageUrl(imageUrl);
+            artifact.setVersion(version);
+            artifact.setOwner(owner);
+            return artifact;
+        }
+    }
+}
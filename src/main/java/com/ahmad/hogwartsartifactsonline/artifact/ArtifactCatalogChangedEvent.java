@@ -0,0 +1,8 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+/**
+ * Published whenever artifacts or their ownership change, so that data derived from the whole catalog (like the AI
+ * summary) can be refreshed.
+ */
+public record ArtifactCatalogChangedEvent() {
+}
@@ -3,21 +3,35 @@ package com.ahmad.hogwartsartifactsonline.artifact;
 import com.ahmad.hogwartsartifactsonline.artifact.converter.ArtifactDtoToArtifactConverter;
 import com.ahmad.hogwartsartifactsonline.artifact.converter.ArtifactToArtifactDtoConverter;
 import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactImportResult;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactSummaryJob;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.ArtifactIds;
 import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import com.ahmad.hogwartsartifactsonline.system.CursorCodec;
+import com.ahmad.hogwartsartifactsonline.system.CursorSlice;
+import com.ahmad.hogwartsartifactsonline.system.ETags;
 import com.ahmad.hogwartsartifactsonline.system.Result;
 import com.ahmad.hogwartsartifactsonline.system.StatusCode;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.ahmad.hogwartsartifactsonline.system.catalogversion.CatalogVersionService;
+import com.ahmad.hogwartsartifactsonline.system.exception.InvalidCursorException;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("${api.endpoint.base-url}/artifacts")
@@ -27,77 +41,177 @@ public class ArtifactController {
     private final ArtifactToArtifactDtoConverter artifactToArtifactDtoConverter;
     private final ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter;
     private final ImageStorageClient imageStorageClient;
-
-    public ArtifactController(ArtifactService artifactService, ArtifactToArtifactDtoConverter artifactDtoConverter, ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter, ImageStorageClient imageStorageClient) {
+    private final ArtifactSummaryCache artifactSummaryCache;
+    private final ArtifactSummaryStreamer artifactSummaryStreamer;
+    private final ArtifactSummaryJobService artifactSummaryJobService;
+    private final CatalogVersionService catalogVersionService;
+    private final ArtifactImportService artifactImportService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public ArtifactController(ArtifactService artifactService, ArtifactToArtifactDtoConverter artifactDtoConverter, ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter, ImageStorageClient imageStorageClient, ArtifactSummaryCache artifactSummaryCache, ArtifactSummaryStreamer artifactSummaryStreamer, ArtifactSummaryJobService artifactSummaryJobService, CatalogVersionService catalogVersionService, ArtifactImportService artifactImportService,
+                              @Value("${spring.data.web.pageable.default-page-size:20}") int defaultPageSize,
+                              @Value("${spring.data.web.pageable.max-page-size:2000}") int maxPageSize) {
         this.artifactService = artifactService;
         this.artifactToArtifactDtoConverter = artifactDtoConverter;
         this.artifactDtoToArtifactConverter = artifactDtoToArtifactConverter;
         this.imageStorageClient = imageStorageClient;
+        this.artifactSummaryCache = artifactSummaryCache;
+        this.artifactSummaryStreamer = artifactSummaryStreamer;
+        this.artifactSummaryJobService = artifactSummaryJobService;
+        this.catalogVersionService = catalogVersionService;
+        this.artifactImportService = artifactImportService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @GetMapping("/{artifactId}")
-    public Result findArtifactById(@PathVariable String artifactId) {
-        Artifact foundArtifact = this.artifactService.findArtifactById(artifactId);
-        ArtifactDto artifactDto = artifactToArtifactDtoConverter.convert(foundArtifact);
+    public Result findArtifactById(@PathVariable String artifactId, ServletWebRequest webRequest) {
+        Long id = ArtifactIds.parse(artifactId);
+        // A revalidation only needs the versions, not the artifact and its owner.
+        if (ETags.hasIfNoneMatch(webRequest) && ETags.checkNotModified(webRequest, artifactService.findETagById(id))) {
+            return null;
+        }
+        Artifact foundArtifact = this.artifactService.findArtifactById(id);
+        ETags.checkNotModified(webRequest, artifactService.eTag(foundArtifact));
+        ArtifactDto artifactDto = toDto(foundArtifact);
         return new Result(true, StatusCode.SUCCESS, "Find One Success", artifactDto);
     }
 
 
     @GetMapping
-    public Result findAllArtifacts(Pageable pageable) {
+    public Result findAllArtifacts(Pageable pageable, ServletWebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, ETags.of("c", catalogVersionService.currentVersion()))) {
+            return null;
+        }
         Page<Artifact> artifactPage = artifactService.findAll(pageable);
         Page<ArtifactDto> artifactDtoPage = artifactPage
-                .map(artifactToArtifactDtoConverter::convert);
+                .map(this::toDto);
         return new Result(true, StatusCode.SUCCESS, "Find All Success", artifactDtoPage);
     }
 
+    @GetMapping(params = "pagination=keyset")
+    public Result findAllArtifactsByKeyset(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size, ServletWebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, ETags.of("c", catalogVersionService.currentVersion()))) {
+            return null;
+        }
+        Slice<Artifact> artifactSlice = artifactService.findAll(decodeCursor(cursor), pageSize(size));
+        return new Result(true, StatusCode.SUCCESS, "Find All Success", toCursorSlice(artifactSlice));
+    }
+
     @PostMapping
     public Result addArtifact(@RequestBody @Valid ArtifactDto artifactDto) {
         Artifact newArtifact = artifactDtoToArtifactConverter.convert(artifactDto);
         Artifact savedArtifact = artifactService.save(newArtifact);
-        ArtifactDto savedArtifactDto = artifactToArtifactDtoConverter.convert(savedArtifact);
+        ArtifactDto savedArtifactDto = toDto(savedArtifact);
         return new Result(true, StatusCode.SUCCESS, "Add Success", savedArtifactDto);
     }
 
     @PutMapping("/{artifactId}")
     public Result updateArtifact(@PathVariable String artifactId, @RequestBody @Valid ArtifactDto artifactDto) {
-        Artifact updatedArtifact = artifactService.update(artifactId, artifactDtoToArtifactConverter.convert(artifactDto));
+        Artifact updatedArtifact = artifactService.update(ArtifactIds.parse(artifactId), artifactDtoToArtifactConverter.convert(artifactDto));
 
-        ArtifactDto newArtifactDto = artifactToArtifactDtoConverter.convert(updatedArtifact);
+        ArtifactDto newArtifactDto = toDto(updatedArtifact);
 
         return new Result(true, StatusCode.SUCCESS, "Update Artifact Success", newArtifactDto);
     }
 
     @DeleteMapping("/{artifactId}")
     public Result deleteArtifact(@PathVariable String artifactId) {
-        artifactService.delete(artifactId);
+        artifactService.delete(ArtifactIds.parse(artifactId));
         return new Result(true, StatusCode.SUCCESS, "Delete Artifact Success");
     }
 
     @GetMapping("/summary")
-    public Result summarizeArtifacts() throws JsonProcessingException {
-        List<Artifact> foundArtifacts = artifactService.findAll();
-        List<ArtifactDto> artifactDtos = foundArtifacts.stream()
-                .map(artifactToArtifactDtoConverter::convert).collect(Collectors.toList());
-
-        String artifactSummary = artifactService.summarize(artifactDtos);
+    public Result summarizeArtifacts() {
+        String artifactSummary = artifactSummaryCache.getSummary();
         return new Result(true, StatusCode.SUCCESS, "Summarize Success", artifactSummary);
     }
 
+    @GetMapping(value = "/summary", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamArtifactSummary() {
+        return artifactSummaryStreamer.stream();
+    }
+
+    // The body is read as a stream, so imports of any size are never held in memory as a whole.
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Result importArtifacts(InputStream body) throws IOException {
+        ArtifactImportResult importResult = artifactImportService.importJsonArray(body);
+        return new Result(true, StatusCode.SUCCESS, "Import Success", importResult);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Result importArtifactsFromNdjson(InputStream body) throws IOException {
+        ArtifactImportResult importResult = artifactImportService.importNdjson(body);
+        return new Result(true, StatusCode.SUCCESS, "Import Success", importResult);
+    }
+
+    @PostMapping("/summary/jobs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Result submitArtifactSummaryJob() {
+        ArtifactSummaryJob job = artifactSummaryJobService.submit();
+        return new Result(true, StatusCode.SUCCESS, "Submit Summary Job Success", job);
+    }
+
+    @GetMapping("/summary/jobs/{jobId}")
+    public Result findArtifactSummaryJob(@PathVariable String jobId) {
+        ArtifactSummaryJob job = artifactSummaryJobService.findById(jobId);
+        return new Result(true, StatusCode.SUCCESS, "Find Summary Job Success", job);
+    }
+
     @PostMapping("/search")
     public Result findArtifactsByCriteria(@RequestBody Map<String, String> searchCriteria, Pageable pageable) {
         Page<Artifact> artifactPage = artifactService.findByCriteria(searchCriteria, pageable);
         Page<ArtifactDto> artifactDtoPage = artifactPage
-                .map(artifactToArtifactDtoConverter::convert);
+                .map(this::toDto);
         return new Result(true, StatusCode.SUCCESS, "Search Success", artifactDtoPage);
     }
 
+    @PostMapping(value = "/search", params = "pagination=keyset")
+    public Result findArtifactsByCriteriaByKeyset(@RequestBody Map<String, String> searchCriteria, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+        Slice<Artifact> artifactSlice = artifactService.findByCriteria(searchCriteria, decodeCursor(cursor), pageSize(size));
+        return new Result(true, StatusCode.SUCCESS, "Search Success", toCursorSlice(artifactSlice));
+    }
+
     @PostMapping("/images")
-    public Result uploadImage(@RequestParam String containerName, @RequestParam MultipartFile file) throws IOException {
-        try (InputStream inputStream = file.getInputStream()){
-            String imageUrl = imageStorageClient.uploadImage(containerName, file.getOriginalFilename(), inputStream, file.getSize());
-            return new Result(true, StatusCode.SUCCESS, "Upload Image Success", imageUrl);
+    public CompletableFuture<Result> uploadImage(@RequestParam String containerName, @RequestParam MultipartFile file) {
+        // The request thread is released while the image uploads; the multipart file is kept until the response is sent.
+        return imageStorageClient.uploadImageAsync(containerName, file.getOriginalFilename(), file, file.getSize())
+                .thenApply(imageUrl -> new Result(true, StatusCode.SUCCESS, "Upload Image Success", imageUrl));
+    }
+
+    private Long decodeCursor(String cursor) {
+        if (!StringUtils.hasLength(cursor)) {
+            return null;
+        }
+        Long afterId = ArtifactIds.parseOrNull(CursorCodec.decode(cursor));
+        if (afterId == null) {
+            throw new InvalidCursorException(cursor);
         }
+        return afterId;
+    }
+
+    // The same bounds as the size of a Pageable: a missing or non-positive size gets the default, a larger one the max.
+    private int pageSize(Integer size) {
+        if (size == null || size < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    // Image variants are only looked up for responses; the summarizer converts without them.
+    private ArtifactDto toDto(Artifact artifact) {
+        return artifactToArtifactDtoConverter.convert(artifact)
+                .withImageVariantUrls(imageStorageClient.findImageVariantUrls(artifact.getImageUrl()));
+    }
+
+    private CursorSlice<ArtifactDto> toCursorSlice(Slice<Artifact> artifactSlice) {
+        List<ArtifactDto> artifactDtos = artifactSlice.getContent().stream()
+                .map(this::toDto)
+                .toList();
+        String nextCursor = artifactSlice.hasNext()
+                ? CursorCodec.encode(artifactDtos.get(artifactDtos.size() - 1).id()) : null;
+        return new CursorSlice<>(artifactDtos, artifactSlice.getSize(), artifactSlice.hasNext(), nextCursor);
     }
 
 }
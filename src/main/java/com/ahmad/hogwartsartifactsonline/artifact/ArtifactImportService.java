@@ -0,0 +1,219 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.artifact.converter.ArtifactDtoToArtifactConverter;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactImportResult;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of artifacts from a JSON array or from NDJSON (one artifact per line). The body is parsed as a stream,
+ * one artifact at a time, and valid rows are saved in chunks of {@code chunk-size}, each chunk in its own transaction
+ * with one block of ids and batched INSERTs. Invalid rows are skipped and reported; if a chunk cannot be saved, its
+ * rows are retried one by one so only the offending rows fail.
+ */
+@Service
+public class ArtifactImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactImportService.class);
+
+    // Lenient about unknown fields, like the JSON bodies of the other endpoints.
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // The artifact columns are varchar(255).
+    private static final int MAX_COLUMN_LENGTH = 255;
+
+    private final ArtifactService artifactService;
+
+    private final ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter;
+
+    private final Validator validator;
+
+    private final int chunkSize;
+
+    private final int maxReportedFailures;
+
+    public ArtifactImportService(ArtifactService artifactService,
+                                 ArtifactDtoToArtifactConverter artifactDtoToArtifactConverter,
+                                 Validator validator,
+                                 @Value("${artifact.import.chunk-size:1000}") int chunkSize,
+                                 @Value("${artifact.import.max-reported-failures:100}") int maxReportedFailures) {
+        this.artifactService = artifactService;
+        this.artifactDtoToArtifactConverter = artifactDtoToArtifactConverter;
+        this.validator = validator;
+        this.chunkSize = Math.min(chunkSize, IdWorker.MAX_BLOCK_SIZE);
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    /**
+     * Imports a JSON array of artifacts. Malformed JSON cannot be resynchronized, so it ends the import: the rows
+     * before it are kept and the rest of the input is reported as one failure.
+     */
+    public ArtifactImportResult importJsonArray(InputStream body) throws IOException {
+        Import anImport = new Import();
+        long row = 1; // Of the element being read.
+        try (JsonParser parser = OBJECT_MAPPER.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                anImport.fail(row, "Expected a JSON array of artifacts.");
+                return anImport.finish();
+            }
+            JsonToken token;
+            for (; (token = parser.nextToken()) != JsonToken.END_ARRAY; row++) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    anImport.fail(row, "Expected an artifact object.");
+                    continue;
+                }
+                anImport.add(row, parser.readValueAsTree());
+            }
+        } catch (JsonProcessingException e) {
+            anImport.fail(row, "Malformed JSON, the rest of the input was skipped: " + e.getOriginalMessage());
+        }
+        return anImport.finish();
+    }
+
+    /**
+     * Imports newline-delimited JSON. Every line is parsed on its own, so a malformed line only fails that row.
+     */
+    public ArtifactImportResult importNdjson(InputStream body) throws IOException {
+        Import anImport = new Import();
+        long row = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!StringUtils.hasText(line)) {
+                    continue;
+                }
+                row++;
+                JsonNode node;
+                try {
+                    node = OBJECT_MAPPER.readTree(line);
+                } catch (JsonProcessingException e) {
+                    anImport.fail(row, "Malformed JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (!node.isObject()) {
+                    anImport.fail(row, "Expected an artifact object.");
+                    continue;
+                }
+                anImport.add(row, node);
+            }
+        }
+        return anImport.finish();
+    }
+
+    private String validate(ArtifactDto artifactDto) {
+        Set<ConstraintViolation<ArtifactDto>> violations = validator.validate(artifactDto);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(" "));
+        }
+        if (tooLong(artifactDto.name()) || tooLong(artifactDto.description()) || tooLong(artifactDto.imageUrl())) {
+            return "name, description and imageUrl must be at most " + MAX_COLUMN_LENGTH + " characters.";
+        }
+        return null;
+    }
+
+    private static boolean tooLong(String value) {
+        return value != null && value.length() > MAX_COLUMN_LENGTH;
+    }
+
+    private record Row(long number, ArtifactDto artifactDto) {
+    }
+
+    // State of one import call.
+    private class Import {
+
+        private final List<Row> chunk = new ArrayList<>(chunkSize);
+
+        private final List<ArtifactImportResult.RowFailure> failures = new ArrayList<>();
+
+        private long imported;
+
+        private long failed;
+
+        void add(long row, JsonNode node) {
+            ArtifactDto artifactDto;
+            try {
+                artifactDto = OBJECT_MAPPER.treeToValue(node, ArtifactDto.class);
+            } catch (JsonProcessingException e) {
+                fail(row, "Invalid artifact: " + e.getOriginalMessage());
+                return;
+            }
+            String problem = validate(artifactDto);
+            if (problem != null) {
+                fail(row, problem);
+                return;
+            }
+            chunk.add(new Row(row, artifactDto));
+            if (chunk.size() == chunkSize) {
+                saveChunk();
+            }
+        }
+
+        void fail(long row, String message) {
+            failed++;
+            if (failures.size() < maxReportedFailures) {
+                failures.add(new ArtifactImportResult.RowFailure(row, message));
+            }
+        }
+
+        ArtifactImportResult finish() {
+            saveChunk();
+            LOGGER.info("Imported {} artifacts, {} rows failed", imported, failed);
+            return new ArtifactImportResult(imported, failed, List.copyOf(failures));
+        }
+
+        private void saveChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                save(chunk);
+            } catch (DataAccessException e) {
+                LOGGER.warn("Could not save rows {} to {}, retrying them one by one", chunk.get(0).number(), chunk.get(chunk.size() - 1).number(), e);
+                for (Row row : chunk) {
+                    try {
+                        save(List.of(row));
+                    } catch (DataAccessException rowException) {
+                        fail(row.number(), "Could not save the artifact.");
+                    }
+                }
+            }
+            chunk.clear();
+        }
+
+        // Converts again on every attempt: entities of a rolled back attempt are not new anymore.
+        private void save(List<Row> rows) {
+            List<Artifact> artifacts = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                artifacts.add(artifactDtoToArtifactConverter.convert(row.artifactDto()));
+            }
+            artifactService.saveAll(artifacts);
+            imported += rows.size();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+/**
+ * Projection of an artifact's owner, used by bulk reassignments to find the wizards whose counts change without
+ * loading the artifacts.
+ */
+public interface ArtifactOwnership {
+
+    Long getId();
+
+    Integer getOwnerId();
+}
@@ -1,9 +1,69 @@
 package com.ahmad.hogwartsartifactsonline.artifact;
 
+import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface ArtifactRepository extends JpaRepository<Artifact, String>, JpaSpecificationExecutor<Artifact> {
+public interface ArtifactRepository extends JpaRepository<Artifact, Long>, JpaSpecificationExecutor<Artifact> {
+
+    // Fetch the owner in the same select, so a page does not trigger one query per owner.
+    @Override
+    @EntityGraph(attributePaths = "owner")
+    Page<Artifact> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "owner")
+    Page<Artifact> findAll(Specification<Artifact> spec, Pageable pageable);
+
+    @Query("select a.id as id, a.name as name, a.description as description from Artifact a where a.id > :afterId order by a.id")
+    List<ArtifactText> findTextsByIdGreaterThanOrderById(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("select a.id as id, a.name as name, a.description as description from Artifact a " +
+            "where a.updatedAt >= :since and a.id > :afterId order by a.id")
+    List<ArtifactText> findTextsByUpdatedAtSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Limit limit);
+
+    // The database's clock, the one updated_at is set with.
+    @Query("select local datetime")
+    LocalDateTime findDatabaseTime();
+
+    @Query("select a.version as version, o.version as ownerVersion, a.imageUrl as imageUrl from Artifact a left join a.owner o where a.id = :id")
+    Optional<ArtifactVersion> findVersionById(@Param("id") Long id);
+
+    @Query("select a.id as id, o.id as ownerId from Artifact a left join a.owner o where a.id in :ids")
+    List<ArtifactOwnership> findOwnershipsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Locks the rows, and on MySQL the index gap, so no artifact can be assigned to the owner until the transaction ends.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.id from Artifact a where a.owner.id = :ownerId")
+    List<Long> findIdsByOwnerIdForUpdate(@Param("ownerId") Integer ownerId);
+
+    // Skips artifacts the wizard already owns, so their versions (and ETags) stay the same.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Artifact a set a.owner = :owner where a.id in :ids and (a.owner is null or a.owner <> :owner)")
+    int assignOwner(@Param("ids") Collection<Long> ids, @Param("owner") Wizard owner);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Artifact a set a.owner = null where a.owner = :owner")
+    int removeOwner(@Param("owner") Wizard owner);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Artifact a set a.owner = :target where a.owner = :source")
+    int transferOwner(@Param("source") Wizard source, @Param("target") Wizard target);
 }
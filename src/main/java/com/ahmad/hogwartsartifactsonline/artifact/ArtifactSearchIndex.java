@@ -0,0 +1,186 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.artifact.utils.NGramIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * In-process n-gram index over artifact names and descriptions, so that substring searches can be narrowed to a
+ * set of ids instead of scanning the whole artifact table with LIKE '%x%'.
+ * <p>
+ * The index is only a hint. ArtifactService keeps it up to date for writes on this replica, but rows written by other
+ * replicas, by JDBC batches or by plain SQL are only seen through artifact.updated_at, which the database maintains:
+ * the candidates found here are always combined with every row changed since the index was last known to be complete.
+ * A refresh every {@code refresh-interval} re-reads those rows, so that tail stays small, and a nightly rebuild
+ * starts over from the table, which also drops rows deleted elsewhere.
+ * <p>
+ * The search itself stays a LIKE, so the candidates only need to include every row it matches. That holds as long as
+ * NGramIndex folds text at least as far as the column's collation does (see there for what it does not cover), and
+ * for queries without LIKE wildcards, which the index cannot narrow.
+ */
+@Component
+public class ArtifactSearchIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactSearchIndex.class);
+
+    private final ArtifactRepository artifactRepository;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final int maxCandidates;
+
+    private final Duration commitMargin;
+
+    // Not synchronized: a virtual thread blocking on the database inside a monitor would pin its carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Indexes indexes = new Indexes(new NGramIndex<>(), new NGramIndex<>());
+
+    // Every row last written before this is in the index; null until the first build.
+    private volatile LocalDateTime completeBefore;
+
+    public ArtifactSearchIndex(ArtifactRepository artifactRepository,
+                               @Value("${artifact.search-index.enabled:true}") boolean enabled,
+                               @Value("${artifact.search-index.batch-size:1000}") int batchSize,
+                               @Value("${artifact.search-index.max-candidates:1000}") int maxCandidates,
+                               @Value("${artifact.search-index.commit-margin:1m}") Duration commitMargin) {
+        this.artifactRepository = artifactRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxCandidates = maxCandidates;
+        this.commitMargin = commitMargin;
+    }
+
+    /**
+     * Builds a new index from the whole table and swaps it in, so searches keep using the old one meanwhile.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${artifact.search-index.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            LocalDateTime since = artifactRepository.findDatabaseTime().minus(commitMargin);
+            Indexes newIndexes = new Indexes(new NGramIndex<>(), new NGramIndex<>());
+            walk(lastId -> artifactRepository.findTextsByIdGreaterThanOrderById(lastId, Limit.of(batchSize)), newIndexes);
+            indexes = newIndexes;
+            completeBefore = since;
+            LOGGER.info("Artifact search index built with {} artifacts", newIndexes.name().size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indexes the rows changed since the index was last complete, wherever they were written.
+     */
+    @Scheduled(fixedDelayString = "${artifact.search-index.refresh-interval:10s}")
+    public void refresh() {
+        if (!enabled || completeBefore == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            LocalDateTime changedSince = completeBefore;
+            LocalDateTime since = artifactRepository.findDatabaseTime().minus(commitMargin);
+            walk(lastId -> artifactRepository.findTextsByUpdatedAtSince(changedSince, lastId, Limit.of(batchSize)), indexes);
+            if (since.isAfter(changedSince)) {
+                completeBefore = since;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void index(Artifact artifact) {
+        if (!enabled) {
+            return;
+        }
+        Indexes current = indexes;
+        current.name().put(artifact.getId(), artifact.getName());
+        current.description().put(artifact.getId(), artifact.getDescription());
+    }
+
+    public void remove(Long artifactId) {
+        if (!enabled) {
+            return;
+        }
+        Indexes current = indexes;
+        current.name().remove(artifactId);
+        current.description().remove(artifactId);
+    }
+
+    /**
+     * Returns a specification matching every artifact that may match the given name and description substrings: the
+     * candidates of the index plus the rows changed since it was complete. Returns null if the index cannot usefully
+     * narrow the search (disabled, not built yet, queries too short or with LIKE wildcards, or more candidates than fit
+     * in an IN list).
+     */
+    public Specification<Artifact> findCandidates(String name, String description) {
+        LocalDateTime changedSince = completeBefore;
+        if (!enabled || changedSince == null) {
+            return null;
+        }
+        Indexes current = indexes;
+        Set<Long> nameCandidates = search(current.name(), name);
+        Set<Long> descriptionCandidates = search(current.description(), description);
+
+        Set<Long> candidates;
+        if (nameCandidates == null) {
+            candidates = descriptionCandidates;
+        } else if (descriptionCandidates == null) {
+            candidates = nameCandidates;
+        } else {
+            candidates = new HashSet<>(nameCandidates);
+            candidates.retainAll(descriptionCandidates);
+        }
+        if (candidates == null || candidates.size() > maxCandidates) {
+            return null;
+        }
+        return ArtifactSpecs.hasIdIn(candidates).or(ArtifactSpecs.isUpdatedSince(changedSince));
+    }
+
+    // A query with % or _ is a pattern to LIKE rather than a substring, so the index must not narrow it.
+    private static Set<Long> search(NGramIndex<Long> index, String query) {
+        if (query == null || query.indexOf('%') >= 0 || query.indexOf('_') >= 0) {
+            return null;
+        }
+        return index.search(query);
+    }
+
+    // Reads the rows batch by batch in id order, so they are never all held in memory at once.
+    private void walk(Function<Long, List<ArtifactText>> nextBatch, Indexes target) {
+        Long lastId = Long.MIN_VALUE;
+        List<ArtifactText> batch;
+        do {
+            batch = nextBatch.apply(lastId);
+            for (ArtifactText artifactText : batch) {
+                target.name().put(artifactText.getId(), artifactText.getName());
+                target.description().put(artifactText.getId(), artifactText.getDescription());
+                lastId = artifactText.getId();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private record Indexes(NGramIndex<Long> name, NGramIndex<Long> description) {
+    }
+}
@@ -1,43 +1,103 @@
 package com.ahmad.hogwartsartifactsonline.artifact;
 
 import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.ArtifactIds;
 import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.ChatClient;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Message;
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import com.ahmad.hogwartsartifactsonline.system.ETags;
 import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardCache;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class ArtifactService {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final ArtifactRepository artifactRepository;
     private final IdWorker idWorker;
     private final ChatClient chatClient;
+    private final ArtifactSearchIndex artifactSearchIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ArtifactCache artifactCache;
+    private final WizardCache wizardCache;
+    private final WizardRepository wizardRepository;
+    private final EntityManager entityManager;
+    private final ImageStorageClient imageStorageClient;
 
-    public ArtifactService(ArtifactRepository artifactRepository, IdWorker idWorker, ChatClient chatClient) {
+    public ArtifactService(ArtifactRepository artifactRepository, IdWorker idWorker, ChatClient chatClient, ArtifactSearchIndex artifactSearchIndex, ApplicationEventPublisher applicationEventPublisher, ArtifactCache artifactCache, WizardCache wizardCache, WizardRepository wizardRepository, EntityManager entityManager, ImageStorageClient imageStorageClient) {
         this.artifactRepository = artifactRepository;
         this.idWorker = idWorker;
         this.chatClient = chatClient;
+        this.artifactSearchIndex = artifactSearchIndex;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.artifactCache = artifactCache;
+        this.wizardCache = wizardCache;
+        this.wizardRepository = wizardRepository;
+        this.entityManager = entityManager;
+        this.imageStorageClient = imageStorageClient;
     }
 
+    /**
+     * Read-through the {@link ArtifactCache}. A hit is a detached copy, so callers must not use it to write.
+     */
     @Observed(name = "artifact", contextualName = "findByIdService")
-    public Artifact findArtifactById(String artifactId) {
-        return artifactRepository.findById(artifactId)
+    public Artifact findArtifactById(Long artifactId) {
+        Artifact cachedArtifact = artifactCache.get(artifactId);
+        if (cachedArtifact != null) {
+            return cachedArtifact;
+        }
+        long generation = artifactCache.generation();
+        Artifact artifact = artifactRepository.findById(artifactId)
                 .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+        artifactCache.put(artifact, generation);
+        return artifact;
+    }
+
+    /**
+     * ETag of GET /artifacts/{id}. The owner is part of the payload, so its version is part of the ETag. So are the
+     * image variants, which join the payload once generated without changing any version.
+     */
+    public String eTag(Artifact artifact) {
+        return eTag(artifact.getVersion(), artifact.getOwner() != null ? artifact.getOwner().getVersion() : null, artifact.getImageUrl());
+    }
+
+    public String findETagById(Long artifactId) {
+        ArtifactVersion artifactVersion = artifactRepository.findVersionById(artifactId)
+                .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
+        return eTag(artifactVersion.getVersion(), artifactVersion.getOwnerVersion(), artifactVersion.getImageUrl());
+    }
+
+    private String eTag(Long version, Long ownerVersion, String imageUrl) {
+        String eTag = ETags.of("a", version, ownerVersion);
+        return imageStorageClient.findImageVariantUrls(imageUrl).isEmpty() ? eTag : eTag + "-v";
     }
 
     public List<Artifact> findAll() {
@@ -45,11 +105,32 @@ public class ArtifactService {
     }
 
     public Artifact save(Artifact newArtifact) {
-        newArtifact.setId(idWorker.nextId() + "");
-        return artifactRepository.save(newArtifact);
+        newArtifact.setId(idWorker.nextId());
+        Artifact savedArtifact = artifactRepository.save(newArtifact);
+        afterCommit(() -> artifactSearchIndex.index(savedArtifact));
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent());
+        return savedArtifact;
     }
 
-    public Artifact update(String artifactId, Artifact update) {
+    /**
+     * Inserts new artifacts as JDBC batches (hibernate.jdbc.batch_size), with ids reserved as one block. The artifacts
+     * are detached once written, so a caller saving chunk after chunk in one request (open session in view) does not
+     * grow the persistence context.
+     */
+    public List<Artifact> saveAll(List<Artifact> newArtifacts) {
+        long[] ids = idWorker.nextIds(newArtifacts.size());
+        for (int i = 0; i < ids.length; i++) {
+            newArtifacts.get(i).setId(ids[i]);
+        }
+        List<Artifact> savedArtifacts = artifactRepository.saveAll(newArtifacts);
+        artifactRepository.flush();
+        savedArtifacts.forEach(entityManager::detach);
+        afterCommit(() -> savedArtifacts.forEach(artifactSearchIndex::index));
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent());
+        return savedArtifacts;
+    }
+
+    public Artifact update(Long artifactId, Artifact update) {
         Artifact oldArtifact = artifactRepository.findById(artifactId)
                 .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
 
@@ -57,20 +138,54 @@ public class ArtifactService {
         oldArtifact.setDescription(update.getDescription());
         oldArtifact.setImageUrl(update.getImageUrl());
 
-        return artifactRepository.save(oldArtifact);
+        Artifact updatedArtifact = artifactRepository.save(oldArtifact);
+        afterCommit(() -> artifactSearchIndex.index(updatedArtifact));
+        artifactCache.invalidate(List.of(artifactId));
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent());
+        return updatedArtifact;
     }
 
-    public void delete(String artifactId) {
+    public void delete(Long artifactId) {
 
         Artifact artifact = artifactRepository.findById(artifactId)
                 .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
 
+        Wizard owner = artifact.getOwner();
         artifactRepository.deleteById(artifactId);
+
+        // Keep the owner's artifact count in sync, atomically, see WizardRepository.addToNumberOfArtifacts.
+        if (owner != null) {
+            wizardRepository.addToNumberOfArtifacts(owner.getId(), -1);
+            wizardCache.invalidate(List.of(owner.getId()));
+        }
+        afterCommit(() -> artifactSearchIndex.remove(artifactId));
+        artifactCache.evict(artifactId);
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent());
     }
 
     public String summarize(List<ArtifactDto> artifactDtos) throws JsonProcessingException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        String jsonArray = objectMapper.writeValueAsString(artifactDtos);
+        ChatRequest chatRequest = toSummaryRequest(artifactDtos);
+
+        ChatResponse chatResponse = this.chatClient.generate(chatRequest); // Tell chatClient to generate a text summary based on the given chatRequest.
+
+        // Retrieve the AI-generated text and return to the controller.
+        return chatResponse.choices().get(0).message().content();
+    }
+
+    /**
+     * Like {@link #summarize(List)}, but hands the summary to {@code onToken} piece by piece while the model writes it.
+     */
+    public String summarize(List<ArtifactDto> artifactDtos, Consumer<String> onToken) throws JsonProcessingException {
+        StringBuilder summary = new StringBuilder();
+        this.chatClient.stream(toSummaryRequest(artifactDtos), token -> {
+            summary.append(token);
+            onToken.accept(token);
+        });
+        return summary.toString();
+    }
+
+    private ChatRequest toSummaryRequest(List<ArtifactDto> artifactDtos) throws JsonProcessingException {
+        String jsonArray = OBJECT_MAPPER.writeValueAsString(artifactDtos);
 
         // Prepare the messages for summarizing.
         List<Message> messages = List.of(
@@ -78,12 +193,7 @@ public class ArtifactService {
                 new Message("user", jsonArray)
         );
 
-        ChatRequest chatRequest = new ChatRequest("gpt-4", messages);
-
-        ChatResponse chatResponse = this.chatClient.generate(chatRequest); // Tell chatClient to generate a text summary based on the given chatRequest.
-
-        // Retrieve the AI-generated text and return to the controller.
-        return chatResponse.choices().get(0).message().content();
+        return new ChatRequest("gpt-4", messages);
     }
 
     public Page<Artifact> findAll(Pageable pageable) {
@@ -91,10 +201,49 @@ public class ArtifactService {
     }
 
     public Page<Artifact> findByCriteria(Map<String, String> searchCriteria, Pageable pageable) {
+        return artifactRepository.findAll(toSpecification(searchCriteria), pageable);
+    }
+
+    /**
+     * Keyset pagination: seeks past the last seen id instead of skipping rows, and returns a Slice so no COUNT(*) is run.
+     * Ids from IdWorker are time ordered, so ordering by id is stable for newly added artifacts.
+     */
+    public Slice<Artifact> findAll(Long afterId, int size) {
+        return findByCriteria(Map.of(), afterId, size);
+    }
+
+    public Slice<Artifact> findByCriteria(Map<String, String> searchCriteria, Long afterId, int size) {
+        Specification<Artifact> spec = toSpecification(searchCriteria);
+        if (afterId != null) {
+            spec = spec.and(ArtifactSpecs.hasIdGreaterThan(afterId));
+        }
+
+        // Fetch one extra row to find out whether there is a next slice.
+        List<Artifact> artifacts = artifactRepository.findBy(spec, query -> query
+                .sortBy(Sort.by("id"))
+                .project("owner")
+                .limit(size + 1)
+                .all());
+
+        boolean hasNext = artifacts.size() > size;
+        List<Artifact> content = hasNext ? artifacts.subList(0, size) : artifacts;
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by("id")), hasNext);
+    }
+
+    private Specification<Artifact> toSpecification(Map<String, String> searchCriteria) {
         Specification<Artifact> spec = Specification.where(null);
 
+        // Narrow name/description substring searches to the candidates of the search index (plus the rows it may not
+        // know about yet), so the database looks rows up by key. The LIKE predicates below still apply, so results
+        // stay exact.
+        Specification<Artifact> candidates = artifactSearchIndex.findCandidates(searchCriteria.get("name"), searchCriteria.get("description"));
+        if (candidates != null) {
+            spec = spec.and(candidates);
+        }
+
         if (StringUtils.hasLength(searchCriteria.get("id"))) {
-            spec = spec.and(ArtifactSpecs.hasId(searchCriteria.get("id")));
+            Long id = ArtifactIds.parseOrNull(searchCriteria.get("id"));
+            spec = spec.and(id != null ? ArtifactSpecs.hasId(id) : (root, query, criteriaBuilder) -> criteriaBuilder.disjunction());
         }
         if (StringUtils.hasLength(searchCriteria.get("name"))) {
             spec = spec.and(ArtifactSpecs.containsName(searchCriteria.get("name")));
@@ -105,7 +254,20 @@ public class ArtifactService {
         if (StringUtils.hasLength(searchCriteria.get("ownerName"))) {
             spec = spec.and(ArtifactSpecs.hasOwnerName(searchCriteria.get("ownerName")));
         }
-        return artifactRepository.findAll(spec, pageable);
+        return spec;
+    }
 
+    // Update the search index only once the change is committed, so a rolled back write never shows up in it.
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
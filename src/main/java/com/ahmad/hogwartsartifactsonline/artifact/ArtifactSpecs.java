@@ -6,9 +6,12 @@ import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 public class ArtifactSpecs {
 
-    public static Specification<Artifact> hasId(String providedId) {
+    public static Specification<Artifact> hasId(Long providedId) {
         return new Specification<Artifact>() {
             @Override
             public Predicate toPredicate(Root<Artifact> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
@@ -17,6 +20,20 @@ public class ArtifactSpecs {
         };
     }
 
+    public static Specification<Artifact> hasIdGreaterThan(Long providedId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("id"), providedId);
+    }
+
+    public static Specification<Artifact> hasIdIn(Collection<Long> providedIds) {
+        return (root, query, criteriaBuilder) -> providedIds.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : root.get("id").in(providedIds);
+    }
+
+    public static Specification<Artifact> isUpdatedSince(LocalDateTime since) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("updatedAt"), since);
+    }
+
     public static Specification<Artifact> containsName(String providedName) {
         return (root, query, criteriaBuilder) -> criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), "%" + providedName.toLowerCase() + "%");
     }
@@ -0,0 +1,224 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.artifact.converter.ArtifactToArtifactDtoConverter;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.ChatClient;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Message;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Summarizes the artifact catalog without sending it to the model in one piece. Artifacts are read in keyset batches
+ * of {@code chunk-size}; each batch is summarized on its own (map), at most {@code parallelism} at a time, and the
+ * partial summaries are then combined {@code reduce-fan-in} at a time until one summary is left (reduce).
+ * A catalog that fits into a single chunk is summarized with one request, exactly like before.
+ * <p>
+ * When streaming, only the request that writes the final summary is streamed; the map and intermediate reduce steps
+ * run to completion first.
+ */
+@Component
+public class ArtifactSummarizer implements DisposableBean {
+
+    static final String MAP_PROMPT = "Your task is to generate a short summary of a given JSON array in at most 100 words. The JSON array is one part of a larger artifact catalog. The summary must include the number of artifacts, what kinds of artifacts there are, and the ownership information. Don't mention that the summary is from a given JSON array.";
+
+    static final String REDUCE_PROMPT = "Your task is to combine the given partial summaries of one artifact catalog into a single summary of at most 100 words. The summary must include the total number of artifacts, what kinds of artifacts there are, and the ownership information. Don't mention that it is combined from partial summaries.";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ArtifactService artifactService;
+
+    private final ArtifactToArtifactDtoConverter artifactToArtifactDtoConverter;
+
+    private final ChatClient chatClient;
+
+    private final int chunkSize;
+
+    private final int parallelism;
+
+    private final int reduceFanIn;
+
+    private final ExecutorService executor;
+
+    public ArtifactSummarizer(ArtifactService artifactService,
+                              ArtifactToArtifactDtoConverter artifactToArtifactDtoConverter,
+                              ChatClient chatClient,
+                              @Value("${artifact.summary.chunk-size:200}") int chunkSize,
+                              @Value("${artifact.summary.parallelism:4}") int parallelism,
+                              @Value("${artifact.summary.reduce-fan-in:20}") int reduceFanIn,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (chunkSize < 1 || parallelism < 1 || reduceFanIn < 2) {
+            throw new IllegalArgumentException("chunk-size and parallelism must be at least 1, reduce-fan-in at least 2");
+        }
+        this.artifactService = artifactService;
+        this.artifactToArtifactDtoConverter = artifactToArtifactDtoConverter;
+        this.chatClient = chatClient;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.reduceFanIn = reduceFanIn;
+        // The workers only wait for the model, so in virtual thread mode they do not need platform threads.
+        this.executor = Executors.newFixedThreadPool(parallelism, virtualThreads
+                ? Thread.ofVirtual().name("artifact-summary-", 1).factory()
+                : Thread.ofPlatform().name("artifact-summary-", 1).daemon().factory());
+    }
+
+    public String summarize() {
+        return summarize(null);
+    }
+
+    /**
+     * Summarizes the catalog, handing the final summary to {@code onToken} piece by piece if it is not null.
+     */
+    public String summarize(Consumer<String> onToken) {
+        Slice<Artifact> slice = artifactService.findAll(null, chunkSize);
+        if (!slice.hasNext()) {
+            try {
+                return onToken == null
+                        ? artifactService.summarize(toDtos(slice))
+                        : artifactService.summarize(toDtos(slice), onToken);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // Reading waits for a free permit, so at most `parallelism` chunks are held in memory at a time.
+        Semaphore permits = new Semaphore(parallelism);
+        List<CompletableFuture<String>> partialSummaries = new ArrayList<>();
+        try {
+            while (true) {
+                String chunkJson = toJson(toDtos(slice));
+                partialSummaries.add(submit(permits, () -> generate(MAP_PROMPT, chunkJson)));
+                if (!slice.hasNext()) {
+                    break;
+                }
+                slice = artifactService.findAll(lastId(slice), chunkSize);
+            }
+            return reduce(joinAll(partialSummaries), permits, onToken);
+        } catch (RuntimeException e) {
+            partialSummaries.forEach(partialSummary -> partialSummary.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * SHA-256 over the catalog as it would be sent to the model, read in the same batches as {@link #summarize()}.
+     */
+    public String fingerprint() {
+        MessageDigest digest = sha256();
+        Long afterId = null;
+        Slice<Artifact> slice;
+        do {
+            slice = artifactService.findAll(afterId, chunkSize);
+            if (slice.hasContent()) {
+                digest.update(toJson(toDtos(slice)).getBytes(StandardCharsets.UTF_8));
+                afterId = lastId(slice);
+            }
+        } while (slice.hasNext());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private String reduce(List<String> summaries, Semaphore permits, Consumer<String> onToken) {
+        while (summaries.size() > reduceFanIn) {
+            List<CompletableFuture<String>> combined = new ArrayList<>();
+            for (int from = 0; from < summaries.size(); from += reduceFanIn) {
+                String group = String.join("\n\n", summaries.subList(from, Math.min(from + reduceFanIn, summaries.size())));
+                combined.add(submit(permits, () -> generate(REDUCE_PROMPT, group)));
+            }
+            summaries = joinAll(combined);
+        }
+        ChatRequest chatRequest = toChatRequest(REDUCE_PROMPT, String.join("\n\n", summaries));
+        if (onToken == null) {
+            return chatClient.generate(chatRequest).choices().get(0).message().content();
+        }
+        StringBuilder summary = new StringBuilder();
+        chatClient.stream(chatRequest, token -> {
+            summary.append(token);
+            onToken.accept(token);
+        });
+        return summary.toString();
+    }
+
+    private CompletableFuture<String> submit(Semaphore permits, Supplier<String> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while summarizing artifacts", e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor)
+                    .whenComplete((summary, throwable) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private String generate(String instructions, String content) {
+        return chatClient.generate(toChatRequest(instructions, content)).choices().get(0).message().content();
+    }
+
+    private static ChatRequest toChatRequest(String instructions, String content) {
+        return new ChatRequest("gpt-4", List.of(
+                new Message("system", instructions),
+                new Message("user", content)
+        ));
+    }
+
+    private List<ArtifactDto> toDtos(Slice<Artifact> slice) {
+        return slice.getContent().stream()
+                .map(artifactToArtifactDtoConverter::convert)
+                .toList();
+    }
+
+    private static Long lastId(Slice<Artifact> slice) {
+        return slice.getContent().get(slice.getNumberOfElements() - 1).getId();
+    }
+
+    private static List<String> joinAll(List<CompletableFuture<String>> futures) {
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static String toJson(List<ArtifactDto> artifactDtos) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(artifactDtos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the last AI summary of the artifact catalog. A catalog change only marks the summary stale: the next reader
+ * still gets the old summary and starts a single background refresh. The refresh fingerprints the catalog (see
+ * {@link ArtifactSummarizer#fingerprint()}) and only calls the model when it differs from the cached one. Changes made
+ * on other replicas are picked up once the summary is older than {@code max-age}.
+ * <p>
+ * Without a summary to serve, concurrent readers share one generation: streaming readers share one streamed
+ * generation, and a reader that arrives while the other kind of generation runs waits for its result.
+ */
+@Component
+public class ArtifactSummaryCache implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactSummaryCache.class);
+
+    private final ArtifactSummarizer artifactSummarizer;
+
+    private final boolean enabled;
+
+    private final long maxAgeNanos;
+
+    private final ExecutorService refreshExecutor;
+
+    // Bumped on every catalog change; a summary computed from an older version is stale.
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    private final AtomicReference<CompletableFuture<CachedSummary>> runningRefresh = new AtomicReference<>();
+
+    private final AtomicReference<SharedStream> runningStream = new AtomicReference<>();
+
+    private volatile CachedSummary cachedSummary;
+
+    private final Counter hits;
+
+    private final Counter staleHits;
+
+    private final Counter misses;
+
+    private final Counter modelCalls;
+
+    @Autowired
+    public ArtifactSummaryCache(ArtifactSummarizer artifactSummarizer,
+                                @Value("${artifact.summary-cache.enabled:true}") boolean enabled,
+                                @Value("${artifact.summary-cache.max-age:1h}") Duration maxAge,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                MeterRegistry meterRegistry) {
+        this(artifactSummarizer, enabled, maxAge, meterRegistry,
+                Executors.newSingleThreadExecutor(virtualThreads
+                        ? Thread.ofVirtual().name("artifact-summary-refresh").factory()
+                        : Thread.ofPlatform().name("artifact-summary-refresh").daemon().factory()));
+    }
+
+    ArtifactSummaryCache(ArtifactSummarizer artifactSummarizer, boolean enabled, Duration maxAge,
+                         MeterRegistry meterRegistry, ExecutorService refreshExecutor) {
+        this.artifactSummarizer = artifactSummarizer;
+        this.enabled = enabled;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.hits = Counter.builder("artifact.summary-cache.requests").tag("result", "hit").register(meterRegistry);
+        this.staleHits = Counter.builder("artifact.summary-cache.requests").tag("result", "stale").register(meterRegistry);
+        this.misses = Counter.builder("artifact.summary-cache.requests").tag("result", "miss").register(meterRegistry);
+        this.modelCalls = Counter.builder("artifact.summary-cache.model.calls")
+                .description("Summaries actually generated by the chat model")
+                .register(meterRegistry);
+    }
+
+    public String getSummary() {
+        if (!enabled) {
+            return artifactSummarizer.summarize();
+        }
+        CachedSummary current = cachedSummary;
+        if (current == null) {
+            // Nothing to serve yet, so wait for the generation shared with any concurrent first readers.
+            misses.increment();
+            SharedStream stream = runningStream.get();
+            return stream != null ? await(stream.summary) : await(refresh()).summary();
+        }
+        if (isStale(current)) {
+            staleHits.increment();
+            refresh();
+        } else {
+            hits.increment();
+        }
+        return current.summary();
+    }
+
+    /**
+     * Streaming variant of {@link #getSummary()}: a cached summary is handed to {@code onToken} at once, otherwise
+     * the summary is streamed from the model as it is written and cached once it is complete. A streaming reader that
+     * joins a running generation first gets the text written so far as one token.
+     */
+    public void streamSummary(Consumer<String> onToken) {
+        CachedSummary current = enabled ? cachedSummary : null;
+        if (current != null) {
+            if (isStale(current)) {
+                staleHits.increment();
+                refresh();
+            } else {
+                hits.increment();
+            }
+            onToken.accept(current.summary());
+            return;
+        }
+        if (!enabled) {
+            artifactSummarizer.summarize(onToken);
+            return;
+        }
+        misses.increment();
+        CompletableFuture<CachedSummary> refreshing = runningRefresh.get();
+        if (refreshing != null) {
+            onToken.accept(await(refreshing).summary());
+            return;
+        }
+        while (true) {
+            SharedStream running = runningStream.get();
+            if (running != null) {
+                if (running.follow(onToken)) {
+                    return;
+                }
+                // It finished meanwhile, so its summary is cached.
+                runningStream.compareAndSet(running, null);
+                onToken.accept(await(running.summary));
+                return;
+            }
+            SharedStream stream = new SharedStream();
+            if (runningStream.compareAndSet(null, stream)) {
+                stream.lead(onToken);
+                return;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ArtifactCatalogChangedEvent event) {
+        catalogVersion.incrementAndGet();
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private boolean isStale(CachedSummary summary) {
+        return summary.catalogVersion() != catalogVersion.get()
+                || System.nanoTime() - summary.computedAt() > maxAgeNanos;
+    }
+
+    // Starts a refresh unless one is already running, and returns the running one.
+    private CompletableFuture<CachedSummary> refresh() {
+        while (true) {
+            CompletableFuture<CachedSummary> running = runningRefresh.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<CachedSummary> refresh = new CompletableFuture<>();
+            if (runningRefresh.compareAndSet(null, refresh)) {
+                refreshExecutor.execute(() -> {
+                    try {
+                        CachedSummary refreshed = compute(cachedSummary);
+                        cachedSummary = refreshed;
+                        runningRefresh.set(null);
+                        refresh.complete(refreshed);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Could not refresh the artifact summary, keeping the previous one", e);
+                        runningRefresh.set(null);
+                        refresh.completeExceptionally(e);
+                    }
+                });
+                return refresh;
+            }
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private CachedSummary compute(CachedSummary previous) {
+        long version = catalogVersion.get(); // Read first, so a change during the refresh leaves the result stale.
+        String fingerprint = artifactSummarizer.fingerprint();
+
+        if (previous != null && previous.fingerprint().equals(fingerprint)) {
+            return new CachedSummary(previous.summary(), fingerprint, version, System.nanoTime());
+        }
+        String summary = artifactSummarizer.summarize();
+        modelCalls.increment();
+        return new CachedSummary(summary, fingerprint, version, System.nanoTime());
+    }
+
+    private record CachedSummary(String summary, String fingerprint, long catalogVersion, long computedAt) {
+    }
+
+    /**
+     * One streamed generation and the streaming readers it is relayed to. It runs on the thread of the first reader
+     * and hands every token to each reader in turn, so the slowest client paces it. A reader whose client went away is
+     * dropped; the model call is only aborted once no reader is left.
+     */
+    private final class SharedStream {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final CompletableFuture<String> summary = new CompletableFuture<>();
+
+        // Guarded by lock.
+        private final StringBuilder written = new StringBuilder();
+
+        private final List<Subscriber> subscribers = new ArrayList<>();
+
+        private boolean finished;
+
+        void lead(Consumer<String> onToken) {
+            Subscriber leader = new Subscriber(onToken, new CompletableFuture<>());
+            lock.lock();
+            try {
+                subscribers.add(leader);
+            } finally {
+                lock.unlock();
+            }
+            try {
+                long version = catalogVersion.get();
+                String fingerprint = artifactSummarizer.fingerprint();
+                String generated = artifactSummarizer.summarize(this::publish);
+                modelCalls.increment();
+                if (cachedSummary == null) {
+                    cachedSummary = new CachedSummary(generated, fingerprint, version, System.nanoTime());
+                }
+                finish(generated, null);
+            } catch (RuntimeException e) {
+                finish(null, e);
+            }
+            await(leader.done());
+        }
+
+        // Returns false if the generation has finished already.
+        boolean follow(Consumer<String> onToken) {
+            Subscriber follower = new Subscriber(onToken, new CompletableFuture<>());
+            lock.lock();
+            try {
+                if (finished) {
+                    return false;
+                }
+                if (!written.isEmpty()) {
+                    onToken.accept(written.toString());
+                }
+                subscribers.add(follower);
+            } finally {
+                lock.unlock();
+            }
+            await(follower.done());
+            return true;
+        }
+
+        private void publish(String token) {
+            lock.lock();
+            try {
+                written.append(token);
+                for (Iterator<Subscriber> iterator = subscribers.iterator(); iterator.hasNext(); ) {
+                    Subscriber subscriber = iterator.next();
+                    try {
+                        subscriber.onToken().accept(token);
+                    } catch (RuntimeException e) {
+                        iterator.remove();
+                        subscriber.done().completeExceptionally(e);
+                    }
+                }
+                if (subscribers.isEmpty()) {
+                    throw new CancellationException("Every client went away");
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void finish(String generated, RuntimeException failure) {
+            lock.lock();
+            try {
+                finished = true;
+                runningStream.compareAndSet(this, null);
+                for (Subscriber subscriber : subscribers) {
+                    if (failure == null) {
+                        subscriber.done().complete(null);
+                    } else {
+                        subscriber.done().completeExceptionally(failure);
+                    }
+                }
+                subscribers.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (failure == null) {
+                summary.complete(generated);
+            } else {
+                summary.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private record Subscriber(Consumer<String> onToken, CompletableFuture<Void> done) {
+    }
+}
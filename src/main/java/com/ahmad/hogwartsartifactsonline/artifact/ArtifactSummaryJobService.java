@@ -0,0 +1,159 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactSummaryJob;
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import com.ahmad.hogwartsartifactsonline.system.exception.SummaryJobCapacityExceededException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the artifact summary in the background, so a cold summary does not hold a request thread while the model
+ * writes. Jobs are kept in Redis, so any replica can answer the poll for a job that runs on another one.
+ * <p>
+ * Every summary job asks for the same thing, so concurrent submissions share one job: the first one takes the
+ * {@code artifactSummaryJob:active} key and later ones get its job back until it finishes. The key expires after
+ * {@code timeout} in case the replica running the job dies.
+ */
+@Service
+public class ArtifactSummaryJobService implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactSummaryJobService.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    static final String JOB_KEY_PREFIX = "artifactSummaryJob:";
+
+    static final String ACTIVE_JOB_KEY = JOB_KEY_PREFIX + "active";
+
+    private final ArtifactSummaryCache artifactSummaryCache;
+
+    private final RedisCacheClient redisCacheClient;
+
+    private final long ttlMillis;
+
+    private final long timeoutMillis;
+
+    private final ExecutorService executor;
+
+    @Autowired
+    public ArtifactSummaryJobService(ArtifactSummaryCache artifactSummaryCache,
+                                     RedisCacheClient redisCacheClient,
+                                     @Value("${artifact.summary-job.workers:2}") int workers,
+                                     @Value("${artifact.summary-job.queue-capacity:10}") int queueCapacity,
+                                     @Value("${artifact.summary-job.ttl:1h}") Duration ttl,
+                                     @Value("${artifact.summary-job.timeout:10m}") Duration timeout,
+                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(artifactSummaryCache, redisCacheClient, ttl, timeout,
+                new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                        virtualThreads
+                                ? Thread.ofVirtual().name("artifact-summary-job-", 1).factory()
+                                : Thread.ofPlatform().name("artifact-summary-job-", 1).daemon().factory()));
+    }
+
+    ArtifactSummaryJobService(ArtifactSummaryCache artifactSummaryCache, RedisCacheClient redisCacheClient,
+                              Duration ttl, Duration timeout, ExecutorService executor) {
+        this.artifactSummaryCache = artifactSummaryCache;
+        this.redisCacheClient = redisCacheClient;
+        this.ttlMillis = ttl.toMillis();
+        this.timeoutMillis = timeout.toMillis();
+        this.executor = executor;
+    }
+
+    /**
+     * Enqueues a summary job, or returns the job that is already generating the summary.
+     */
+    public ArtifactSummaryJob submit() {
+        while (true) {
+            String jobId = UUID.randomUUID().toString();
+            if (redisCacheClient.setIfAbsent(ACTIVE_JOB_KEY, jobId, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                ArtifactSummaryJob job = ArtifactSummaryJob.pending(jobId);
+                save(job, timeoutMillis);
+                try {
+                    executor.execute(() -> run(job));
+                } catch (RejectedExecutionException e) {
+                    redisCacheClient.delete(JOB_KEY_PREFIX + jobId);
+                    redisCacheClient.deleteIfEquals(ACTIVE_JOB_KEY, jobId);
+                    throw new SummaryJobCapacityExceededException();
+                }
+                return job;
+            }
+
+            String activeJobId = redisCacheClient.get(ACTIVE_JOB_KEY);
+            if (activeJobId != null) {
+                ArtifactSummaryJob activeJob = find(activeJobId);
+                // The job is written right after the key, so it may not be there yet.
+                return activeJob != null ? activeJob : ArtifactSummaryJob.pending(activeJobId);
+            }
+            // The active job finished in between, try again.
+        }
+    }
+
+    public ArtifactSummaryJob findById(String jobId) {
+        // Job ids are UUIDs; anything else would read another key under the prefix, e.g. the active job's id.
+        ArtifactSummaryJob job = isJobId(jobId) ? find(jobId) : null;
+        if (job == null) {
+            throw new ObjectNotFoundException("summary job", jobId);
+        }
+        return job;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void run(ArtifactSummaryJob job) {
+        try {
+            save(job.running(), timeoutMillis);
+            save(job.succeeded(artifactSummaryCache.getSummary()), ttlMillis);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Artifact summary job {} failed", job.id(), e);
+            save(job.failed("Could not generate the artifact summary"), ttlMillis);
+        } finally {
+            redisCacheClient.deleteIfEquals(ACTIVE_JOB_KEY, job.id());
+        }
+    }
+
+    private ArtifactSummaryJob find(String jobId) {
+        String json = redisCacheClient.get(JOB_KEY_PREFIX + jobId);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readValue(json, ArtifactSummaryJob.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable summary job " + jobId, e);
+        }
+    }
+
+    private static boolean isJobId(String jobId) {
+        try {
+            return UUID.fromString(jobId).toString().equals(jobId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void save(ArtifactSummaryJob job, long timeToLiveMillis) {
+        try {
+            redisCacheClient.set(JOB_KEY_PREFIX + job.id(), OBJECT_MAPPER.writeValueAsString(job), timeToLiveMillis, TimeUnit.MILLISECONDS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Relays the artifact summary to the client as server-sent events: one {@code token} event per piece of text the
+ * model writes, then a {@code done} event (or an {@code error} event). The request thread is released right away;
+ * the relay runs on a virtual thread, which blocks on the client's socket, so a slow client slows down the reads from
+ * the model (backpressure). When the client goes away, the next token aborts the upstream call.
+ */
+@Component
+public class ArtifactSummaryStreamer implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactSummaryStreamer.class);
+
+    private final ArtifactSummaryCache artifactSummaryCache;
+
+    private final long timeoutMillis;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ArtifactSummaryStreamer(ArtifactSummaryCache artifactSummaryCache,
+                                   @Value("${artifact.summary.stream-timeout:2m}") Duration timeout) {
+        this.artifactSummaryCache = artifactSummaryCache;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    public SseEmitter stream() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(throwable -> cancelled.set(true));
+
+        executor.execute(() -> {
+            try {
+                artifactSummaryCache.streamSummary(token -> {
+                    if (cancelled.get()) {
+                        throw new CancellationException("Client went away");
+                    }
+                    send(emitter, "token", token);
+                });
+                send(emitter, "done", "");
+                emitter.complete();
+            } catch (CancellationException | UncheckedIOException e) {
+                LOGGER.debug("Artifact summary stream cancelled: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not stream the artifact summary", e);
+                try {
+                    send(emitter, "error", "Could not generate the artifact summary");
+                    emitter.complete();
+                } catch (RuntimeException ignored) {
+                    // The client is gone as well.
+                }
+            }
+        });
+        return emitter;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static void send(SseEmitter emitter, String name, String data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalStateException e) {
+            throw new CancellationException(e.getMessage()); // The emitter was already completed, e.g. by a timeout.
+        }
+    }
+}
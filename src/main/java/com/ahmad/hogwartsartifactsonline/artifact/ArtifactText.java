@@ -0,0 +1,13 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+/**
+ * Projection of the searchable text of an artifact, used to build the search index without loading owners.
+ */
+public interface ArtifactText {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+}
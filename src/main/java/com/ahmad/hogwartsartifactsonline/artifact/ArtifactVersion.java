@@ -0,0 +1,14 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+/**
+ * Projection of the versions an artifact's representation depends on, and of its image URL for the image variants,
+ * used to answer conditional reads without loading the artifact and its owner.
+ */
+public interface ArtifactVersion {
+
+    Long getVersion();
+
+    Long getOwnerVersion();
+
+    String getImageUrl();
+}
@@ -2,6 +2,7 @@ package com.ahmad.hogwartsartifactsonline.artifact.converter;
 
 import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
 import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.ArtifactIds;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
 
@@ -11,7 +12,7 @@ public class ArtifactDtoToArtifactConverter implements Converter<ArtifactDto, Ar
     @Override
     public Artifact convert(ArtifactDto source) {
         Artifact artifact = new Artifact();
-        artifact.setId(source.id());
+        artifact.setId(ArtifactIds.parseOrNull(source.id()));
         artifact.setName(source.name());
         artifact.setDescription(source.description());
         artifact.setImageUrl(source.imageUrl());
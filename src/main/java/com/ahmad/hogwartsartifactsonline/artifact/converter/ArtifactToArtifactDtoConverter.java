@@ -2,6 +2,7 @@ package com.ahmad.hogwartsartifactsonline.artifact.converter;
 
 import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
 import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.ArtifactIds;
 import com.ahmad.hogwartsartifactsonline.wizard.converter.WizardToWizardDtoConverter;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
@@ -18,7 +19,7 @@ public class ArtifactToArtifactDtoConverter implements Converter<Artifact, Artif
     @Override
     public ArtifactDto convert(Artifact source) {
         ArtifactDto artifactDto = new ArtifactDto(
-                source.getId(),
+                ArtifactIds.format(source.getId()),
                 source.getName(),
                 source.getDescription(),
                 source.getImageUrl(),
@@ -1,8 +1,11 @@
 package com.ahmad.hogwartsartifactsonline.artifact.dto;
 
 import com.ahmad.hogwartsartifactsonline.wizard.dto.WizardDto;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotEmpty;
 
+import java.util.Map;
+
 public record ArtifactDto(
         String id,
 
@@ -15,5 +18,18 @@ public record ArtifactDto(
         @NotEmpty(message = "imageUrl is required.")
         String imageUrl,
 
-        WizardDto owner) {
+        WizardDto owner,
+
+        // Downscaled versions of the image by longest side in pixels, e.g. for list views, once generated. Read only, and only
+        // filled in by ArtifactController.
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        Map<Integer, String> imageVariantUrls) {
+
+    public ArtifactDto(String id, String name, String description, String imageUrl, WizardDto owner) {
+        this(id, name, description, imageUrl, owner, Map.of());
+    }
+
+    public ArtifactDto withImageVariantUrls(Map<Integer, String> imageVariantUrls) {
+        return new ArtifactDto(id, name, description, imageUrl, owner, imageVariantUrls);
+    }
 }
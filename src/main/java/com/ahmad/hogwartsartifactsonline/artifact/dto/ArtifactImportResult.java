@@ -0,0 +1,15 @@
+package com.ahmad.hogwartsartifactsonline.artifact.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Rows are numbered from 1 in input order; only the first failures are listed.
+ */
+public record ArtifactImportResult(
+        long imported,
+        long failed,
+        List<RowFailure> failures) {
+
+    public record RowFailure(long row, String message) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.ahmad.hogwartsartifactsonline.artifact.dto;
+
+import java.time.Instant;
+
+public record ArtifactSummaryJob(
+        String id,
+
+        Status status,
+
+        String summary,
+
+        String error,
+
+        Instant createdAt,
+
+        Instant finishedAt) {
+
+    public enum Status {
+        PENDING, RUNNING, SUCCEEDED, FAILED
+    }
+
+    public static ArtifactSummaryJob pending(String id) {
+        return new ArtifactSummaryJob(id, Status.PENDING, null, null, Instant.now(), null);
+    }
+
+    public ArtifactSummaryJob running() {
+        return new ArtifactSummaryJob(id, Status.RUNNING, null, null, createdAt, null);
+    }
+
+    public ArtifactSummaryJob succeeded(String summary) {
+        return new ArtifactSummaryJob(id, Status.SUCCEEDED, summary, null, createdAt, Instant.now());
+    }
+
+    public ArtifactSummaryJob failed(String error) {
+        return new ArtifactSummaryJob(id, Status.FAILED, null, error, createdAt, Instant.now());
+    }
+}
@@ -0,0 +1,39 @@
+package com.ahmad.hogwartsartifactsonline.artifact.utils;
+
+import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+
+/**
+ * Artifact ids are BIGINT in the database but strings in the REST API, because 64-bit ids do not fit in a
+ * JavaScript number. These helpers convert at the API boundary.
+ */
+public final class ArtifactIds {
+
+    private ArtifactIds() {
+    }
+
+    /**
+     * Parses an artifact id from a request. An id that is not a number cannot exist, so it is reported as not found.
+     */
+    public static Long parse(String artifactId) {
+        Long id = parseOrNull(artifactId);
+        if (id == null) {
+            throw new ObjectNotFoundException("artifact", artifactId);
+        }
+        return id;
+    }
+
+    public static Long parseOrNull(String artifactId) {
+        if (artifactId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(artifactId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static String format(Long artifactId) {
+        return artifactId == null ? null : artifactId.toString();
+    }
+}
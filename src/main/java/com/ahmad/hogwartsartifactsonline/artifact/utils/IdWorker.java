@@ -1,119 +1,132 @@
 package com.ahmad.hogwartsartifactsonline.artifact.utils;
 
-import java.lang.management.ManagementFactory;
-import java.net.InetAddress;
-import java.net.NetworkInterface;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
 
 /**
- * This piece of code is from the Internet. The quality is unknown.
- * Only for demoing purpose. Use with caution!
+ * Snowflake style id generator: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of worker id and 12 bits of
+ * sequence. The worker id must be unique per running node, see WorkerIdLeaseService.
+ * <p>
+ * The last timestamp and the sequence are packed into one AtomicLong, so ids are handed out with a CAS instead of a
+ * lock. When the sequence of a millisecond is used up, it carries into the timestamp, i.e. the generator borrows the
+ * next millisecond instead of spinning until it arrives. The same logical clock absorbs small clock regressions: ids
+ * keep increasing from the last timestamp. The logical clock never runs more than {@code maxBackwardMillis} ahead of
+ * the wall clock (beyond that, callers briefly wait), so only a real regression larger than that is refused.
  */
 public class IdWorker {
 
-    private final static long twepoch = 1288834974657L;
+    public static final long EPOCH = 1288834974657L;
 
-    private final static long workerIdBits = 5L;
+    public static final int WORKER_ID_BITS = 10;
 
-    private final static long datacenterIdBits = 5L;
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
 
-    private final static long maxWorkerId = -1L ^ (-1L << workerIdBits);
+    // One millisecond worth of sequence.
+    public static final int MAX_BLOCK_SIZE = 1 << 12;
 
-    private final static long maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
+    public static final long DEFAULT_MAX_BACKWARD_MILLIS = 5_000;
 
-    private final static long sequenceBits = 12L;
+    private static final int SEQUENCE_BITS = 12;
 
-    private final static long workerIdShift = sequenceBits;
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
 
-    private final static long datacenterIdShift = sequenceBits + workerIdBits;
+    private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
 
-    private final static long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
 
-    private final static long sequenceMask = -1L ^ (-1L << sequenceBits);
+    private static final long SATURATED_WAIT_NANOS = 50_000;
 
-    private static long lastTimestamp = -1L;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id handed out.
+    private final AtomicLong state = new AtomicLong();
 
-    private long sequence = 0L;
+    private final LongSupplier clock;
 
-    private final long workerId;
+    private final long maxBackwardMillis;
 
-    private final long datacenterId;
+    private volatile long workerId;
 
+    public IdWorker(long workerId) {
+        this(workerId, System::currentTimeMillis, DEFAULT_MAX_BACKWARD_MILLIS);
+    }
+
+    IdWorker(long workerId, LongSupplier clock, long maxBackwardMillis) {
+        this.clock = clock;
+        this.maxBackwardMillis = maxBackwardMillis;
+        setWorkerId(workerId);
+    }
 
-    public IdWorker() {
-        this.datacenterId = getDatacenterId(maxDatacenterId);
-        this.workerId = getMaxWorkerId(datacenterId, maxWorkerId);
+    public long nextId() {
+        return toId(reserve(1));
     }
 
-    public IdWorker(long workerId, long datacenterId) {
-        if (workerId > maxWorkerId || workerId < 0) {
-            throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
+    /**
+     * Reserves a block of ids with a single CAS, e.g. for a bulk insert. The ids are increasing, like those of
+     * {@code count} calls to {@link #nextId()}.
+     */
+    public long[] nextIds(int count) {
+        if (count < 1 || count > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(String.format("id block size must be between 1 and %d", MAX_BLOCK_SIZE));
         }
-        if (datacenterId > maxDatacenterId || datacenterId < 0) {
-            throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
+        long first = reserve(count);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = toId(first + i);
         }
-        this.workerId = workerId;
-        this.datacenterId = datacenterId;
+        return ids;
     }
 
-    public synchronized long nextId() {
-        long timestamp = timeGen();
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
-        }
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
+    // Moves the state past count ids and returns the state of the first one.
+    private long reserve(int count) {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long timestamp = clock.getAsLong() - EPOCH;
+
+            long first;
+            if (timestamp > lastTimestamp) {
+                first = timestamp << SEQUENCE_BITS;
+            } else if (lastTimestamp - timestamp <= maxBackwardMillis) {
+                first = current + 1; // Same millisecond, a borrowed one, or a small clock regression.
+            } else {
+                throw new IllegalStateException(String.format("Clock moved backwards. Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+            }
+
+            long last = first + count - 1;
+            if ((last >>> SEQUENCE_BITS) - timestamp > maxBackwardMillis) {
+                // More than 4096 ids per millisecond for a while: wait for the clock instead of running ahead.
+                LockSupport.parkNanos(SATURATED_WAIT_NANOS);
+                continue;
+            }
+
+            if (state.compareAndSet(current, last)) {
+                return first;
             }
-        } else {
-            sequence = 0L;
         }
-        lastTimestamp = timestamp;
-        long nextId = ((timestamp - twepoch) << timestampLeftShift)
-                | (datacenterId << datacenterIdShift)
-                | (workerId << workerIdShift) | sequence;
-        return nextId;
     }
 
-    private long tilNextMillis(final long lastTimestamp) {
-        long timestamp = this.timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = this.timeGen();
-        }
-        return timestamp;
+    private long toId(long state) {
+        return ((state >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                | (workerId << WORKER_ID_SHIFT)
+                | (state & SEQUENCE_MASK);
     }
 
-    private long timeGen() {
-        return System.currentTimeMillis();
+    public long getWorkerId() {
+        return workerId;
     }
 
-    protected static long getMaxWorkerId(long datacenterId, long maxWorkerId) {
-        StringBuffer mpid = new StringBuffer();
-        mpid.append(datacenterId);
-        String name = ManagementFactory.getRuntimeMXBean().getName();
-        if (!name.isEmpty()) {
-            mpid.append(name.split("@")[0]); // GET jvmPid
-        }
-        return (mpid.toString().hashCode() & 0xffff) % (maxWorkerId + 1);
+    // How far ahead of the wall clock the ids handed out so far may be.
+    public long getMaxBackwardMillis() {
+        return maxBackwardMillis;
     }
 
-    protected static long getDatacenterId(long maxDatacenterId) {
-        long id = 0L;
-        try {
-            InetAddress ip = InetAddress.getLocalHost();
-            NetworkInterface network = NetworkInterface.getByInetAddress(ip);
-            if (network == null) {
-                id = 1L;
-            } else {
-                byte[] mac = network.getHardwareAddress();
-                id = ((0x000000FF & (long) mac[mac.length - 1])
-                        | (0x0000FF00 & (((long) mac[mac.length - 2]) << 8))) >> 6;
-                id = id % (maxDatacenterId + 1);
-            }
-        } catch (Exception e) {
-            System.out.println(" getDatacenterId: " + e.getMessage());
+    /**
+     * Switches to another worker id, e.g. when the lease on the current one was lost.
+     */
+    public void setWorkerId(long workerId) {
+        if (workerId > MAX_WORKER_ID || workerId < 0) {
+            throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", MAX_WORKER_ID));
         }
-        return id;
+        this.workerId = workerId;
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package com.ahmad.hogwartsartifactsonline.artifact.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index from character n-grams to the keys of the documents containing them.
+ * A substring query is answered by intersecting the posting lists of the query's n-grams, which yields
+ * every key whose text contains the query (plus, rarely, false positives where the n-grams appear apart),
+ * so callers are expected to verify the candidates.
+ * <p>
+ * Keys are mapped to dense int document numbers and posting lists are append-only int arrays, which keeps
+ * them sorted for merge intersection. Updating or removing a key tombstones its old document number; once more than
+ * half of the documents are tombstones, the index is compacted.
+ * <p>
+ * Text is folded to lower case without accents, like an accent-insensitive collation, so the index finds every row
+ * a LIKE in such a collation matches ("cafe" finds "Café"). Under an accent-sensitive one it only adds candidates.
+ * Letters that MySQL's utf8mb4_0900_ai_ci expands to two (ß/ss, æ/ae, œ/oe) are expanded as well. Other collation
+ * rules are not followed: characters the collation ignores (e.g. a soft hyphen inside a word) or weighs like another
+ * sequence can make a row the database matches invisible to the index.
+ */
+public class NGramIndex<K> {
+
+    public static final int GRAM_LENGTH = 3;
+
+    // Below this many tombstones, compacting is not worth it.
+    private static final int MIN_COMPACTED_DOCS = 1024;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Map<String, String> EXPANSIONS = Map.of("ß", "ss", "æ", "ae", "œ", "oe");
+
+    private final Map<K, Integer> docByKey = new HashMap<>();
+
+    private List<K> keyByDoc = new ArrayList<>();
+
+    private final Map<String, Postings> postingsByGram = new HashMap<>();
+
+    private final BitSet deletedDocs = new BitSet();
+
+    private int deletedDocCount;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(K key, String text) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(key);
+            if (text == null) {
+                return;
+            }
+            int doc = keyByDoc.size();
+            keyByDoc.add(key);
+            docByKey.put(key, doc);
+            for (String gram : grams(text)) {
+                postingsByGram.computeIfAbsent(gram, g -> new Postings()).add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the keys whose text may contain the query, or null when the query is shorter than
+     * {@link #GRAM_LENGTH} and the index cannot narrow the search.
+     */
+    public Set<K> search(String query) {
+        Set<String> queryGrams = query != null ? grams(query) : Set.of();
+        if (queryGrams.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            List<Postings> postingsList = new ArrayList<>();
+            for (String gram : queryGrams) {
+                Postings postings = postingsByGram.get(gram);
+                if (postings == null) {
+                    return Set.of();
+                }
+                postingsList.add(postings);
+            }
+            // Start from the rarest gram so the intersection shrinks as fast as possible.
+            postingsList.sort(Comparator.comparingInt(postings -> postings.size));
+
+            int[] docs = Arrays.copyOf(postingsList.get(0).docs, postingsList.get(0).size);
+            int size = docs.length;
+            for (int i = 1; i < postingsList.size() && size > 0; i++) {
+                size = intersect(docs, size, postingsList.get(i));
+            }
+
+            Set<K> keys = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                if (!deletedDocs.get(docs[i])) {
+                    keys.add(keyByDoc.get(docs[i]));
+                }
+            }
+            return keys;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Live and tombstoned documents.
+    int documentCount() {
+        lock.readLock().lock();
+        try {
+            return keyByDoc.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            docByKey.clear();
+            keyByDoc.clear();
+            postingsByGram.clear();
+            deletedDocs.clear();
+            deletedDocCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(K key) {
+        Integer doc = docByKey.remove(key);
+        if (doc != null) {
+            deletedDocs.set(doc);
+            deletedDocCount++;
+            if (deletedDocCount >= MIN_COMPACTED_DOCS && deletedDocCount > keyByDoc.size() / 2) {
+                compact();
+            }
+        }
+    }
+
+    // Renumbers the live documents densely, in their old order, so the postings stay sorted.
+    private void compact() {
+        int[] newDocs = new int[keyByDoc.size()];
+        List<K> newKeyByDoc = new ArrayList<>(docByKey.size());
+        for (int doc = 0; doc < keyByDoc.size(); doc++) {
+            if (deletedDocs.get(doc)) {
+                newDocs[doc] = -1;
+            } else {
+                newDocs[doc] = newKeyByDoc.size();
+                docByKey.put(keyByDoc.get(doc), newDocs[doc]);
+                newKeyByDoc.add(keyByDoc.get(doc));
+            }
+        }
+        postingsByGram.values().removeIf(postings -> postings.renumber(newDocs) == 0);
+        keyByDoc = newKeyByDoc;
+        deletedDocs.clear();
+        deletedDocCount = 0;
+    }
+
+    // Intersects docs[0, size) with the postings in place and returns the new size.
+    private static int intersect(int[] docs, int size, Postings postings) {
+        int kept = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < postings.size) {
+            if (docs[i] < postings.docs[j]) {
+                i++;
+            } else if (docs[i] > postings.docs[j]) {
+                j++;
+            } else {
+                docs[kept++] = docs[i];
+                i++;
+                j++;
+            }
+        }
+        return kept;
+    }
+
+    static Set<String> grams(String text) {
+        String normalized = fold(text);
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, String> expansion : EXPANSIONS.entrySet()) {
+            if (folded.contains(expansion.getKey())) {
+                folded = folded.replace(expansion.getKey(), expansion.getValue());
+            }
+        }
+        return folded;
+    }
+
+    private static class Postings {
+
+        private int[] docs = new int[4];
+
+        private int size;
+
+        private void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        // Drops tombstoned documents and renumbers the rest; returns the new size.
+        private int renumber(int[] newDocs) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int newDoc = newDocs[docs[i]];
+                if (newDoc >= 0) {
+                    docs[kept++] = newDoc;
+                }
+            }
+            size = kept;
+            if (size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(4, size));
+            }
+            return size;
+        }
+    }
+}
@@ -3,7 +3,18 @@ package com.ahmad.hogwartsartifactsonline.client.ai.chat;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
 
+import java.util.function.Consumer;
+
 public interface ChatClient {
 
     ChatResponse generate(ChatRequest chatRequest);
+
+    /**
+     * Generates the completion as a stream, handing each piece of content to {@code onToken} as soon as it arrives.
+     * The call blocks until the completion is done. An exception thrown by {@code onToken} aborts the upstream call
+     * and is rethrown.
+     */
+    default void stream(ChatRequest chatRequest, Consumer<String> onToken) {
+        onToken.accept(generate(chatRequest).choices().get(0).message().content());
+    }
 }
@@ -1,33 +1,189 @@
 package com.ahmad.hogwartsartifactsonline.client.ai.chat;
 
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatCompletionChunk;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Message;
+import com.ahmad.hogwartsartifactsonline.system.exception.ChatClientCapacityExceededException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.RestClient;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Calls the OpenAI chat completions API. At most {@code max-concurrent-calls} calls are in flight at a time
+ * (bulkhead); a further call waits up to {@code max-wait} for a free slot and then fails with a 503, so a slow
+ * upstream cannot tie up every request thread. A call the HTTP client's executor has no room for fails with a 503 as
+ * well. The bulkhead is exported as {@code ai.openai.calls.*} metrics.
+ */
 @Component
-public class OpenAiChatClient implements ChatClient {
+public class OpenAiChatClient implements ChatClient, MeterBinder, DisposableBean {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
     private final RestClient restClient;
 
+    private final int maxConcurrentCalls;
+
+    private final long maxWaitNanos;
+
+    private final long streamDeadlineMillis;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger waitingCalls = new AtomicInteger();
+
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    // Closes streamed responses that run past their deadline.
+    private final ScheduledExecutorService deadlineScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("openai-stream-deadline").daemon().factory());
+
     public OpenAiChatClient(@Value("${ai.openai.endpoint}") String endpoint,
                             @Value("${ai.openai.api-key}") String apiKey,
-                            RestClient.Builder restClientBuilder
+                            RestClient.Builder restClientBuilder,
+                            @Value("${ai.openai.http.max-concurrent-calls:16}") int maxConcurrentCalls,
+                            @Value("${ai.openai.http.max-wait:2s}") Duration maxWait,
+                            @Value("${ai.openai.http.stream-deadline:2m}") Duration streamDeadline
     ) {
         this.restClient = restClientBuilder
                 .baseUrl(endpoint)
                 .defaultHeader("Authorization", "Bearer " + apiKey)
                 .build();
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.streamDeadlineMillis = streamDeadline.toMillis();
+        this.permits = new Semaphore(maxConcurrentCalls, true);
     }
 
     @Override
     public ChatResponse generate(ChatRequest chatRequest) {
-        return restClient.post()
+        return withPermit(() -> restClient.post()
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(chatRequest)
                 .retrieve()
-                .body(ChatResponse.class);
+                .body(ChatResponse.class));
+    }
+
+    /**
+     * Reads the completion as server-sent events ({@code data: {chunk}} lines, terminated by {@code data: [DONE]}).
+     * Lines are read only as fast as {@code onToken} returns, so a slow consumer slows down the upstream read.
+     * Leaving the loop early closes the response, which aborts the upstream call; so does the {@code stream-deadline}.
+     */
+    @Override
+    public void stream(ChatRequest chatRequest, Consumer<String> onToken) {
+        withPermit(() -> restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .body(chatRequest.streaming())
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        new DefaultResponseErrorHandler().handleError(request.getURI(), request.getMethod(), response);
+                    }
+                    ScheduledFuture<?> deadline = deadlineScheduler.schedule(response::close, streamDeadlineMillis, TimeUnit.MILLISECONDS);
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.startsWith("data:")) {
+                                continue; // Blank separators, comments and keep-alives.
+                            }
+                            String data = line.substring("data:".length()).trim();
+                            if (data.equals("[DONE]")) {
+                                break;
+                            }
+                            ChatCompletionChunk chunk = OBJECT_MAPPER.readValue(data, ChatCompletionChunk.class);
+                            if (chunk.choices() == null || chunk.choices().isEmpty()) {
+                                continue;
+                            }
+                            Message delta = chunk.choices().get(0).delta();
+                            if (delta != null && delta.content() != null && !delta.content().isEmpty()) {
+                                onToken.accept(delta.content());
+                            }
+                        }
+                    } finally {
+                        deadline.cancel(false);
+                    }
+                    return null;
+                }));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ai.openai.calls.in-flight", permits, p -> maxConcurrentCalls - p.availablePermits())
+                .description("Chat calls currently holding a bulkhead slot")
+                .register(registry);
+        Gauge.builder("ai.openai.calls.waiting", waitingCalls, AtomicInteger::get)
+                .description("Chat calls waiting for a bulkhead slot")
+                .register(registry);
+        FunctionCounter.builder("ai.openai.calls.rejected", rejectedCalls, AtomicLong::get)
+                .description("Chat calls rejected because no bulkhead slot became free in time or the HTTP client's executor was full")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        deadlineScheduler.shutdownNow();
+    }
+
+    private <T> T withPermit(Supplier<T> call) {
+        boolean acquired;
+        waitingCalls.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waitingCalls.decrementAndGet();
+        }
+        if (!acquired) {
+            rejectedCalls.incrementAndGet();
+            throw new ChatClientCapacityExceededException();
+        }
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            if (isRejectedExecution(e)) {
+                rejectedCalls.incrementAndGet();
+                throw new ChatClientCapacityExceededException();
+            }
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    // The HttpClient rethrows its executor's rejection as is, or wrapped in an IOException that RestClient wraps again.
+    private static boolean isRejectedExecution(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
     }
 }
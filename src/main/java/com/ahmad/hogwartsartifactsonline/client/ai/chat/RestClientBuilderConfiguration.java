@@ -1,17 +1,66 @@
 package com.ahmad.hogwartsartifactsonline.client.ai.chat;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound HTTP client of {@link OpenAiChatClient}. HTTP/2 is negotiated when the server supports it, so concurrent
+ * calls share one multiplexed connection per host instead of opening a connection each; with an HTTP/1.1 fallback the
+ * bulkhead in OpenAiChatClient ({@code max-concurrent-calls}) bounds the number of open connections as well.
+ * The client's internal work runs on a bounded pool (or on virtual threads in virtual thread mode), whose size and
+ * queue are exported as {@code executor.*} metrics with {@code name=openai-http-client}. When that queue is full,
+ * calls fail with a 503 like calls rejected by the bulkhead.
+ */
 @Configuration
 public class RestClientBuilderConfiguration {
 
+    // Not a default candidate, so it is only injected where asked for by name and leaves Spring's own task executor alone.
+    @Bean(destroyMethod = "shutdownNow", defaultCandidate = false)
+    public ExecutorService openAiHttpClientExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                                    @Value("${ai.openai.http.executor-threads:8}") int executorThreads,
+                                                    @Value("${ai.openai.http.executor-queue-capacity:1000}") int executorQueueCapacity,
+                                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        ExecutorService executor = virtualThreads
+                // The HttpClient's own work (response handling, body publishers) then runs on virtual threads as well.
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : new ThreadPoolExecutor(executorThreads, executorThreads, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(executorQueueCapacity),
+                        Thread.ofPlatform().name("openai-http-client-", 1).daemon().factory());
+        meterRegistry.ifAvailable(registry ->
+                new ExecutorServiceMetrics(executor, "openai-http-client", List.of()).bindTo(registry));
+        return executor;
+    }
+
     @Bean
-    public RestClient.Builder restClientBuilder() {
+    public RestClient.Builder restClientBuilder(@Qualifier("openAiHttpClientExecutor") ExecutorService executor,
+                                                @Value("${ai.openai.http.http2:true}") boolean http2,
+                                                @Value("${ai.openai.http.connect-timeout:5s}") Duration connectTimeout,
+                                                @Value("${ai.openai.http.read-timeout:60s}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout); // Until the response headers arrive; streamed bodies have their own deadline.
         return RestClient.builder()
-                .requestFactory(new JdkClientHttpRequestFactory());
+                .requestFactory(requestFactory);
     }
 
 }
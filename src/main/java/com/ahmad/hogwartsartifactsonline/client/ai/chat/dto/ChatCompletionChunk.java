@@ -0,0 +1,14 @@
+package com.ahmad.hogwartsartifactsonline.client.ai.chat.dto;
+
+import java.util.List;
+
+/**
+ * One server-sent event of a streamed chat completion. Each choice carries the next piece of the message in
+ * {@code delta}; the role arrives in the first chunk only, the content in the following ones.
+ */
+public record ChatCompletionChunk(List<ChunkChoice> choices) {
+
+    public record ChunkChoice(int index,
+                              Message delta) {
+    }
+}
@@ -1,7 +1,19 @@
 package com.ahmad.hogwartsartifactsonline.client.ai.chat.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record ChatRequest(String model,
-                          List<Message> messages) {
+                          List<Message> messages,
+                          Boolean stream) {
+
+    public ChatRequest(String model, List<Message> messages) {
+        this(model, messages, null);
+    }
+
+    public ChatRequest streaming() {
+        return new ChatRequest(model, messages, true);
+    }
 }
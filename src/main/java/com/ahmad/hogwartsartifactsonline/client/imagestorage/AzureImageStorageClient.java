@@ -1,45 +1,94 @@
 package com.ahmad.hogwartsartifactsonline.client.imagestorage;
 
 import com.ahmad.hogwartsartifactsonline.system.exception.CustomBlobStorageException;
-import com.azure.storage.blob.BlobClient;
-import com.azure.storage.blob.BlobContainerClient;
+import com.azure.core.util.BinaryData;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.IntStream;
 
+/**
+ * Stages every block with Put Block and commits them with Put Block List. Blocks of a failed upload are never
+ * committed, and Azure discards uncommitted blocks after a week.
+ */
 @Service
-public class AzureImageStorageClient implements ImageStorageClient {
+@ConditionalOnProperty(name = "image-storage.type", havingValue = "azure", matchIfMissing = true)
+public class AzureImageStorageClient extends BlockImageStorageClient {
 
     private final BlobServiceClient blobServiceClient;
 
-    public AzureImageStorageClient(BlobServiceClient blobServiceClient) {
+    public AzureImageStorageClient(BlobServiceClient blobServiceClient,
+                                   ImageHashIndex imageHashIndex,
+                                   ImageVariantGenerator imageVariantGenerator,
+                                   @Value("${image-storage.block-size:1MB}") DataSize blockSize,
+                                   @Value("${image-storage.block-concurrency:4}") int blockConcurrency,
+                                   @Value("${image-storage.workers:4}") int workers,
+                                   @Value("${image-storage.queue-capacity:20}") int queueCapacity,
+                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        super(imageHashIndex, imageVariantGenerator, (int) blockSize.toBytes(), blockConcurrency, workers, queueCapacity, virtualThreads);
         this.blobServiceClient = blobServiceClient;
     }
 
     @Override
-    public String uploadImage(String containerName, String originalImageName, InputStream data, long length) throws IOException {
-       try {
+    protected String findImage(String containerName, String imageName) {
+        try {
+            BlockBlobClient blockBlobClient = blockBlobClient(containerName, imageName);
+            return blockBlobClient.exists() ? blockBlobClient.getBlobUrl() : null;
+        } catch (BlobStorageException e) {
+            throw new CustomBlobStorageException("Failed to look up image in Azure Blob Storage", e);
+        }
+    }
 
-           // Get the BlobContainerClient object to interact with the container
-           BlobContainerClient blobContainerClient = blobServiceClient.getBlobContainerClient(containerName);
+    @Override
+    protected void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) {
+        try {
+            blockBlobClient(containerName, imageName).stageBlock(blockId(blockIndex), BinaryData.fromBytes(block));
+        } catch (BlobStorageException e) {
+            throw new CustomBlobStorageException("Failed to upload image to Azure Blob Storage", e);
+        }
+    }
 
-           // Rename the image file to a unique name
-           String newImageName = UUID.randomUUID().toString() + originalImageName.substring(originalImageName.lastIndexOf("."));
+    @Override
+    protected String commitBlocks(String containerName, String imageName, int blockCount) {
+        try {
+            BlockBlobClient blockBlobClient = blockBlobClient(containerName, imageName);
+            List<String> blockIds = IntStream.range(0, blockCount).mapToObj(AzureImageStorageClient::blockId).toList();
+            blockBlobClient.commitBlockList(blockIds, true);
+            return blockBlobClient.getBlobUrl();
+        } catch (BlobStorageException e) {
+            throw new CustomBlobStorageException("Failed to upload image to Azure Blob Storage", e);
+        }
+    }
 
-           // Get the BlobClient object to interact with specified blob
-           BlobClient blobClient = blobContainerClient.getBlobClient(newImageName);
+    @Override
+    protected void abortBlocks(String containerName, String imageName) {
+        // Nothing to do, uncommitted blocks expire on their own.
+    }
 
-           // Upload the image file to the blob
-           blobClient.upload(data, length, true);
+    @Override
+    protected InputStream openImage(String containerName, String imageName) {
+        try {
+            return blockBlobClient(containerName, imageName).openInputStream();
+        } catch (BlobStorageException e) {
+            throw new CustomBlobStorageException("Failed to download image from Azure Blob Storage", e);
+        }
+    }
 
-           return blobClient.getBlobUrl();
+    private BlockBlobClient blockBlobClient(String containerName, String imageName) {
+        return blobServiceClient.getBlobContainerClient(containerName).getBlobClient(imageName).getBlockBlobClient();
+    }
 
-       } catch (BlobStorageException e) {
-           throw new CustomBlobStorageException("Failed to upload image to Azure Blob Storage", e);
-       }
+    // Block ids must be Base64 and all of the same length within a blob.
+    private static String blockId(int blockIndex) {
+        return Base64.getEncoder().encodeToString("%08d".formatted(blockIndex).getBytes(StandardCharsets.US_ASCII));
     }
 }
@@ -0,0 +1,270 @@
+package com.ahmad.hogwartsartifactsonline.client.imagestorage;
+
+import com.ahmad.hogwartsartifactsonline.system.exception.ImageUploadCapacityExceededException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads an image as a list of blocks: the stream is read one block at a time, each block is staged on its own
+ * thread, and the blocks are committed once all of them are staged. At most {@code blockConcurrency} blocks of an
+ * upload are in memory at a time, however large the image.
+ * <p>
+ * Images are content-addressed: an image is named after the SHA-256 of its bytes, computed in a first streaming pass,
+ * so an image that is already in the storage is not uploaded again and its existing URL is returned instead. The
+ * ImageHashIndex answers that existence check for images seen before; concurrent uploads of the same new image share
+ * one upload.
+ * <p>
+ * Once an image is uploaded, new or not, the ImageVariantGenerator makes sure its downscaled variants get generated in
+ * the background.
+ * <p>
+ * {@link #uploadImageAsync} runs the whole upload on one of {@code workers} upload threads, so the request thread is
+ * free while the blocks go out; beyond {@code queueCapacity} waiting uploads it fails fast.
+ */
+public abstract class BlockImageStorageClient implements ImageStorageClient, DisposableBean {
+
+    private final int blockSize;
+
+    private final int blockConcurrency;
+
+    private final ExecutorService uploadExecutor;
+
+    private final ExecutorService blockExecutor;
+
+    private final ImageHashIndex imageHashIndex;
+
+    private final ImageVariantGenerator imageVariantGenerator;
+
+    private final ConcurrentMap<String, CompletableFuture<String>> uploadsInProgress = new ConcurrentHashMap<>();
+
+    protected BlockImageStorageClient(ImageHashIndex imageHashIndex, ImageVariantGenerator imageVariantGenerator,
+                                      int blockSize, int blockConcurrency, int workers, int queueCapacity, boolean virtualThreads) {
+        // Every upload stages at most blockConcurrency blocks at a time, so the block queue is bounded by the uploads.
+        this(imageHashIndex, imageVariantGenerator, blockSize, blockConcurrency,
+                new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                        virtualThreads
+                                ? Thread.ofVirtual().name("image-upload-", 1).factory()
+                                : Thread.ofPlatform().name("image-upload-", 1).daemon().factory()),
+                new ThreadPoolExecutor(workers * blockConcurrency, workers * blockConcurrency, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                        virtualThreads
+                                ? Thread.ofVirtual().name("image-upload-block-", 1).factory()
+                                : Thread.ofPlatform().name("image-upload-block-", 1).daemon().factory()));
+    }
+
+    protected BlockImageStorageClient(ImageHashIndex imageHashIndex, ImageVariantGenerator imageVariantGenerator,
+                                      int blockSize, int blockConcurrency, ExecutorService uploadExecutor, ExecutorService blockExecutor) {
+        this.imageHashIndex = imageHashIndex;
+        this.imageVariantGenerator = imageVariantGenerator;
+        this.blockSize = blockSize;
+        this.blockConcurrency = blockConcurrency;
+        this.uploadExecutor = uploadExecutor;
+        this.blockExecutor = blockExecutor;
+    }
+
+    /**
+     * The URL of the image if the storage has it, or null.
+     */
+    protected abstract String findImage(String containerName, String imageName);
+
+    /**
+     * Stages the block at the given position of the image. Blocks of one image may be staged concurrently and in any
+     * order.
+     */
+    protected abstract void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) throws IOException;
+
+    /**
+     * Assembles the first {@code blockCount} staged blocks, in order, into the image and returns its URL.
+     */
+    protected abstract String commitBlocks(String containerName, String imageName, int blockCount) throws IOException;
+
+    /**
+     * Discards the blocks staged for an upload that failed.
+     */
+    protected abstract void abortBlocks(String containerName, String imageName);
+
+    /**
+     * Reads a committed image back from the storage.
+     */
+    protected abstract InputStream openImage(String containerName, String imageName) throws IOException;
+
+    @Override
+    public String uploadImage(String containerName, String originalImageName, InputStreamSource data, long length) throws IOException {
+        String imageName = contentHash(data) + originalImageName.substring(originalImageName.lastIndexOf(".")).toLowerCase(Locale.ROOT);
+
+        String imageUrl = imageHashIndex.find(containerName, imageName);
+        if (imageUrl == null) {
+            imageUrl = findImage(containerName, imageName);
+            if (imageUrl == null) {
+                imageUrl = uploadOnce(containerName, imageName, data, length);
+            }
+            imageHashIndex.put(containerName, imageName, imageUrl);
+        }
+        // Also for an image that was already there, whose variants may never have been generated.
+        imageVariantGenerator.submit(this, containerName, imageName, imageUrl);
+        return imageUrl;
+    }
+
+    @Override
+    public Map<Integer, String> findImageVariantUrls(String imageUrl) {
+        return imageVariantGenerator.findVariantUrls(this, imageUrl);
+    }
+
+    private String uploadOnce(String containerName, String imageName, InputStreamSource data, long length) throws IOException {
+        CompletableFuture<String> upload = new CompletableFuture<>();
+        CompletableFuture<String> uploadInProgress = uploadsInProgress.putIfAbsent(containerName + "/" + imageName, upload);
+        if (uploadInProgress != null) {
+            try {
+                return uploadInProgress.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the upload of " + imageName);
+            } catch (ExecutionException e) {
+                // The other upload failed; this one fails the same way.
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+        try (InputStream inputStream = data.getInputStream()) {
+            String imageUrl = uploadBlocks(containerName, imageName, inputStream, length);
+            upload.complete(imageUrl);
+            return imageUrl;
+        } catch (IOException | RuntimeException e) {
+            upload.completeExceptionally(e);
+            throw e;
+        } finally {
+            uploadsInProgress.remove(containerName + "/" + imageName, upload);
+        }
+    }
+
+    private String uploadBlocks(String containerName, String imageName, InputStream data, long length) throws IOException {
+        Semaphore permits = new Semaphore(blockConcurrency);
+        List<CompletableFuture<Void>> stagedBlocks = new ArrayList<>((int) Math.min(length / blockSize + 1, 1024));
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        try {
+            // No point reading further once a block has failed.
+            while (!firstFailure.isDone()) {
+                permits.acquire();
+                byte[] block = data.readNBytes(blockSize);
+                if (block.length == 0) {
+                    permits.release();
+                    break;
+                }
+                int blockIndex = stagedBlocks.size();
+                stagedBlocks.add(CompletableFuture
+                        .runAsync(() -> stage(containerName, imageName, blockIndex, block), blockExecutor)
+                        .whenComplete((ignored, e) -> {
+                            permits.release();
+                            if (e != null) {
+                                firstFailure.completeExceptionally(e);
+                            }
+                        }));
+                if (block.length < blockSize) {
+                    break;
+                }
+            }
+
+            CompletableFuture.allOf(stagedBlocks.toArray(CompletableFuture[]::new)).join();
+            return commitBlocks(containerName, imageName, stagedBlocks.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(containerName, imageName, stagedBlocks);
+            throw new InterruptedIOException("Interrupted while uploading " + imageName);
+        } catch (CompletionException e) {
+            abort(containerName, imageName, stagedBlocks);
+            if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+        } catch (IOException | RuntimeException e) {
+            abort(containerName, imageName, stagedBlocks);
+            throw e;
+        }
+    }
+
+    // Stores an image generated in memory, such as a variant, under the given name.
+    void storeImage(String containerName, String imageName, byte[] image) throws IOException {
+        uploadBlocks(containerName, imageName, new ByteArrayInputStream(image), image.length);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadImageAsync(String containerName, String originalImageName, InputStreamSource data, long length) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return uploadImage(containerName, originalImageName, data, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, uploadExecutor);
+        } catch (RejectedExecutionException e) {
+            throw new ImageUploadCapacityExceededException();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        uploadExecutor.shutdownNow();
+        blockExecutor.shutdownNow();
+    }
+
+    private static String contentHash(InputStreamSource data) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream inputStream = data.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = inputStream.read(buffer)) != -1; ) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void stage(String containerName, String imageName, int blockIndex, byte[] block) {
+        try {
+            stageBlock(containerName, imageName, blockIndex, block);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void abort(String containerName, String imageName, List<CompletableFuture<Void>> stagedBlocks) {
+        // Reading stops at the first failure, so at most blockConcurrency blocks are still being staged.
+        CompletableFuture.allOf(stagedBlocks.toArray(CompletableFuture[]::new))
+                .handle((ignored, e) -> null)
+                .join();
+        abortBlocks(containerName, imageName);
+    }
+}
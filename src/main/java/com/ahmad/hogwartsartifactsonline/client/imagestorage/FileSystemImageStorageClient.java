@@ -0,0 +1,125 @@
+package com.ahmad.hogwartsartifactsonline.client.imagestorage;
+
+import com.ahmad.hogwartsartifactsonline.system.exception.InvalidImageLocationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Local stand-in for the blob storage, e.g. to work offline. Images are written under a root directory, one
+ * sub-directory per container, and the file URI is returned as the image URL. Blocks are staged as files of their own
+ * under {@code .staging/<container>} and concatenated on commit, the way Azure assembles a block blob. The image is
+ * assembled under a temporary name and then renamed, so it never exists half written.
+ * <p>
+ * Container names come from the request, so a container must be a directory right under the root and an image a file
+ * right in it; anything else, such as {@code ../..}, is rejected.
+ */
+@Service
+@ConditionalOnProperty(name = "image-storage.type", havingValue = "filesystem")
+public class FileSystemImageStorageClient extends BlockImageStorageClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemImageStorageClient.class);
+
+    private final Path root;
+
+    @Autowired
+    public FileSystemImageStorageClient(@Value("${image-storage.directory}") Path root,
+                                        ImageHashIndex imageHashIndex,
+                                        ImageVariantGenerator imageVariantGenerator,
+                                        @Value("${image-storage.block-size:1MB}") DataSize blockSize,
+                                        @Value("${image-storage.block-concurrency:4}") int blockConcurrency,
+                                        @Value("${image-storage.workers:4}") int workers,
+                                        @Value("${image-storage.queue-capacity:20}") int queueCapacity,
+                                        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        super(imageHashIndex, imageVariantGenerator, (int) blockSize.toBytes(), blockConcurrency, workers, queueCapacity, virtualThreads);
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    FileSystemImageStorageClient(Path root, ImageHashIndex imageHashIndex, ImageVariantGenerator imageVariantGenerator,
+                                 int blockSize, int blockConcurrency, ExecutorService uploadExecutor, ExecutorService blockExecutor) {
+        super(imageHashIndex, imageVariantGenerator, blockSize, blockConcurrency, uploadExecutor, blockExecutor);
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    protected String findImage(String containerName, String imageName) {
+        Path image = image(containerName, imageName);
+        return Files.exists(image) ? image.toUri().toString() : null;
+    }
+
+    @Override
+    protected void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) throws IOException {
+        Files.write(Files.createDirectories(stagingDirectory(containerName, imageName)).resolve(String.valueOf(blockIndex)), block);
+    }
+
+    @Override
+    protected String commitBlocks(String containerName, String imageName, int blockCount) throws IOException {
+        Path image = image(containerName, imageName);
+        Path stagingDirectory = stagingDirectory(containerName, imageName);
+        // In the same directory, so the rename is atomic.
+        Path assembled = Files.createTempFile(Files.createDirectories(image.getParent()), "." + imageName, ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(assembled)) {
+                for (int i = 0; i < blockCount; i++) {
+                    Files.copy(stagingDirectory.resolve(String.valueOf(i)), outputStream);
+                }
+            }
+            Files.move(assembled, image, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(assembled);
+        }
+        FileSystemUtils.deleteRecursively(stagingDirectory);
+        return image.toUri().toString();
+    }
+
+    @Override
+    protected void abortBlocks(String containerName, String imageName) {
+        try {
+            FileSystemUtils.deleteRecursively(stagingDirectory(containerName, imageName));
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete the staged blocks of {}", imageName, e);
+        }
+    }
+
+    @Override
+    protected InputStream openImage(String containerName, String imageName) throws IOException {
+        return Files.newInputStream(image(containerName, imageName));
+    }
+
+    private Path image(String containerName, String imageName) {
+        Path container = container(containerName);
+        Path image = container.resolve(imageName).normalize();
+        if (!container.equals(image.getParent())) {
+            throw new InvalidImageLocationException(containerName + "/" + imageName);
+        }
+        return image;
+    }
+
+    // Names starting with a dot are left to the storage itself, such as .staging.
+    private Path container(String containerName) {
+        Path container = root.resolve(containerName).normalize();
+        if (!root.equals(container.getParent()) || container.getFileName().toString().startsWith(".")) {
+            throw new InvalidImageLocationException(containerName);
+        }
+        return container;
+    }
+
+    // Per container, as the same image may be uploaded to two containers at once.
+    private Path stagingDirectory(String containerName, String imageName) {
+        Path image = image(containerName, imageName);
+        return root.resolve(".staging").resolve(image.getParent().getFileName()).resolve(image.getFileName());
+    }
+}
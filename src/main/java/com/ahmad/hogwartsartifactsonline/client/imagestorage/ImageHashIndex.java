@@ -0,0 +1,54 @@
+package com.ahmad.hogwartsartifactsonline.client.imagestorage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Images known to be in the storage, by container and content-addressed name, so a repeated upload of the same image
+ * is answered without asking the storage. Images are named after their content and never change, so an entry cannot
+ * go stale; only images that exist are indexed.
+ */
+@Component
+public class ImageHashIndex {
+
+    private final ConcurrentMap<String, String> imageUrls = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    private final int maxSize;
+
+    public ImageHashIndex(@Value("${image-storage.hash-index.enabled:true}") boolean enabled,
+                          @Value("${image-storage.hash-index.max-size:100000}") int maxSize) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The URL of the image, or null if it is not known to exist.
+     */
+    public String find(String containerName, String imageName) {
+        if (!enabled) {
+            return null;
+        }
+        return imageUrls.get(key(containerName, imageName));
+    }
+
+    public void put(String containerName, String imageName, String imageUrl) {
+        if (!enabled) {
+            return;
+        }
+        String key = key(containerName, imageName);
+        if (imageUrls.size() >= maxSize && !imageUrls.containsKey(key)) {
+            // Rather than tracking recency, start over; the cost is one existence check per image.
+            imageUrls.clear();
+        }
+        imageUrls.put(key, imageUrl);
+    }
+
+    private static String key(String containerName, String imageName) {
+        return containerName + "/" + imageName;
+    }
+}
@@ -1,10 +1,27 @@
 package com.ahmad.hogwartsartifactsonline.client.imagestorage;
 
+import org.springframework.core.io.InputStreamSource;
+
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface ImageStorageClient {
 
-    String uploadImage(String containerName, String originalImageName, InputStream data, long length) throws IOException;
+    /**
+     * Stores the image and returns its URL. The data may be read more than once, e.g. to hash it before uploading it.
+     */
+    String uploadImage(String containerName, String originalImageName, InputStreamSource data, long length) throws IOException;
+
+    /**
+     * Uploads the image off the calling thread. The data is read on the thread doing the upload.
+     */
+    CompletableFuture<String> uploadImageAsync(String containerName, String originalImageName, InputStreamSource data, long length);
+
+    /**
+     * The URLs of the downscaled variants of the image by size, only once they are known to be in the storage, or an
+     * empty map. Never waits for the storage.
+     */
+    Map<Integer, String> findImageVariantUrls(String imageUrl);
 
 }
@@ -0,0 +1,236 @@
+package com.ahmad.hogwartsartifactsonline.client.imagestorage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the ImageVariants of an image in the background, so list views can load a small image instead of the
+ * original. The original is read back from the storage, so the upload does not wait for the scaling.
+ * <p>
+ * The original is decoded with subsampling, at no more than about twice the largest variant, so a large photo never
+ * takes its full resolution in heap. Each variant is scaled from the next larger one, and the smallest is stored last,
+ * so once it is in the storage all of them are.
+ * <p>
+ * Only variants known to be in the storage are advertised. An image this replica has not seen with its variants yet,
+ * e.g. one uploaded before a restart, by another replica, or while {@code queueCapacity} images were waiting, is
+ * checked in the background the next time it is uploaded or looked up, and its variants are generated if they are
+ * missing. An image that cannot be decoded is remembered as having none. An ImageVariantsStoredEvent tells the
+ * responses showing the image apart from those sent before.
+ */
+@Component
+public class ImageVariantGenerator implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageVariantGenerator.class);
+
+    private static final int LARGEST_SIZE = ImageVariants.SIZES.get(ImageVariants.SIZES.size() - 1);
+
+    private final boolean enabled;
+
+    private final int maxKnownImages;
+
+    private final ExecutorService executor;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    // By image URL: true once its variants are in the storage, false if it can have none.
+    private final ConcurrentMap<String, Boolean> variantsStored = new ConcurrentHashMap<>();
+
+    // Image URLs submitted and not done yet, so an image is not queued twice.
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ImageVariantGenerator(@Value("${image-storage.variants.enabled:true}") boolean enabled,
+                                 @Value("${image-storage.variants.workers:2}") int workers,
+                                 @Value("${image-storage.variants.queue-capacity:100}") int queueCapacity,
+                                 @Value("${image-storage.variants.max-known-images:100000}") int maxKnownImages,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                 ApplicationEventPublisher applicationEventPublisher) {
+        this(enabled, maxKnownImages, new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                virtualThreads
+                        ? Thread.ofVirtual().name("image-variants-", 1).factory()
+                        : Thread.ofPlatform().name("image-variants-", 1).daemon().factory()), applicationEventPublisher);
+    }
+
+    ImageVariantGenerator(boolean enabled, int maxKnownImages, ExecutorService executor, ApplicationEventPublisher applicationEventPublisher) {
+        this.enabled = enabled;
+        this.maxKnownImages = maxKnownImages;
+        this.executor = executor;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * Makes sure the variants of an image just uploaded, or uploaded again, end up in the storage.
+     */
+    void submit(BlockImageStorageClient imageStorageClient, String containerName, String imageName, String imageUrl) {
+        if (!schedule(imageStorageClient, containerName, imageName, imageUrl)) {
+            LOGGER.warn("Too many images are waiting to be scaled, {} gets its variants once it is seen again", imageName);
+        }
+    }
+
+    /**
+     * The variant URLs of the image by size if its variants are known to be in the storage, or an empty map. Never
+     * waits for the storage: an image not known either way is checked in the background.
+     */
+    Map<Integer, String> findVariantUrls(BlockImageStorageClient imageStorageClient, String imageUrl) {
+        Map<Integer, String> variantUrls = ImageVariants.variantUrls(imageUrl);
+        if (!enabled || variantUrls.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Boolean stored = variantsStored.get(imageUrl);
+        if (stored == null) {
+            ImageVariants.Location location = ImageVariants.location(imageUrl);
+            // A full queue is not worth a warning here, the image is checked again the next time it is looked up.
+            schedule(imageStorageClient, location.containerName(), location.imageName(), imageUrl);
+            return Collections.emptyMap();
+        }
+        return stored ? variantUrls : Collections.emptyMap();
+    }
+
+    // Returns false if the queue is full.
+    private boolean schedule(BlockImageStorageClient imageStorageClient, String containerName, String imageName, String imageUrl) {
+        String format = imageName.substring(imageName.lastIndexOf('.') + 1);
+        if (!enabled || !ImageVariants.FORMATS.contains(format) || variantsStored.containsKey(imageUrl) || !inProgress.add(imageUrl)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(imageStorageClient, containerName, imageName, imageUrl, format);
+                } finally {
+                    inProgress.remove(imageUrl);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(imageUrl);
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // Failures to reach the storage are not remembered, so the image is tried again the next time it is seen.
+    private void generate(BlockImageStorageClient imageStorageClient, String containerName, String imageName, String imageUrl, String format) {
+        try {
+            if (!imageUrl.equals(imageStorageClient.findImage(containerName, imageName))) {
+                // Not an image of this storage.
+                remember(imageUrl, false);
+                return;
+            }
+            if (imageStorageClient.findImage(containerName, ImageVariants.variantName(imageName, ImageVariants.SIZES.get(0))) != null) {
+                remember(imageUrl, true);
+                return;
+            }
+            BufferedImage image;
+            try (InputStream original = imageStorageClient.openImage(containerName, imageName)) {
+                image = read(original);
+            }
+            if (image == null) {
+                LOGGER.warn("Could not decode {}, it gets no variants", imageName);
+                remember(imageUrl, false);
+                return;
+            }
+            boolean opaque = !format.equals("png") && !format.equals("gif");
+            for (int i = ImageVariants.SIZES.size() - 1; i >= 0; i--) {
+                int size = ImageVariants.SIZES.get(i);
+                image = scale(image, size, opaque);
+                imageStorageClient.storeImage(containerName, ImageVariants.variantName(imageName, size), write(image, format));
+            }
+            remember(imageUrl, true);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not generate the variants of {}", imageName, e);
+        }
+    }
+
+    private void remember(String imageUrl, boolean stored) {
+        if (variantsStored.size() >= maxKnownImages && !variantsStored.containsKey(imageUrl)) {
+            // As in the ImageHashIndex, start over rather than tracking recency; forgotten images are checked again.
+            variantsStored.clear();
+        }
+        if (variantsStored.put(imageUrl, stored) == null && stored) {
+            applicationEventPublisher.publishEvent(new ImageVariantsStoredEvent(imageUrl));
+        }
+    }
+
+    private static BufferedImage read(InputStream original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int subsampling = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / LARGEST_SIZE);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } catch (IIOException | RuntimeException e) {
+                // The image itself is corrupt or in a flavour ImageIO cannot decode; failures to read the storage
+                // are plain IOExceptions and go up.
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the image in a size x size square, halving it step by step, since one bilinear step loses detail below half.
+    // Never scales up.
+    static BufferedImage scale(BufferedImage image, int size, boolean opaque) {
+        double ratio = Math.min(1.0, size / (double) Math.max(image.getWidth(), image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage scaled = image;
+        do {
+            int width = Math.max(targetWidth, scaled.getWidth() / 2);
+            int height = Math.max(targetHeight, scaled.getHeight() / 2);
+            BufferedImage next = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(scaled, 0, 0, width, height, null);
+            graphics.dispose();
+            scaled = next;
+        } while (scaled.getWidth() != targetWidth || scaled.getHeight() != targetHeight);
+        return scaled;
+    }
+
+    private static byte[] write(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, output)) {
+            throw new IOException("No ImageIO writer for " + format);
+        }
+        return output.toByteArray();
+    }
+}
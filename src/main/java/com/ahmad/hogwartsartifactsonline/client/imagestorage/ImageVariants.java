@@ -0,0 +1,72 @@
+package com.ahmad.hogwartsartifactsonline.client.imagestorage;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Naming of the downscaled variants of an image. A variant is stored next to its original as
+ * {@code <name>-<size>.<extension>}, so its URL follows from the URL of the original and is not stored anywhere.
+ * Only content-addressed images in a format ImageIO can write get variants. Whether they have been generated yet is
+ * up to the ImageVariantGenerator.
+ */
+public final class ImageVariants {
+
+    /**
+     * Longest side of each variant, in pixels, from the smallest to the largest.
+     */
+    public static final List<Integer> SIZES = List.of(64, 256, 1024);
+
+    static final Set<String> FORMATS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    // The last two path segments of a content-addressed image URL: the container, then the SHA-256 of the image and its
+    // extension.
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("/([^/]+)/(([0-9a-f]{64})\\.([a-z0-9]+))$");
+
+    private ImageVariants() {
+    }
+
+    public static String variantName(String imageName, int size) {
+        int dot = imageName.lastIndexOf('.');
+        return imageName.substring(0, dot) + "-" + size + imageName.substring(dot);
+    }
+
+    /**
+     * The URLs the variants of the image have once generated, by size, or an empty map if the image gets no variants.
+     */
+    public static Map<Integer, String> variantUrls(String imageUrl) {
+        Matcher matcher = matcher(imageUrl);
+        if (matcher == null) {
+            return Collections.emptyMap();
+        }
+        String base = imageUrl.substring(0, matcher.start(3));
+        Map<Integer, String> variantUrls = new LinkedHashMap<>();
+        for (int size : SIZES) {
+            variantUrls.put(size, base + matcher.group(3) + "-" + size + "." + matcher.group(4));
+        }
+        return variantUrls;
+    }
+
+    /**
+     * The container and name of the image behind the URL, or null if the image gets no variants.
+     */
+    static Location location(String imageUrl) {
+        Matcher matcher = matcher(imageUrl);
+        return matcher != null ? new Location(matcher.group(1), matcher.group(2)) : null;
+    }
+
+    private static Matcher matcher(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        Matcher matcher = CONTENT_ADDRESSED_NAME.matcher(imageUrl);
+        return matcher.find() && FORMATS.contains(matcher.group(4)) ? matcher : null;
+    }
+
+    record Location(String containerName, String imageName) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.ahmad.hogwartsartifactsonline.client.imagestorage;
+
+/**
+ * Published when the variants of an image become known to be in the storage, which changes the artifact responses
+ * showing that image without changing any artifact.
+ */
+public record ImageVariantsStoredEvent(String imageUrl) {
+}
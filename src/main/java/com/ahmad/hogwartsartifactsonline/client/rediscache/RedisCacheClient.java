@@ -1,17 +1,33 @@
 package com.ahmad.hogwartsartifactsonline.client.rediscache;
 
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
 public class RedisCacheClient {
 
+    // Every change of a whiteList:{userId} key is announced here, so each replica can drop its near-cached copy.
+    public static final String WHITE_LIST_INVALIDATION_CHANNEL = "whiteList:invalidations";
+
+    private static final String WHITE_LIST_KEY_PREFIX = "whiteList:";
+
+    private static final RedisScript<Long> DELETE_IF_EQUALS = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
     private final StringRedisTemplate redisTemplate;
 
-    public RedisCacheClient(StringRedisTemplate redisTemplate) {
+    private final WhiteListNearCache whiteListNearCache;
+
+    public RedisCacheClient(StringRedisTemplate redisTemplate, WhiteListNearCache whiteListNearCache) {
         this.redisTemplate = redisTemplate;
+        this.whiteListNearCache = whiteListNearCache;
     }
 
     public void set(String key, String value, long timeOut, TimeUnit timeUnit) {
@@ -22,12 +38,68 @@ public class RedisCacheClient {
         return redisTemplate.opsForValue().get(key);
     }
 
+    public boolean setIfAbsent(String key, String value, long timeOut, TimeUnit timeUnit) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, timeOut, timeUnit));
+    }
+
     public void delete(String key) {
         redisTemplate.delete(key);
     }
 
+    /**
+     * Deletes every key matching the pattern, walking the key space with SCAN rather than blocking Redis with KEYS.
+     */
+    public long deleteByPattern(String pattern) {
+        long deleted = 0;
+        List<String> batch = new ArrayList<>();
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
+            while (keys.hasNext()) {
+                batch.add(keys.next());
+                if (batch.size() == 1000 || !keys.hasNext()) {
+                    Long count = redisTemplate.delete(batch);
+                    deleted += count != null ? count : 0;
+                    batch.clear();
+                }
+            }
+        }
+        return deleted;
+    }
+
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    /**
+     * Deletes the key only if it still holds the given value, e.g. a lock that may have expired and been taken over.
+     */
+    public boolean deleteIfEquals(String key, String value) {
+        Long deleted = redisTemplate.execute(DELETE_IF_EQUALS, List.of(key), value);
+        return deleted != null && deleted > 0;
+    }
+
+    public void addUserTokenToWhiteList(String userId, String token, long timeOut, TimeUnit timeUnit) {
+        set(WHITE_LIST_KEY_PREFIX + userId, token, timeOut, timeUnit);
+        publishWhiteListChange(userId);
+    }
+
+    public void removeUserTokenFromWhiteList(String userId) {
+        delete(WHITE_LIST_KEY_PREFIX + userId);
+        publishWhiteListChange(userId);
+    }
+
     public boolean isUserTokenInWhiteList(String userId, String tokenFromRequest) {
-        String tokenFromRedis = get("whiteList:" + userId);
+        Boolean cached = whiteListNearCache.isTokenWhiteListed(userId, tokenFromRequest);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = whiteListNearCache.generation();
+        String tokenFromRedis = get(WHITE_LIST_KEY_PREFIX + userId);
+        whiteListNearCache.put(userId, tokenFromRedis, generation);
         return tokenFromRedis != null && tokenFromRedis.equals(tokenFromRequest);
     }
+
+    private void publishWhiteListChange(String userId) {
+        whiteListNearCache.invalidate(userId);
+        redisTemplate.convertAndSend(WHITE_LIST_INVALIDATION_CHANNEL, userId + ":" + System.currentTimeMillis());
+    }
 }
@@ -0,0 +1,89 @@
+package com.ahmad.hogwartsartifactsonline.client.rediscache;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Subscribes to the white list invalidation channel. The near-cache only serves requests while this subscription is
+ * up, otherwise a token revoked on another replica could be accepted here until its entry expired. If Redis is not
+ * reachable, the subscription is retried periodically and every check goes to Redis in the meantime.
+ */
+@Component
+public class WhiteListInvalidationSubscriber {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WhiteListInvalidationSubscriber.class);
+
+    private final RedisConnectionFactory redisConnectionFactory;
+
+    private final WhiteListNearCache whiteListNearCache;
+
+    // Not synchronized: a virtual thread blocking on Redis inside a monitor would pin its carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private RedisMessageListenerContainer container;
+
+    public WhiteListInvalidationSubscriber(RedisConnectionFactory redisConnectionFactory, WhiteListNearCache whiteListNearCache) {
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.whiteListNearCache = whiteListNearCache;
+    }
+
+    @Scheduled(fixedDelayString = "${whitelist.near-cache.resubscribe-interval:30s}")
+    public void subscribe() {
+        lock.lock();
+        try {
+            if (container != null && container.isListening()) {
+                return;
+            }
+            whiteListNearCache.setSubscribed(false);
+            unsubscribe();
+
+            RedisMessageListenerContainer newContainer = new RedisMessageListenerContainer();
+            newContainer.setConnectionFactory(redisConnectionFactory);
+            newContainer.addMessageListener(
+                    (message, pattern) -> whiteListNearCache.onInvalidationMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(RedisCacheClient.WHITE_LIST_INVALIDATION_CHANNEL));
+            try {
+                newContainer.afterPropertiesSet();
+                newContainer.start();
+                container = newContainer;
+                whiteListNearCache.setSubscribed(true);
+                LOGGER.info("Subscribed to {}, white list near-cache enabled", RedisCacheClient.WHITE_LIST_INVALIDATION_CHANNEL);
+            } catch (RuntimeException e) {
+                destroy(newContainer);
+                LOGGER.warn("Could not subscribe to {}, white list checks go to Redis: {}", RedisCacheClient.WHITE_LIST_INVALIDATION_CHANNEL, e.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        lock.lock();
+        try {
+            if (container != null) {
+                destroy(container);
+                container = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void destroy(RedisMessageListenerContainer container) {
+        try {
+            container.destroy();
+        } catch (Exception e) {
+            LOGGER.debug("Failed to stop the white list invalidation listener", e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.ahmad.hogwartsartifactsonline.client.rediscache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded local copy of the JWT white list, so that most authenticated requests do not need a Redis round trip.
+ * Only SHA-256 hashes of the tokens are kept. Entries expire after a short TTL and are dropped earlier when any
+ * replica changes the user's white list entry (see {@link WhiteListInvalidationSubscriber}).
+ */
+@Component
+public class WhiteListNearCache {
+
+    private final ConcurrentMap<String, CachedToken> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation, so a Redis read that raced with one is not cached.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final boolean enabled;
+
+    // Set by WhiteListInvalidationSubscriber. Without invalidations the cache could serve revoked tokens, so it is bypassed.
+    private volatile boolean subscribed;
+
+    private final long ttlNanos;
+
+    private final int maxSize;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Timer hitAge;
+
+    private final Timer invalidationLag;
+
+    public WhiteListNearCache(@Value("${whitelist.near-cache.enabled:true}") boolean enabled,
+                              @Value("${whitelist.near-cache.ttl:5s}") Duration ttl,
+                              @Value("${whitelist.near-cache.max-size:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.hits = Counter.builder("whitelist.near-cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("whitelist.near-cache.requests").tag("result", "miss").register(meterRegistry);
+        this.hitAge = Timer.builder("whitelist.near-cache.hit.age")
+                .description("Age of the cached white list entries that answered a request")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("whitelist.near-cache.invalidation.lag")
+                .description("Time between a white list change and its invalidation reaching this replica")
+                .register(meterRegistry);
+        meterRegistry.gauge("whitelist.near-cache.size", entries, ConcurrentMap::size);
+    }
+
+    /**
+     * Returns whether the token is white listed according to the cache, or null on a miss.
+     */
+    public Boolean isTokenWhiteListed(String userId, String token) {
+        if (!enabled || !subscribed) {
+            return null;
+        }
+        CachedToken entry = entries.get(userId);
+        long now = System.nanoTime();
+        if (entry == null || now - entry.cachedAt() > ttlNanos) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        hitAge.record(now - entry.cachedAt(), TimeUnit.NANOSECONDS);
+        return entry.tokenHash() != null && Arrays.equals(entry.tokenHash(), hash(token));
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the token read from Redis (null if the user has none), unless an invalidation happened since
+     * {@code readGeneration} was taken.
+     */
+    public void put(String userId, String tokenFromRedis, long readGeneration) {
+        if (!enabled || !subscribed) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(userId)) {
+            evictOne();
+        }
+        CachedToken entry = new CachedToken(tokenFromRedis == null ? null : hash(tokenFromRedis), System.nanoTime());
+        entries.put(userId, entry);
+        if (generation.get() != readGeneration) {
+            entries.remove(userId, entry);
+        }
+    }
+
+    public void setSubscribed(boolean subscribed) {
+        if (!subscribed) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+        this.subscribed = subscribed;
+    }
+
+    public void invalidate(String userId) {
+        generation.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    /**
+     * Handles an invalidation message of the form {@code userId:changedAtEpochMillis}.
+     */
+    public void onInvalidationMessage(String message) {
+        int separator = message.lastIndexOf(':');
+        if (separator < 0) {
+            invalidate(message);
+            return;
+        }
+        invalidate(message.substring(0, separator));
+        long lagMillis = System.currentTimeMillis() - Long.parseLong(message.substring(separator + 1));
+        invalidationLag.record(Math.max(lagMillis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    // Drops an expired entry if one of the first few is, otherwise the first one.
+    private void evictOne() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, CachedToken>> iterator = entries.entrySet().iterator();
+        String victim = null;
+        for (int scanned = 0; iterator.hasNext() && scanned < 16; scanned++) {
+            Map.Entry<String, CachedToken> candidate = iterator.next();
+            if (victim == null) {
+                victim = candidate.getKey();
+            }
+            if (now - candidate.getValue().cachedAt() > ttlNanos) {
+                victim = candidate.getKey();
+                break;
+            }
+        }
+        if (victim != null) {
+            entries.remove(victim);
+        }
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CachedToken(byte[] tokenHash, long cachedAt) {
+    }
+}
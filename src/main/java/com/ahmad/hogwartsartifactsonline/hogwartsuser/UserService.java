@@ -1,6 +1,7 @@
 package com.ahmad.hogwartsartifactsonline.hogwartsuser;
 
 import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import com.ahmad.hogwartsartifactsonline.security.CredentialCache;
 import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
 import com.ahmad.hogwartsartifactsonline.system.exception.PasswordChangeIllegalArgumentException;
 import jakarta.transaction.Transactional;
@@ -22,11 +23,14 @@ public class UserService implements UserDetailsService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final RedisCacheClient redisCacheClient;
+    private final CredentialCache credentialCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, RedisCacheClient redisCacheClient) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, RedisCacheClient redisCacheClient,
+                       CredentialCache credentialCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.redisCacheClient = redisCacheClient;
+        this.credentialCache = credentialCache;
     }
 
 
@@ -47,6 +51,9 @@ public class UserService implements UserDetailsService {
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
+        // A verified login under the old username must not outlive the rename.
+        credentialCache.evict(oldHogwartsUser.getUsername());
+
         // If the user is not an admin, then the user can only update his username
         if (authentication.getAuthorities().stream().noneMatch(grantedAuthority -> grantedAuthority.getAuthority().equals("ROLE_ADMIN"))) {
             oldHogwartsUser.setUsername(update.getUsername());
@@ -57,7 +64,7 @@ public class UserService implements UserDetailsService {
             oldHogwartsUser.setRoles(update.getRoles());
 
             // Revoke this user's current JWT by deleting it from Redis.
-            redisCacheClient.delete("whiteList:" + userId);
+            redisCacheClient.removeUserTokenFromWhiteList(userId.toString());
         }
 
 
@@ -65,9 +72,10 @@ public class UserService implements UserDetailsService {
     }
 
     public void delete(Integer userId) {
-        userRepository.findById(userId)
+        HogwartsUser hogwartsUser = userRepository.findById(userId)
                 .orElseThrow(() -> new ObjectNotFoundException("user", userId));
 
+        credentialCache.evict(hogwartsUser.getUsername());
         userRepository.deleteById(userId);
     }
 
@@ -103,9 +111,10 @@ public class UserService implements UserDetailsService {
         }
 
         hogwartsUser.setPassword(passwordEncoder.encode(newPassword));
+        credentialCache.evict(hogwartsUser.getUsername());
 
         // Revoke this user's current JWT by deleting it from Redis.
-        redisCacheClient.delete("whiteList:" + userId);
+        redisCacheClient.removeUserTokenFromWhiteList(userId.toString());
         userRepository.save(hogwartsUser);
     }
 }
@@ -35,7 +35,7 @@ public class AuthService {
         String token = jwtProvider.createToken(authentication);
 
         // Save the token in Redis, key: whiteList:userId, value: token, Expire time is 2 hours.
-        redisCacheClient.set("whiteList:" + hogwartsUser.getId(), token, 2, TimeUnit.HOURS);
+        redisCacheClient.addUserTokenToWhiteList(hogwartsUser.getId().toString(), token, 2, TimeUnit.HOURS);
 
         Map<String, Object> loginResultMap = new HashMap<>();
         loginResultMap.put("userInfo", userDto);
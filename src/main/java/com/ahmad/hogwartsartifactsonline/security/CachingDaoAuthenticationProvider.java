@@ -0,0 +1,84 @@
+package com.ahmad.hogwartsartifactsonline.security;
+
+import com.ahmad.hogwartsartifactsonline.system.exception.LoginCapacityExceededException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * DaoAuthenticationProvider that skips the BCrypt check for credentials verified a moment ago (see CredentialCache),
+ * and runs the remaining BCrypt checks on a small bounded pool. The pool defaults to half the cores, so a login storm
+ * leaves the other half to other requests; when the queue is full, logins are rejected with 503.
+ */
+public class CachingDaoAuthenticationProvider extends DaoAuthenticationProvider implements DisposableBean {
+
+    private final CredentialCache credentialCache;
+
+    private final ThreadPoolExecutor passwordHashingExecutor;
+
+    public CachingDaoAuthenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                            CredentialCache credentialCache, int threads, int queueCapacity) {
+        super(passwordEncoder);
+        setUserDetailsService(userDetailsService);
+        this.credentialCache = credentialCache;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.passwordHashingExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication) throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            super.additionalAuthenticationChecks(userDetails, authentication); // Fails with the usual message.
+            return;
+        }
+        String rawPassword = authentication.getCredentials().toString();
+        if (credentialCache.isVerified(userDetails.getUsername(), userDetails.getPassword(), rawPassword)) {
+            return;
+        }
+
+        Future<?> check;
+        try {
+            check = passwordHashingExecutor.submit(() -> super.additionalAuthenticationChecks(userDetails, authentication));
+        } catch (RejectedExecutionException e) {
+            throw new LoginCapacityExceededException();
+        }
+        try {
+            check.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AuthenticationException authenticationException) {
+                throw authenticationException;
+            }
+            throw new AuthenticationServiceException("Password verification failed", e.getCause());
+        } catch (InterruptedException e) {
+            check.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Password verification was interrupted", e);
+        }
+        credentialCache.putVerified(userDetails.getUsername(), userDetails.getPassword(), rawPassword);
+    }
+
+    @Override
+    public void destroy() {
+        passwordHashingExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,98 @@
+package com.ahmad.hogwartsartifactsonline.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers recently verified (username, password) pairs, so a repeated Basic login does not pay for another BCrypt
+ * verification. Only an HMAC of the pair is kept, keyed with a random per-process secret, never the password itself.
+ * <p>
+ * The stored password hash is part of the HMAC input, so an entry stops matching as soon as the user's password
+ * changes on any replica. Roles and the enabled flag are not cached at all, they come from the freshly loaded user.
+ */
+@Component
+public class CredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final ConcurrentMap<String, VerifiedCredential> entries = new ConcurrentHashMap<>();
+
+    private final SecretKeySpec secretKey;
+
+    private final boolean enabled;
+
+    private final long ttlNanos;
+
+    private final int maxSize;
+
+    public CredentialCache(@Value("${security.credential-cache.enabled:true}") boolean enabled,
+                           @Value("${security.credential-cache.ttl:5m}") Duration ttl,
+                           @Value("${security.credential-cache.max-size:10000}") int maxSize) {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.secretKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public boolean isVerified(String username, String encodedPassword, String rawPassword) {
+        if (!enabled) {
+            return false;
+        }
+        VerifiedCredential entry = entries.get(username);
+        if (entry == null) {
+            return false;
+        }
+        if (System.nanoTime() - entry.verifiedAt() > ttlNanos) {
+            entries.remove(username, entry);
+            return false;
+        }
+        return MessageDigest.isEqual(entry.fingerprint(), fingerprint(username, encodedPassword, rawPassword));
+    }
+
+    public void putVerified(String username, String encodedPassword, String rawPassword) {
+        if (!enabled) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(username)) {
+            // Rather than tracking recency, start over; the cost is one BCrypt per active user.
+            entries.clear();
+        }
+        entries.put(username, new VerifiedCredential(fingerprint(username, encodedPassword, rawPassword), System.nanoTime()));
+    }
+
+    /**
+     * Forgets a user whose password changed or who was renamed or deleted, rather than keeping the entry until the TTL.
+     */
+    public void evict(String username) {
+        entries.remove(username);
+    }
+
+    private byte[] fingerprint(String username, String encodedPassword, String rawPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedCredential(byte[] fingerprint, long verifiedAt) {
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
@@ -72,6 +73,7 @@ public class SecurityConfiguration {
                         authorizeHttpRequests -> authorizeHttpRequests
                                 .requestMatchers(HttpMethod.GET, baseUrl + "/artifacts/**").permitAll()
                                 .requestMatchers(HttpMethod.POST,baseUrl + "/artifacts/search").permitAll()
+                                .requestMatchers(HttpMethod.POST, baseUrl + "/artifacts/summary/jobs").permitAll() // Like GET /artifacts/summary; concurrent jobs are shared.
                                 .requestMatchers(HttpMethod.GET, baseUrl + "/users").hasAuthority("ROLE_admin")
                                 .requestMatchers(HttpMethod.GET, baseUrl + "/users/**").access(userRequestAuthorizationManager) // The authorization role is defined in the UserRequestAuthorizationManager.
                                 .requestMatchers(HttpMethod.POST, baseUrl + "/users").hasAuthority("ROLE_admin")
@@ -104,6 +106,15 @@ public class SecurityConfiguration {
         return new BCryptPasswordEncoder(12);
     }
 
+    @Bean
+    public CachingDaoAuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                                   PasswordEncoder passwordEncoder,
+                                                                   CredentialCache credentialCache,
+                                                                   @Value("${security.password-hashing.threads:#{T(java.lang.Math).max(1, T(java.lang.Runtime).getRuntime().availableProcessors() / 2)}}") int threads,
+                                                                   @Value("${security.password-hashing.queue-capacity:100}") int queueCapacity) {
+        return new CachingDaoAuthenticationProvider(userDetailsService, passwordEncoder, credentialCache, threads, queueCapacity);
+    }
+
     @Bean
     public JwtEncoder jwtEncoder() {
         JWK jwk = new RSAKey.Builder(publicKey).privateKey(privateKey).build();
@@ -0,0 +1,27 @@
+package com.ahmad.hogwartsartifactsonline.system;
+
+import com.ahmad.hogwartsartifactsonline.system.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes the last seen key of a keyset-paginated result into an opaque, URL-safe continuation token and back.
+ */
+public final class CursorCodec {
+
+    private CursorCodec() {
+    }
+
+    public static String encode(String lastSeenKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastSeenKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ahmad.hogwartsartifactsonline.system;
+
+import java.util.List;
+
+/**
+ * One keyset-paginated chunk of results. Unlike a Page, it carries no total count; nextCursor is an opaque
+ * continuation token to pass back for the following chunk, and is null on the last one.
+ */
+public record CursorSlice<T>(List<T> content,
+                             int size,
+                             boolean hasNext,
+                             String nextCursor) {
+}
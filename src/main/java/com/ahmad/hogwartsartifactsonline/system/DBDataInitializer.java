@@ -4,62 +4,70 @@ import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
 import com.ahmad.hogwartsartifactsonline.artifact.ArtifactRepository;
 import com.ahmad.hogwartsartifactsonline.hogwartsuser.HogwartsUser;
 import com.ahmad.hogwartsartifactsonline.hogwartsuser.UserService;
+import com.ahmad.hogwartsartifactsonline.system.catalogversion.CatalogVersion;
+import com.ahmad.hogwartsartifactsonline.system.catalogversion.CatalogVersionRepository;
 import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
 import com.ahmad.hogwartsartifactsonline.wizard.WizardRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 @Component
 @Profile("dev")
+@Order(0)
 public class DBDataInitializer implements CommandLineRunner {
 
     private final ArtifactRepository artifactRepository;
     private final WizardRepository wizardRepository;
     private final UserService userService;
+    private final CatalogVersionRepository catalogVersionRepository;
 
-    public DBDataInitializer(ArtifactRepository artifactRepository, WizardRepository wizardRepository, UserService userService) {
+    public DBDataInitializer(ArtifactRepository artifactRepository, WizardRepository wizardRepository, UserService userService, CatalogVersionRepository catalogVersionRepository) {
         this.artifactRepository = artifactRepository;
         this.wizardRepository = wizardRepository;
         this.userService = userService;
+        this.catalogVersionRepository = catalogVersionRepository;
     }
 
     @Override
     public void run(String... args) throws Exception {
 
+        // The row the V5 migration creates in production; the dev schema is created by Hibernate.
+        catalogVersionRepository.save(new CatalogVersion(CatalogVersion.ID, 0L));
 
         Artifact a1 = new Artifact();
-        a1.setId("1250808601744904191");
+        a1.setId(1250808601744904191L);
         a1.setName("Deluminator");
         a1.setDescription("A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user.");
         a1.setImageUrl("ImageUrl");
 
         Artifact a2 = new Artifact();
-        a2.setId("1250808601744904192");
+        a2.setId(1250808601744904192L);
         a2.setName("Invisibility Cloak");
         a2.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a2.setImageUrl("ImageUrl");
 
         Artifact a3 = new Artifact();
-        a3.setId("1250808601744904193");
+        a3.setId(1250808601744904193L);
         a3.setName("Elder Wand");
         a3.setDescription("The Elder Wand, known throughout history as the Deathstick or the Wand of Destiny, is an extremely powerful wand made of elder wood with a core of Thestral tail hair.");
         a3.setImageUrl("ImageUrl");
 
         Artifact a4 = new Artifact();
-        a4.setId("1250808601744904194");
+        a4.setId(1250808601744904194L);
         a4.setName("The Marauder's Map");
         a4.setDescription("A magical map of Hogwarts created by Remus Lupin, Peter Pettigrew, Sirius Black, and James Potter while they were students at Hogwarts.");
         a4.setImageUrl("ImageUrl");
 
         Artifact a5 = new Artifact();
-        a5.setId("1250808601744904195");
+        a5.setId(1250808601744904195L);
         a5.setName("The Sword Of Gryffindor");
         a5.setDescription("A goblin-made sword adorned with large rubies on the pommel. It was once owned by Godric Gryffindor, one of the medieval founders of Hogwarts.");
         a5.setImageUrl("ImageUrl");
 
         Artifact a6 = new Artifact();
-        a6.setId("1250808601744904196");
+        a6.setId(1250808601744904196L);
         a6.setName("Resurrection Stone");
         a6.setDescription("The Resurrection Stone allows the holder to bring back deceased loved ones, in a semi-physical form, and communicate with them.");
         a6.setImageUrl("ImageUrl");
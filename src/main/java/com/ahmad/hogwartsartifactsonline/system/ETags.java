@@ -0,0 +1,37 @@
+package com.ahmad.hogwartsartifactsonline.system;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Strong ETags for the read endpoints, derived from entity versions or the catalog version instead of hashing the
+ * response body, so a conditional request can be answered before the payload is built.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(String prefix, Long... versions) {
+        StringBuilder eTag = new StringBuilder(prefix);
+        for (Long version : versions) {
+            eTag.append('-').append(version != null ? version : "x");
+        }
+        return eTag.toString();
+    }
+
+    public static boolean hasIfNoneMatch(ServletWebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+    }
+
+    /**
+     * Sets the ETag on the response and returns true if it matches If-None-Match, in which case the response is a
+     * 304 and the handler should return null. Responses may be cached, but only after revalidation.
+     */
+    public static boolean checkNotModified(ServletWebRequest request, String eTag) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        return request.checkNotModified(eTag);
+    }
+}
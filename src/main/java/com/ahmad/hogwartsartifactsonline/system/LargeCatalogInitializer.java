@@ -0,0 +1,136 @@
+package com.ahmad.hogwartsartifactsonline.system;
+
+import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
+import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds a large synthetic catalog (see SyntheticCatalog) on top of the dev data, to see the application behave at
+ * production scale. Wizards are saved through JPA; artifacts, the bulk of the rows, with batched JDBC inserts that
+ * bypass the persistence context. Enabled with the large-catalog profile, e.g. --spring.profiles.active=dev,large-catalog
+ * <p>
+ * Benchmarks construct one directly with the sizes they need and call {@link #generate()}, so every synthetic row is
+ * written by this class.
+ */
+@Component
+@Profile("large-catalog")
+@Order(1) // After DBDataInitializer, so the hand-written rows keep their wizard ids.
+public class LargeCatalogInitializer implements CommandLineRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LargeCatalogInitializer.class);
+
+    private static final String INSERT_ARTIFACT = "insert into artifact (id, name, description, image_url, owner_id, version) values (?, ?, ?, ?, ?, 0)";
+
+    // Given up front, so null owners do not make the driver look the column type up.
+    private static final int[] INSERT_ARTIFACT_TYPES = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER};
+
+    private final WizardRepository wizardRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IdWorker idWorker;
+
+    private final int artifacts;
+
+    private final int wizards;
+
+    private final SyntheticCatalog syntheticCatalog;
+
+    public LargeCatalogInitializer(WizardRepository wizardRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   IdWorker idWorker,
+                                   @Value("${large-catalog.artifacts:1000000}") int artifacts,
+                                   @Value("${large-catalog.wizards:20000}") int wizards,
+                                   @Value("${large-catalog.ownership-skew:1.0}") double ownershipSkew,
+                                   @Value("${large-catalog.unowned-ratio:0.1}") double unownedRatio,
+                                   @Value("${large-catalog.seed:42}") long seed) {
+        this.wizardRepository = wizardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idWorker = idWorker;
+        this.artifacts = artifacts;
+        this.wizards = wizards;
+        this.syntheticCatalog = new SyntheticCatalog(seed, wizards, ownershipSkew, unownedRatio);
+    }
+
+    @Override
+    public void run(String... args) {
+        generate();
+    }
+
+    /**
+     * Adds the catalog and returns where it went, so that a caller can find or remove the generated rows.
+     */
+    public GeneratedCatalog generate() {
+        long start = System.nanoTime();
+
+        // Owners are drawn first, so every wizard is saved with its final artifact count.
+        int[] owners = new int[artifacts];
+        int[] artifactCounts = new int[wizards];
+        for (int i = 0; i < artifacts; i++) {
+            owners[i] = syntheticCatalog.nextOwner();
+            if (owners[i] >= 0) {
+                artifactCounts[owners[i]]++;
+            }
+        }
+        Integer[] wizardIds = saveWizards(artifactCounts);
+
+        long firstArtifactId = 0;
+        long lastArtifactId = 0;
+        List<Object[]> batch = new ArrayList<>(IdWorker.MAX_BLOCK_SIZE);
+        for (int i = 0; i < artifacts; i += IdWorker.MAX_BLOCK_SIZE) {
+            long[] ids = idWorker.nextIds(Math.min(IdWorker.MAX_BLOCK_SIZE, artifacts - i));
+            if (i == 0) {
+                firstArtifactId = ids[0];
+            }
+            lastArtifactId = ids[ids.length - 1];
+            for (int j = 0; j < ids.length; j++) {
+                Artifact artifact = syntheticCatalog.nextArtifact(ids[j]);
+                int owner = owners[i + j];
+                batch.add(new Object[]{artifact.getId(), artifact.getName(), artifact.getDescription(), artifact.getImageUrl(),
+                        owner >= 0 ? wizardIds[owner] : null});
+            }
+            // One commit per block rather than one per row.
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_ARTIFACT, batch, INSERT_ARTIFACT_TYPES));
+            batch.clear();
+        }
+
+        LOGGER.info("Generated {} artifacts and {} wizards in {} ms", artifacts, wizards, (System.nanoTime() - start) / 1_000_000);
+        return new GeneratedCatalog(firstArtifactId, lastArtifactId, List.of(wizardIds));
+    }
+
+    private Integer[] saveWizards(int[] artifactCounts) {
+        List<Wizard> newWizards = new ArrayList<>(wizards);
+        for (int i = 0; i < wizards; i++) {
+            Wizard wizard = new Wizard();
+            wizard.setName(syntheticCatalog.wizardName(i));
+            wizard.setNumberOfArtifacts(artifactCounts[i]);
+            newWizards.add(wizard);
+        }
+        transactionTemplate.executeWithoutResult(status -> wizardRepository.saveAll(newWizards));
+        return newWizards.stream().map(Wizard::getId).toArray(Integer[]::new);
+    }
+
+    /**
+     * The generated artifacts are exactly the ids from firstArtifactId to lastArtifactId, since IdWorker ids increase.
+     */
+    public record GeneratedCatalog(long firstArtifactId, long lastArtifactId, List<Integer> wizardIds) {
+    }
+}
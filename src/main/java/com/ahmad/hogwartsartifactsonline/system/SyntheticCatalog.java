@@ -0,0 +1,137 @@
+package com.ahmad.hogwartsartifactsonline.system;
+
+import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of catalog-like data: artifact names and descriptions of realistic length, and an owner
+ * for every artifact drawn from a Zipf distribution, so a few wizards own most of the catalog and most wizards own
+ * little or nothing. The same seed always yields the same catalog. Not thread safe.
+ */
+public class SyntheticCatalog {
+
+    private static final String[] ADJECTIVES = {"Ancient", "Enchanted", "Cursed", "Gilded", "Silver", "Shattered",
+            "Whispering", "Vanishing", "Everlasting", "Forgotten", "Howling", "Glowing", "Hidden", "Bewitched", "Twisted",
+            "Crystal", "Golden", "Shadowed", "Singing", "Frozen", "Burning", "Charmed", "Runic", "Sleeping", "Wandering",
+            "Jeweled", "Hollow", "Iron", "Moonlit", "Restless"};
+
+    private static final String[] OBJECTS = {"Wand", "Cloak", "Map", "Sword", "Stone", "Cup", "Locket", "Diadem", "Ring",
+            "Horn", "Mirror", "Quill", "Cauldron", "Broomstick", "Hourglass", "Lantern", "Chalice", "Amulet", "Compass",
+            "Goblet", "Key", "Book", "Crown", "Dagger", "Orb", "Pendant", "Scroll", "Shield", "Staff", "Telescope"};
+
+    private static final String[] ORIGINS = {"Gryffindor", "Hufflepuff", "Ravenclaw", "Slytherin", "Hogsmeade",
+            "the Forbidden Forest", "Azkaban", "Gringotts", "Diagon Alley", "Knockturn Alley", "Durmstrang",
+            "Beauxbatons", "the Ministry", "Godric's Hollow", "the Black Lake", "the Room of Requirement",
+            "Nurmengard", "Little Hangleton", "the Chamber of Secrets", "the Astronomy Tower"};
+
+    private static final String[] SENTENCES = {"It was found in a sealed vault beneath the castle.",
+            "Its maker is unknown, though goblin craftsmanship is suspected.",
+            "It hums faintly when held by a witch or wizard of pure intent.",
+            "Several owners reported vivid dreams of distant places.",
+            "The inscription along its edge has never been fully translated.",
+            "It was confiscated by the Ministry in the late eighteenth century.",
+            "Touching it without gloves leaves a silver mark for days.",
+            "Legend says it chooses its owner rather than the other way round.",
+            "It resists most known charms, including Accio.",
+            "Curators keep it away from direct moonlight.",
+            "A matching piece is believed to exist somewhere abroad.",
+            "It was donated to the school by an anonymous benefactor."};
+
+    private static final String[] FIRST_NAMES = {"Albus", "Minerva", "Severus", "Rubeus", "Filius", "Pomona", "Sybill",
+            "Horace", "Gilderoy", "Remus", "Nymphadora", "Kingsley", "Luna", "Ginevra", "Cedric", "Cho", "Viktor",
+            "Fleur", "Bellatrix", "Lucius", "Narcissa", "Gellert", "Newt", "Porpentina", "Bathilda"};
+
+    private static final String[] LAST_NAMES = {"Abbott", "Bones", "Crouch", "Diggory", "Everard", "Fawley", "Gaunt",
+            "Hopkirk", "Jorkins", "Lestrange", "Macmillan", "Nott", "Ollivander", "Peverell", "Quirke", "Rosier",
+            "Scamander", "Travers", "Umbridge", "Vance", "Weasley", "Yaxley", "Zabini", "Prewett", "Shacklebolt"};
+
+    // The artifact columns are varchar(255).
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final SplittableRandom random;
+
+    private final double unownedRatio;
+
+    // cumulativeOwnership[i] is the probability that an owned artifact belongs to one of the wizards 0..i.
+    private final double[] cumulativeOwnership;
+
+    /**
+     * @param ownershipSkew Zipf exponent of the number of artifacts per wizard; 0 spreads them evenly.
+     * @param unownedRatio  share of artifacts without an owner.
+     */
+    public SyntheticCatalog(long seed, int wizards, double ownershipSkew, double unownedRatio) {
+        this.random = new SplittableRandom(seed);
+        this.unownedRatio = unownedRatio;
+        this.cumulativeOwnership = new double[wizards];
+        double total = 0;
+        for (int i = 0; i < wizards; i++) {
+            total += 1 / Math.pow(i + 1, ownershipSkew);
+            cumulativeOwnership[i] = total;
+        }
+        for (int i = 0; i < wizards; i++) {
+            cumulativeOwnership[i] /= total;
+        }
+    }
+
+    public String wizardName(int wizard) {
+        return FIRST_NAMES[wizard % FIRST_NAMES.length] + " " + LAST_NAMES[(wizard / FIRST_NAMES.length) % LAST_NAMES.length]
+                + (wizard < FIRST_NAMES.length * LAST_NAMES.length ? "" : " " + toRoman(wizard / (FIRST_NAMES.length * LAST_NAMES.length) + 1));
+    }
+
+    /**
+     * A new artifact with the given id, without an owner.
+     */
+    public Artifact nextArtifact(long id) {
+        Artifact artifact = new Artifact();
+        artifact.setId(id);
+        artifact.setName(nextName());
+        artifact.setDescription(nextDescription(artifact.getName()));
+        artifact.setImageUrl("https://hogwartsartifactsonline.blob.core.windows.net/artifact-images/" + Long.toHexString(random.nextLong()) + ".jpg");
+        return artifact;
+    }
+
+    /**
+     * The index of the owner of the next artifact, or -1 if it has none.
+     */
+    public int nextOwner() {
+        if (cumulativeOwnership.length == 0 || random.nextDouble() < unownedRatio) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(cumulativeOwnership, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulativeOwnership.length - 1);
+    }
+
+    private String nextName() {
+        return ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + OBJECTS[random.nextInt(OBJECTS.length)]
+                + " of " + ORIGINS[random.nextInt(ORIGINS.length)];
+    }
+
+    // Mostly one or two sentences, now and then up to the column limit.
+    private String nextDescription(String name) {
+        int targetLength = 60 + (int) (Math.pow(random.nextDouble(), 2) * (MAX_DESCRIPTION_LENGTH - 60));
+        StringBuilder description = new StringBuilder("The ").append(name).append('.');
+        while (description.length() < targetLength) {
+            String sentence = SENTENCES[random.nextInt(SENTENCES.length)];
+            if (description.length() + 1 + sentence.length() > MAX_DESCRIPTION_LENGTH) {
+                break;
+            }
+            description.append(' ').append(sentence);
+        }
+        return description.toString();
+    }
+
+    private static String toRoman(int number) {
+        String[] numerals = {"M", "CM", "D", "CD", "C", "XC", "L", "XL", "X", "IX", "V", "IV", "I"};
+        int[] values = {1000, 900, 500, 400, 100, 90, 50, 40, 10, 9, 5, 4, 1};
+        StringBuilder roman = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            while (number >= values[i]) {
+                roman.append(numerals[i]);
+                number -= values[i];
+            }
+        }
+        return roman.toString();
+    }
+}
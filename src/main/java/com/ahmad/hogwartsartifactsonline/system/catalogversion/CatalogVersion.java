@@ -0,0 +1,49 @@
+package com.ahmad.hogwartsartifactsonline.system.catalogversion;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+
+/**
+ * The single row counting changes to the artifact catalog (artifacts and wizards), see CatalogVersionService.
+ */
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion implements Serializable {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long version;
+
+
+    public CatalogVersion() {
+    }
+
+    public CatalogVersion(Integer id, Long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
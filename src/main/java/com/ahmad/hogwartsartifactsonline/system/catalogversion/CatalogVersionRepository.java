@@ -0,0 +1,16 @@
+package com.ahmad.hogwartsartifactsonline.system.catalogversion;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Integer> {
+
+    @Query("select c.version from CatalogVersion c where c.id = " + CatalogVersion.ID)
+    Long findCurrentVersion();
+
+    // Returns 0 if the row was never seeded.
+    @Modifying
+    @Query("update CatalogVersion c set c.version = c.version + 1 where c.id = " + CatalogVersion.ID)
+    int incrementVersion();
+}
@@ -0,0 +1,56 @@
+package com.ahmad.hogwartsartifactsonline.system.catalogversion;
+
+import com.ahmad.hogwartsartifactsonline.artifact.ArtifactCatalogChangedEvent;
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageVariantsStoredEvent;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Catalog-wide change counter, the ETag of the collection reads (GET /artifacts, GET /wizards). It lives in the
+ * database, so every replica sees the same value, and is incremented after the change has committed, in a short
+ * transaction of its own: writes do not queue up behind the lock on its row, and a rolled back change does not count.
+ * Until the increment, a read may return the new catalog under the old ETag, which at worst lets a client revalidate
+ * once more. Reading it is a single primary key lookup.
+ * <p>
+ * The row itself is created by the V5 migration, or by DBDataInitializer on a schema created by Hibernate.
+ */
+@Service
+@Transactional
+public class CatalogVersionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogVersionService.class);
+
+    private final CatalogVersionRepository catalogVersionRepository;
+
+    public CatalogVersionService(CatalogVersionRepository catalogVersionRepository) {
+        this.catalogVersionRepository = catalogVersionRepository;
+    }
+
+    public long currentVersion() {
+        Long version = catalogVersionRepository.findCurrentVersion();
+        return version != null ? version : 0;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void onCatalogChanged(ArtifactCatalogChangedEvent event) {
+        incrementVersion();
+    }
+
+    // New image variants show up in the collection reads, but change nothing the AI summary is derived from, so they
+    // are not an ArtifactCatalogChangedEvent.
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void onImageVariantsStored(ImageVariantsStoredEvent event) {
+        incrementVersion();
+    }
+
+    private void incrementVersion() {
+        if (catalogVersionRepository.incrementVersion() == 0) {
+            LOGGER.warn("The catalog_version row is missing, collection ETags will not change");
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.ahmad.hogwartsartifactsonline.system.entitycache;
+
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of entity snapshots with a bounded local tier (size and TTL eviction) in front of a shared Redis
+ * tier. Snapshots are immutable records holding the entity's columns and the ids of its associations, so callers get
+ * a fresh detached entity on every hit and cannot change a cached copy.
+ * <p>
+ * Reads fill Redis with SET NX only, while writes through the services replace the entry with a tombstone and announce
+ * the key on {@link EntityCacheContext#INVALIDATION_CHANNEL}, so a replica that read the old row just before the write
+ * cannot put it back, and every replica drops its local copy. Writes never store a snapshot themselves: two updates
+ * committing close together could reach Redis in the wrong order, while tombstones are all alike, and the next read
+ * caches whatever has committed last. Everything happens after commit, so nothing seen by a transaction that rolls
+ * back is cached. Redis errors and unreadable entries (e.g. written by another version of a snapshot) only cost a
+ * database read.
+ */
+public abstract class EntityCache<S> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityCache.class);
+
+    // Lenient, so entries written by a replica with more snapshot fields stay readable during a rolling deploy.
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final String TOMBSTONE = "-";
+
+    private static final String ALL_KEYS = "*";
+
+    // Joins the keys of one invalidation announcement; keys are entity ids and never contain it.
+    private static final String KEY_SEPARATOR = ",";
+
+    // Above this many keys, invalidateSnapshots evicts the whole cache instead of one key at a time.
+    private static final int MAX_INVALIDATED_KEYS = 1000;
+
+    private final String name;
+
+    private final Class<S> snapshotType;
+
+    private final EntityCacheContext context;
+
+    private final RedisCacheClient redisCacheClient;
+
+    private final ConcurrentMap<String, CachedSnapshot<S>> entries = new ConcurrentHashMap<>();
+
+    private final Counter localHits;
+
+    private final Counter localMisses;
+
+    private final Counter redisHits;
+
+    private final Counter redisMisses;
+
+    private final Counter sizeEvictions;
+
+    private final Counter expiredEvictions;
+
+    private final Counter invalidations;
+
+    protected EntityCache(String name, Class<S> snapshotType, EntityCacheContext context) {
+        this.name = name;
+        this.snapshotType = snapshotType;
+        this.context = context;
+        this.redisCacheClient = context.redisCacheClient();
+        MeterRegistry meterRegistry = context.meterRegistry();
+        this.localHits = requests(meterRegistry, "local", "hit");
+        this.localMisses = requests(meterRegistry, "local", "miss");
+        this.redisHits = requests(meterRegistry, "redis", "hit");
+        this.redisMisses = requests(meterRegistry, "redis", "miss");
+        this.sizeEvictions = evictions(meterRegistry, "size");
+        this.expiredEvictions = evictions(meterRegistry, "expired");
+        this.invalidations = evictions(meterRegistry, "invalidation");
+        Gauge.builder("entity.cache.size", entries, Map::size).tag("cache", name).register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Takes the generation to pass to {@link #putSnapshot}; read it before loading the entity from the database.
+     */
+    public long generation() {
+        return context.generation();
+    }
+
+    /**
+     * Handles an invalidation of some keys (joined by commas), or of every key, announced by any replica (including
+     * this one).
+     */
+    public void onInvalidation(String keys) {
+        context.nextGeneration();
+        if (ALL_KEYS.equals(keys)) {
+            invalidations.increment(entries.size());
+            entries.clear();
+            return;
+        }
+        for (String key : keys.split(KEY_SEPARATOR)) {
+            if (entries.remove(key) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public void clearLocal() {
+        entries.clear();
+    }
+
+    /**
+     * Drops every entry, e.g. after a bulk update that bypassed the entities. Runs after commit.
+     */
+    public void evictAll() {
+        afterCommit(() -> {
+            context.nextGeneration();
+            entries.clear();
+            if (context.isRedisTier()) {
+                try {
+                    redisCacheClient.deleteByPattern(redisKey(ALL_KEYS));
+                    announce(ALL_KEYS);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not evict the {} cache from Redis", name, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops entries of changed entities after commit. Redis keeps a tombstone for {@code invalidation-grace}, so a
+     * replica that read a row just before the update cannot put the old copy back, and the next read after that caches
+     * the new row again.
+     */
+    protected void invalidateSnapshots(Collection<String> keys) {
+        if (!context.isEnabled() || keys.isEmpty()) {
+            return;
+        }
+        if (keys.size() > MAX_INVALIDATED_KEYS) {
+            evictAll();
+            return;
+        }
+        List<String> invalidatedKeys = List.copyOf(keys);
+        afterCommit(() -> {
+            context.nextGeneration();
+            invalidatedKeys.forEach(entries::remove);
+            if (context.isRedisTier()) {
+                try {
+                    for (String key : invalidatedKeys) {
+                        redisCacheClient.set(redisKey(key), TOMBSTONE, context.invalidationGrace().toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    announce(String.join(KEY_SEPARATOR, invalidatedKeys));
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not invalidate {} {} entries in Redis", invalidatedKeys.size(), name, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the cached snapshot, or null if neither tier has it.
+     */
+    protected S getSnapshot(String key) {
+        if (!context.isEnabled()) {
+            return null;
+        }
+        long generation = context.generation();
+        if (context.isLocalTierUsable()) {
+            CachedSnapshot<S> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.cachedAt() <= context.localTtlNanos()) {
+                    localHits.increment();
+                    return entry.snapshot();
+                }
+                if (entries.remove(key, entry)) {
+                    expiredEvictions.increment();
+                }
+            }
+            localMisses.increment();
+        }
+        if (!context.isRedisTier()) {
+            return null;
+        }
+
+        String json;
+        try {
+            json = redisCacheClient.get(redisKey(key));
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not read {} from Redis: {}", redisKey(key), e.getMessage());
+            json = null;
+        }
+        S snapshot = json == null || TOMBSTONE.equals(json) ? null : read(key, json);
+        if (snapshot == null) {
+            redisMisses.increment();
+            return null;
+        }
+        redisHits.increment();
+        putLocal(key, snapshot, generation);
+        return snapshot;
+    }
+
+    /**
+     * Caches a snapshot of an entity read from the database, unless an invalidation happened since {@code generation}
+     * was taken. The snapshot is taken after commit.
+     */
+    protected void putSnapshot(String key, Supplier<S> snapshot, long generation) {
+        if (!context.isEnabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            S committedSnapshot = snapshot.get();
+            putLocal(key, committedSnapshot, generation);
+            if (context.isRedisTier() && context.generation() == generation) {
+                try {
+                    redisCacheClient.setIfAbsent(redisKey(key), write(committedSnapshot), context.redisTtl().toMillis(), TimeUnit.MILLISECONDS);
+                } catch (RuntimeException e) {
+                    LOGGER.debug("Could not write {} to Redis: {}", redisKey(key), e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Evicts a deleted entity from both tiers after commit. Redis keeps a tombstone until the TTL, so a replica that
+     * read the row just before the delete cannot put it back.
+     */
+    protected void evictSnapshot(String key) {
+        if (!context.isEnabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            context.nextGeneration();
+            entries.remove(key);
+            if (context.isRedisTier()) {
+                try {
+                    redisCacheClient.set(redisKey(key), TOMBSTONE, context.redisTtl().toMillis(), TimeUnit.MILLISECONDS);
+                    announce(key);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not evict {} from Redis", redisKey(key), e);
+                }
+            }
+        });
+    }
+
+    private void putLocal(String key, S snapshot, long generation) {
+        if (!context.isLocalTierUsable()) {
+            return;
+        }
+        if (entries.size() >= context.localMaxSize() && !entries.containsKey(key)) {
+            evictOne();
+        }
+        CachedSnapshot<S> entry = new CachedSnapshot<>(snapshot, System.nanoTime());
+        entries.put(key, entry);
+        if (context.generation() != generation) {
+            entries.remove(key, entry);
+        }
+    }
+
+    // Drops an expired entry if one of the first few is, otherwise the first one.
+    private void evictOne() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, CachedSnapshot<S>>> iterator = entries.entrySet().iterator();
+        String victim = null;
+        boolean expired = false;
+        for (int scanned = 0; iterator.hasNext() && scanned < 16; scanned++) {
+            Map.Entry<String, CachedSnapshot<S>> candidate = iterator.next();
+            if (victim == null) {
+                victim = candidate.getKey();
+            }
+            if (now - candidate.getValue().cachedAt() > context.localTtlNanos()) {
+                victim = candidate.getKey();
+                expired = true;
+                break;
+            }
+        }
+        if (victim != null && entries.remove(victim) != null) {
+            (expired ? expiredEvictions : sizeEvictions).increment();
+        }
+    }
+
+    private void announce(String key) {
+        redisCacheClient.publish(EntityCacheContext.INVALIDATION_CHANNEL, name + ":" + key);
+    }
+
+    private String redisKey(String key) {
+        return "entityCache:" + name + ":" + key;
+    }
+
+    // Returns null for an unreadable entry, and deletes it unless it has been replaced meanwhile.
+    private S read(String key, String json) {
+        try {
+            return OBJECT_MAPPER.readValue(json, snapshotType);
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Deleting unreadable {} from Redis: {}", redisKey(key), e.getOriginalMessage());
+            try {
+                redisCacheClient.deleteIfEquals(redisKey(key), json);
+            } catch (RuntimeException deleteException) {
+                LOGGER.debug("Could not delete {} from Redis: {}", redisKey(key), deleteException.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private String write(S snapshot) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("entity.cache.requests")
+                .tag("cache", name).tag("tier", tier).tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter evictions(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("entity.cache.evictions")
+                .tag("cache", name).tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record CachedSnapshot<S>(S snapshot, long cachedAt) {
+    }
+}
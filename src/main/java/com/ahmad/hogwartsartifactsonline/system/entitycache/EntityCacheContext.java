@@ -0,0 +1,110 @@
+package com.ahmad.hogwartsartifactsonline.system.entitycache;
+
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settings and state shared by every {@link EntityCache}: one invalidation generation (an invalidation of any cache
+ * keeps all caches from storing reads that raced with it) and whether the invalidation channel is subscribed.
+ * <p>
+ * With {@code redis-tier: false} (dev) the caches are local only and never talk to Redis, which is only correct for
+ * a single replica.
+ */
+@Component
+public class EntityCacheContext {
+
+    public static final String INVALIDATION_CHANNEL = "entityCache:invalidations";
+
+    private final boolean enabled;
+
+    private final boolean redisTier;
+
+    private final long localTtlNanos;
+
+    private final int localMaxSize;
+
+    private final Duration redisTtl;
+
+    private final Duration invalidationGrace;
+
+    private final RedisCacheClient redisCacheClient;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    // Set by EntityCacheInvalidationSubscriber. Without invalidations the local tier could serve entities changed on
+    // another replica, so it is bypassed.
+    private volatile boolean subscribed;
+
+    public EntityCacheContext(@Value("${entity-cache.enabled:true}") boolean enabled,
+                              @Value("${entity-cache.redis-tier:true}") boolean redisTier,
+                              @Value("${entity-cache.local-ttl:5m}") Duration localTtl,
+                              @Value("${entity-cache.local-max-size:10000}") int localMaxSize,
+                              @Value("${entity-cache.redis-ttl:1h}") Duration redisTtl,
+                              @Value("${entity-cache.invalidation-grace:10s}") Duration invalidationGrace,
+                              RedisCacheClient redisCacheClient,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.redisTier = redisTier;
+        this.localTtlNanos = localTtl.toNanos();
+        this.localMaxSize = localMaxSize;
+        this.redisTtl = redisTtl;
+        this.invalidationGrace = invalidationGrace;
+        this.redisCacheClient = redisCacheClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isRedisTier() {
+        return enabled && redisTier;
+    }
+
+    public boolean isLocalTierUsable() {
+        return enabled && (!redisTier || subscribed);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public void nextGeneration() {
+        generation.incrementAndGet();
+    }
+
+    public void setSubscribed(boolean subscribed) {
+        this.subscribed = subscribed;
+    }
+
+    long localTtlNanos() {
+        return localTtlNanos;
+    }
+
+    int localMaxSize() {
+        return localMaxSize;
+    }
+
+    Duration redisTtl() {
+        return redisTtl;
+    }
+
+    Duration invalidationGrace() {
+        return invalidationGrace;
+    }
+
+    RedisCacheClient redisCacheClient() {
+        return redisCacheClient;
+    }
+
+    MeterRegistry meterRegistry() {
+        return meterRegistry;
+    }
+}
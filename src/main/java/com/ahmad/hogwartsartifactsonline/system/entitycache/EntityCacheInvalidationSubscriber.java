@@ -0,0 +1,115 @@
+package com.ahmad.hogwartsartifactsonline.system.entitycache;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * Subscribes to the entity cache invalidation channel ({cache}:{key} messages). Like the white list near-cache, the
+ * local tiers only serve reads while this subscription is up; if Redis is not reachable, the subscription is retried
+ * periodically and reads go to Redis or the database in the meantime. Does nothing in local-only mode.
+ */
+@Component
+public class EntityCacheInvalidationSubscriber {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityCacheInvalidationSubscriber.class);
+
+    private final RedisConnectionFactory redisConnectionFactory;
+
+    private final EntityCacheContext context;
+
+    private final Map<String, EntityCache<?>> cachesByName;
+
+    // Not synchronized: a virtual thread blocking on Redis inside a monitor would pin its carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private RedisMessageListenerContainer container;
+
+    public EntityCacheInvalidationSubscriber(RedisConnectionFactory redisConnectionFactory, EntityCacheContext context, List<EntityCache<?>> caches) {
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.context = context;
+        this.cachesByName = caches.stream().collect(Collectors.toMap(EntityCache::getName, Function.identity()));
+    }
+
+    @Scheduled(fixedDelayString = "${entity-cache.resubscribe-interval:30s}")
+    public void subscribe() {
+        if (!context.isRedisTier()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (container != null && container.isListening()) {
+                return;
+            }
+            setSubscribed(false);
+            unsubscribe();
+
+            RedisMessageListenerContainer newContainer = new RedisMessageListenerContainer();
+            newContainer.setConnectionFactory(redisConnectionFactory);
+            newContainer.addMessageListener(
+                    (message, pattern) -> onInvalidationMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(EntityCacheContext.INVALIDATION_CHANNEL));
+            try {
+                newContainer.afterPropertiesSet();
+                newContainer.start();
+                container = newContainer;
+                setSubscribed(true);
+                LOGGER.info("Subscribed to {}, local entity cache tier enabled", EntityCacheContext.INVALIDATION_CHANNEL);
+            } catch (RuntimeException e) {
+                destroy(newContainer);
+                LOGGER.warn("Could not subscribe to {}, entity cache reads skip the local tier: {}", EntityCacheContext.INVALIDATION_CHANNEL, e.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        lock.lock();
+        try {
+            if (container != null) {
+                destroy(container);
+                container = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onInvalidationMessage(String message) {
+        int separator = message.indexOf(':');
+        EntityCache<?> cache = separator < 0 ? null : cachesByName.get(message.substring(0, separator));
+        if (cache != null) {
+            cache.onInvalidation(message.substring(separator + 1));
+        }
+    }
+
+    private void setSubscribed(boolean subscribed) {
+        if (!subscribed) {
+            context.nextGeneration();
+            cachesByName.values().forEach(EntityCache::clearLocal);
+        }
+        context.setSubscribed(subscribed);
+    }
+
+    private static void destroy(RedisMessageListenerContainer container) {
+        try {
+            container.destroy();
+        } catch (Exception e) {
+            LOGGER.debug("Failed to stop the entity cache invalidation listener", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.ahmad.hogwartsartifactsonline.system.exception;
+
+public class ChatClientCapacityExceededException extends RuntimeException {
+
+    public ChatClientCapacityExceededException() {
+        super("Too many requests to the AI model are in flight, please try again later.");
+    }
+}
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AccountStatusException;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -38,6 +39,12 @@ public class ExceptionHandlerAdvice {
         return new Result(false, StatusCode.NOT_FOUND, exception.getMessage());
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    Result handleObjectOptimisticLockingFailureException(ObjectOptimisticLockingFailureException exception) {
+        return new Result(false, StatusCode.CONFLICT, "The data was changed by another request at the same time, please try again.");
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     Result handelValidationException(MethodArgumentNotValidException ex) {
@@ -129,6 +136,42 @@ public class ExceptionHandlerAdvice {
         return new Result(false, StatusCode.INVALID_ARGUMENT, exception.getMessage());
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Result handleInvalidCursorException(InvalidCursorException exception) {
+        return new Result(false, StatusCode.INVALID_ARGUMENT, exception.getMessage());
+    }
+
+    @ExceptionHandler(InvalidImageLocationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Result handleInvalidImageLocationException(InvalidImageLocationException exception) {
+        return new Result(false, StatusCode.INVALID_ARGUMENT, exception.getMessage());
+    }
+
+    @ExceptionHandler(LoginCapacityExceededException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    Result handleLoginCapacityExceededException(LoginCapacityExceededException exception) {
+        return new Result(false, StatusCode.SERVICE_UNAVAILABLE, exception.getMessage());
+    }
+
+    @ExceptionHandler(ChatClientCapacityExceededException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    Result handleChatClientCapacityExceededException(ChatClientCapacityExceededException exception) {
+        return new Result(false, StatusCode.SERVICE_UNAVAILABLE, exception.getMessage());
+    }
+
+    @ExceptionHandler(SummaryJobCapacityExceededException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    Result handleSummaryJobCapacityExceededException(SummaryJobCapacityExceededException exception) {
+        return new Result(false, StatusCode.SERVICE_UNAVAILABLE, exception.getMessage());
+    }
+
+    @ExceptionHandler(ImageUploadCapacityExceededException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    Result handleImageUploadCapacityExceededException(ImageUploadCapacityExceededException exception) {
+        return new Result(false, StatusCode.SERVICE_UNAVAILABLE, exception.getMessage());
+    }
+
 
 
     /*
@@ -0,0 +1,8 @@
+package com.ahmad.hogwartsartifactsonline.system.exception;
+
+public class ImageUploadCapacityExceededException extends RuntimeException {
+
+    public ImageUploadCapacityExceededException() {
+        super("Too many image uploads are in progress, please try again later.");
+    }
+}
@@ -0,0 +1,8 @@
+package com.ahmad.hogwartsartifactsonline.system.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("The provided cursor " + cursor + " is invalid.");
+    }
+}
@@ -0,0 +1,8 @@
+package com.ahmad.hogwartsartifactsonline.system.exception;
+
+public class InvalidImageLocationException extends RuntimeException {
+
+    public InvalidImageLocationException(String location) {
+        super("The provided image location " + location + " is invalid.");
+    }
+}
@@ -0,0 +1,10 @@
+package com.ahmad.hogwartsartifactsonline.system.exception;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+public class LoginCapacityExceededException extends AuthenticationServiceException {
+
+    public LoginCapacityExceededException() {
+        super("Too many logins are being processed, please try again later.");
+    }
+}
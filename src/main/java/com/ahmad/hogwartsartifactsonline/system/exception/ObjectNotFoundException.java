@@ -9,4 +9,8 @@ public class ObjectNotFoundException extends RuntimeException {
     public ObjectNotFoundException(String objectName, Integer id) {
         super("Could not find " + objectName + " With Id " + id + " :(");
     }
+
+    public ObjectNotFoundException(String objectName, Long id) {
+        super("Could not find " + objectName + " With Id " + id + " :(");
+    }
 }
@@ -0,0 +1,8 @@
+package com.ahmad.hogwartsartifactsonline.system.exception;
+
+public class SummaryJobCapacityExceededException extends RuntimeException {
+
+    public SummaryJobCapacityExceededException() {
+        super("Too many summary jobs are queued, please try again later.");
+    }
+}
@@ -0,0 +1,16 @@
+package com.ahmad.hogwartsartifactsonline.system.idworker;
+
+import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdWorkerConfiguration {
+
+    // A fixed id-worker.worker-id skips leasing, e.g. for a single node without shared database.
+    @Bean
+    public IdWorker idWorker(WorkerIdLeaseService workerIdLeaseService, @Value("${id-worker.worker-id:-1}") long workerId) {
+        return new IdWorker(workerId >= 0 ? workerId : workerIdLeaseService.acquire());
+    }
+}
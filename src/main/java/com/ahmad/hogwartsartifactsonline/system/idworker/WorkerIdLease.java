@@ -0,0 +1,54 @@
+package com.ahmad.hogwartsartifactsonline.system.idworker;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+
+/**
+ * A Snowflake worker id held by one running node until {@code expiresAt} (epoch milliseconds).
+ */
+@Entity
+@Table(name = "worker_id_lease")
+public class WorkerIdLease implements Serializable {
+
+    @Id
+    @Column(name = "worker_id")
+    private Integer workerId;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+
+
+    public WorkerIdLease() {
+    }
+
+    public Integer getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(Integer workerId) {
+        this.workerId = workerId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
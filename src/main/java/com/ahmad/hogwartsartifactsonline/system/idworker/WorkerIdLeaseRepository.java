@@ -0,0 +1,32 @@
+package com.ahmad.hogwartsartifactsonline.system.idworker;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface WorkerIdLeaseRepository extends JpaRepository<WorkerIdLease, Integer> {
+
+    @Query("select l.workerId from WorkerIdLease l where l.expiresAt < :now order by l.workerId")
+    List<Integer> findExpiredWorkerIds(@Param("now") long now, Limit limit);
+
+    @Query("select max(l.workerId) from WorkerIdLease l")
+    Integer findMaxWorkerId();
+
+    // Fails with a duplicate key if another node claimed the id first, unlike save(), which would overwrite it.
+    @Modifying
+    @Query(value = "insert into worker_id_lease (worker_id, owner, expires_at) values (:workerId, :owner, :expiresAt)", nativeQuery = true)
+    int insertLease(@Param("workerId") int workerId, @Param("owner") String owner, @Param("expiresAt") long expiresAt);
+
+    // Takes over an expired lease, or extends our own. Returns 0 if another node holds it.
+    @Modifying
+    @Query("update WorkerIdLease l set l.owner = :owner, l.expiresAt = :expiresAt where l.workerId = :workerId and (l.owner = :owner or l.expiresAt < :now)")
+    int acquireLease(@Param("workerId") int workerId, @Param("owner") String owner, @Param("expiresAt") long expiresAt, @Param("now") long now);
+
+    @Modifying
+    @Query("update WorkerIdLease l set l.expiresAt = :expiresAt where l.workerId = :workerId and l.owner = :owner")
+    int releaseLease(@Param("workerId") int workerId, @Param("owner") String owner, @Param("expiresAt") long expiresAt);
+}
@@ -0,0 +1,154 @@
+package com.ahmad.hogwartsartifactsonline.system.idworker;
+
+import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Leases a Snowflake worker id per running node from the worker_id_lease table, so replicas never generate
+ * colliding ids. The lease is renewed well before it expires; ids of crashed nodes become available again once their
+ * lease has expired. On shutdown the lease is shortened rather than dropped: the last ids handed out may be stamped
+ * up to maxBackwardMillis ahead of the wall clock, so the id stays leased until that time, plus the clock skew
+ * allowed between nodes, has passed everywhere.
+ */
+@Service
+public class WorkerIdLeaseService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerIdLeaseService.class);
+
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final WorkerIdLeaseRepository workerIdLeaseRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectProvider<IdWorker> idWorker;
+
+    private final long leaseTtlMillis;
+
+    private final long clockSkewMarginMillis;
+
+    private final String owner;
+
+    // Not synchronized: a virtual thread blocking on JDBC inside a monitor would pin its carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Integer workerId;
+
+    public WorkerIdLeaseService(WorkerIdLeaseRepository workerIdLeaseRepository,
+                                TransactionTemplate transactionTemplate,
+                                ObjectProvider<IdWorker> idWorker,
+                                @Value("${id-worker.lease-ttl:60s}") Duration leaseTtl,
+                                @Value("${id-worker.clock-skew-margin:1s}") Duration clockSkewMargin) {
+        this.workerIdLeaseRepository = workerIdLeaseRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.idWorker = idWorker;
+        this.leaseTtlMillis = leaseTtl.toMillis();
+        this.clockSkewMarginMillis = clockSkewMargin.toMillis();
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    }
+
+    public int acquire() {
+        lock.lock();
+        try {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                long now = System.currentTimeMillis();
+
+                // Prefer an id that a stopped node has left behind.
+                List<Integer> expired = workerIdLeaseRepository.findExpiredWorkerIds(now, Limit.of(1));
+                if (!expired.isEmpty()) {
+                    int candidate = expired.get(0);
+                    if (inTransaction(() -> workerIdLeaseRepository.acquireLease(candidate, owner, now + leaseTtlMillis, now)) == 1) {
+                        return leased(candidate);
+                    }
+                    continue;
+                }
+
+                Integer max = workerIdLeaseRepository.findMaxWorkerId();
+                int candidate = max == null ? 0 : max + 1;
+                if (candidate > IdWorker.MAX_WORKER_ID) {
+                    throw new IllegalStateException("All " + (IdWorker.MAX_WORKER_ID + 1) + " worker ids are leased");
+                }
+                try {
+                    inTransaction(() -> workerIdLeaseRepository.insertLease(candidate, owner, now + leaseTtlMillis));
+                    return leased(candidate);
+                } catch (DataIntegrityViolationException e) {
+                    // Another node claimed the same id at the same time, look again.
+                }
+            }
+            throw new IllegalStateException("Could not lease a worker id after " + MAX_ATTEMPTS + " attempts");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${id-worker.lease-renew-interval:20s}")
+    public void renew() {
+        lock.lock();
+        try {
+            if (workerId == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (inTransaction(() -> workerIdLeaseRepository.acquireLease(workerId, owner, now + leaseTtlMillis, now)) == 1) {
+                return;
+            }
+            // The lease expired (e.g. the database was unreachable) and another node took the id.
+            LOGGER.warn("Lost the lease on worker id {}, leasing a new one", workerId);
+            int newWorkerId = acquire();
+            IdWorker currentIdWorker = idWorker.getIfAvailable();
+            if (currentIdWorker != null) {
+                currentIdWorker.setWorkerId(newWorkerId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        lock.lock();
+        try {
+            if (workerId != null) {
+                int releasedWorkerId = workerId;
+                IdWorker currentIdWorker = idWorker.getIfAvailable();
+                long maxBackwardMillis = currentIdWorker != null ? currentIdWorker.getMaxBackwardMillis() : IdWorker.DEFAULT_MAX_BACKWARD_MILLIS;
+                long expiresAt = System.currentTimeMillis() + maxBackwardMillis + clockSkewMarginMillis;
+                inTransaction(() -> workerIdLeaseRepository.releaseLease(releasedWorkerId, owner, expiresAt));
+                workerId = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Integer getWorkerId() {
+        return workerId;
+    }
+
+    private int leased(int workerId) {
+        this.workerId = workerId;
+        LOGGER.info("Leased worker id {} as {}", workerId, owner);
+        return workerId;
+    }
+
+    private int inTransaction(IntSupplier action) {
+        Integer result = transactionTemplate.execute(status -> action.getAsInt());
+        return result == null ? 0 : result;
+    }
+}
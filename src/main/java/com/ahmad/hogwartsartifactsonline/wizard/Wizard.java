@@ -19,6 +19,15 @@ public class Wizard implements Serializable {
     @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, mappedBy = "owner")
     private List<Artifact> artifacts = new ArrayList<>();
 
+    // Denormalized size of artifacts, so reads never need to load the collection. Set by the methods below while a
+    // wizard is built up; changes to stored wizards go through the atomic updates of WizardRepository.
+    @Column(name = "artifact_count", nullable = false)
+    private Integer numberOfArtifacts = 0;
+
+    // Bumped by Hibernate on every update, including artifact count changes, since the count is part of every payload.
+    @Version
+    private Long version;
+
 
     public Wizard() {
     }
@@ -31,6 +40,14 @@ public class Wizard implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -50,19 +67,20 @@ public class Wizard implements Serializable {
     public void addArtifact(Artifact artifact) {
         artifact.setOwner(this);
         this.artifacts.add(artifact);
+        this.numberOfArtifacts++;
     }
 
     public Integer getNumberOfArtifacts() {
-        return this.artifacts.size();
+        return this.numberOfArtifacts;
+    }
+
+    public void setNumberOfArtifacts(Integer numberOfArtifacts) {
+        this.numberOfArtifacts = numberOfArtifacts;
     }
 
     public void removeAllArtifacts() {
         this.artifacts.stream().forEach(artifact -> artifact.setOwner(null));
         this.artifacts = new ArrayList<>();
-    }
-
-    public void removeArtifact(Artifact artifactToBeAssigned) {
-        artifactToBeAssigned.setOwner(null);
-        this.artifacts.remove(artifactToBeAssigned);
+        this.numberOfArtifacts = 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.ahmad.hogwartsartifactsonline.wizard;
+
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Periodically re-derives wizard.artifact_count from the artifact table, in case a write bypassed the Wizard helpers.
+    Every replica fires at the same time, so the run is claimed with a Redis key that is kept until it expires: a replica
+    whose clock is a little behind must not run it again. Without Redis every replica runs it; the repair only
+    touches drifted rows, so that costs work but no correctness.
+ */
+@Component
+public class WizardArtifactCountRepairJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WizardArtifactCountRepairJob.class);
+
+    static final String LOCK_KEY = "wizardArtifactCountRepair:lock";
+
+    private final WizardService wizardService;
+
+    private final RedisCacheClient redisCacheClient;
+
+    private final long lockTtlMillis;
+
+    public WizardArtifactCountRepairJob(WizardService wizardService, RedisCacheClient redisCacheClient,
+                                        @Value("${wizard.artifact-count-repair.lock-ttl:1h}") Duration lockTtl) {
+        this.wizardService = wizardService;
+        this.redisCacheClient = redisCacheClient;
+        this.lockTtlMillis = lockTtl.toMillis();
+    }
+
+    @Scheduled(cron = "${wizard.artifact-count-repair.cron:0 0 3 * * *}")
+    public void repair() {
+        if (!claimRun()) {
+            LOGGER.info("Artifact count repair is run by another replica");
+            return;
+        }
+        int updatedWizards = wizardService.recalculateNumberOfArtifacts();
+        LOGGER.info("Repaired artifact_count of {} wizards", updatedWizards);
+    }
+
+    private boolean claimRun() {
+        try {
+            return redisCacheClient.setIfAbsent(LOCK_KEY, UUID.randomUUID().toString(), lockTtlMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not claim the artifact count repair in Redis, running it anyway: {}", e.getMessage());
+            return true;
+        }
+    }
+}
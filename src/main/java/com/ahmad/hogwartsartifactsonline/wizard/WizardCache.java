@@ -0,0 +1,57 @@
+package com.ahmad.hogwartsartifactsonline.wizard;
+
+import com.ahmad.hogwartsartifactsonline.system.entitycache.EntityCache;
+import com.ahmad.hogwartsartifactsonline.system.entitycache.EntityCacheContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Cached wizards, without their artifacts collection (the DTOs only need the denormalized artifact count).
+ */
+@Component
+public class WizardCache extends EntityCache<WizardCache.WizardSnapshot> {
+
+    public WizardCache(EntityCacheContext context) {
+        super("wizard", WizardSnapshot.class, context);
+    }
+
+    /**
+     * Returns a detached copy of the cached wizard, or null on a miss.
+     */
+    public Wizard get(Integer wizardId) {
+        WizardSnapshot snapshot = getSnapshot(String.valueOf(wizardId));
+        return snapshot != null ? snapshot.toWizard() : null;
+    }
+
+    public void put(Wizard wizard, long generation) {
+        putSnapshot(String.valueOf(wizard.getId()), () -> WizardSnapshot.of(wizard), generation);
+    }
+
+    public void evict(Integer wizardId) {
+        evictSnapshot(String.valueOf(wizardId));
+    }
+
+    /**
+     * Drops changed wizards, after commit; the next read caches them again.
+     */
+    public void invalidate(Collection<Integer> wizardIds) {
+        invalidateSnapshots(wizardIds.stream().map(String::valueOf).toList());
+    }
+
+    public record WizardSnapshot(Integer id, String name, Integer numberOfArtifacts, Long version) {
+
+        static WizardSnapshot of(Wizard wizard) {
+            return new WizardSnapshot(wizard.getId(), wizard.getName(), wizard.getNumberOfArtifacts(), wizard.getVersion());
+        }
+
+        Wizard toWizard() {
+            Wizard wizard = new Wizard();
+            wizard.setId(id);
+            wizard.setName(name);
+            wizard.setNumberOfArtifacts(numberOfArtifacts);
+            wizard.setVersion(version);
+            return wizard;
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.ahmad.hogwartsartifactsonline.wizard;
 
+import com.ahmad.hogwartsartifactsonline.artifact.utils.ArtifactIds;
+import com.ahmad.hogwartsartifactsonline.system.ETags;
 import com.ahmad.hogwartsartifactsonline.system.Result;
 import com.ahmad.hogwartsartifactsonline.system.StatusCode;
+import com.ahmad.hogwartsartifactsonline.system.catalogversion.CatalogVersionService;
 import com.ahmad.hogwartsartifactsonline.wizard.converter.WizardDtoToWizardConverter;
 import com.ahmad.hogwartsartifactsonline.wizard.converter.WizardToWizardDtoConverter;
+import com.ahmad.hogwartsartifactsonline.wizard.dto.ArtifactAssignmentDto;
+import com.ahmad.hogwartsartifactsonline.wizard.dto.ArtifactAssignmentsDto;
 import com.ahmad.hogwartsartifactsonline.wizard.dto.WizardDto;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("${api.endpoint.base-url}/wizards")
@@ -17,16 +25,21 @@ public class WizardController {
     private final WizardService wizardService;
     private final WizardToWizardDtoConverter wizardToWizardDtoConverter;
     private final WizardDtoToWizardConverter wizardDtoToWizardConverter;
+    private final CatalogVersionService catalogVersionService;
 
-    public WizardController(WizardService wizardService, WizardToWizardDtoConverter wizardToWizardDtoConverter, WizardDtoToWizardConverter wizardDtoToWizardConverter) {
+    public WizardController(WizardService wizardService, WizardToWizardDtoConverter wizardToWizardDtoConverter, WizardDtoToWizardConverter wizardDtoToWizardConverter, CatalogVersionService catalogVersionService) {
         this.wizardService = wizardService;
         this.wizardToWizardDtoConverter = wizardToWizardDtoConverter;
         this.wizardDtoToWizardConverter = wizardDtoToWizardConverter;
+        this.catalogVersionService = catalogVersionService;
     }
 
 
     @GetMapping
-    public Result findAllWizard() {
+    public Result findAllWizard(ServletWebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, ETags.of("c", catalogVersionService.currentVersion()))) {
+            return null;
+        }
         List<Wizard> wizards = wizardService.findall();
         List<WizardDto> wizardDtos = wizards.stream()
                 .map(wizardToWizardDtoConverter::convert)
@@ -71,7 +84,23 @@ public class WizardController {
 
     @PutMapping("/{wizardId}/artifacts/{artifactId}")
     public Result assignArtifact(@PathVariable Integer wizardId, @PathVariable String artifactId) {
-        wizardService.assignArtifact(wizardId, artifactId);
+        wizardService.assignArtifact(wizardId, ArtifactIds.parse(artifactId));
         return new Result(true, StatusCode.SUCCESS, "Artifact Assignment Success");
     }
+
+    @PutMapping("/artifacts")
+    public Result assignArtifacts(@RequestBody @Valid ArtifactAssignmentsDto artifactAssignmentsDto) {
+        Map<Long, Integer> wizardIdsByArtifactId = new LinkedHashMap<>();
+        for (ArtifactAssignmentDto assignment : artifactAssignmentsDto.assignments()) {
+            wizardIdsByArtifactId.put(ArtifactIds.parse(assignment.artifactId()), assignment.wizardId());
+        }
+        int movedArtifacts = wizardService.assignArtifacts(wizardIdsByArtifactId);
+        return new Result(true, StatusCode.SUCCESS, "Artifact Assignment Success", movedArtifacts);
+    }
+
+    @PutMapping("/{wizardId}/artifacts/transfer/{targetWizardId}")
+    public Result transferArtifacts(@PathVariable Integer wizardId, @PathVariable Integer targetWizardId) {
+        int movedArtifacts = wizardService.transferArtifacts(wizardId, targetWizardId);
+        return new Result(true, StatusCode.SUCCESS, "Artifact Transfer Success", movedArtifacts);
+    }
 }
@@ -1,6 +1,37 @@
 package com.ahmad.hogwartsartifactsonline.wizard;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface WizardRepository extends JpaRepository<Wizard,Integer> {
+
+    // Only touches drifted rows, and bumps their version, so their ETags change.
+    @Modifying(clearAutomatically = true)
+    @Query("update versioned Wizard w set w.numberOfArtifacts = (select count(a) from Artifact a where a.owner = w) " +
+            "where w.numberOfArtifacts <> (select count(a) from Artifact a where a.owner = w)")
+    int recalculateNumberOfArtifacts();
+
+    // The same, restricted to the wizards a bulk reassignment touched.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Wizard w set w.numberOfArtifacts = (select count(a) from Artifact a where a.owner = w) " +
+            "where w.id in :ids and w.numberOfArtifacts <> (select count(a) from Artifact a where a.owner = w)")
+    int recalculateNumberOfArtifacts(@Param("ids") Collection<Integer> wizardIds);
+
+    // One atomic UPDATE instead of a read-modify-write of the entity, so concurrent assigns to one wizard cannot lose
+    // a change. Bumps the version, so the ETag changes.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Wizard w set w.numberOfArtifacts = w.numberOfArtifacts + :delta where w.id = :id")
+    int addToNumberOfArtifacts(@Param("id") Integer wizardId, @Param("delta") int delta);
+
+    @Query("select w.numberOfArtifacts from Wizard w where w.id = :id")
+    Optional<Integer> findNumberOfArtifactsById(@Param("id") Integer id);
+
+    @Query("select w.id from Wizard w where w.id in :ids")
+    List<Integer> findIdsByIdIn(@Param("ids") Collection<Integer> ids);
 }
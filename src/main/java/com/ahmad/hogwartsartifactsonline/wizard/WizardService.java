@@ -1,24 +1,53 @@
 package com.ahmad.hogwartsartifactsonline.wizard;
 
 import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
+import com.ahmad.hogwartsartifactsonline.artifact.ArtifactCache;
+import com.ahmad.hogwartsartifactsonline.artifact.ArtifactCatalogChangedEvent;
+import com.ahmad.hogwartsartifactsonline.artifact.ArtifactOwnership;
 import com.ahmad.hogwartsartifactsonline.artifact.ArtifactRepository;
 import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
 public class WizardService {
 
+    private static final int IN_LIST_SIZE = 1000;
+
+    private static final int MAX_ASSIGN_ATTEMPTS = 3;
+
+    // Above this many artifacts, a bulk reassignment evicts the whole artifact cache instead of listing the ids.
+    private static final int MAX_INVALIDATED_ARTIFACTS = 1000;
+
     private final WizardRepository wizardRepository;
     private final ArtifactRepository artifactRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final WizardCache wizardCache;
+    private final ArtifactCache artifactCache;
+    private final TransactionTemplate transactionTemplate;
 
 
-    public WizardService(WizardRepository wizardRepository, ArtifactRepository artifactRepository) {
+    public WizardService(WizardRepository wizardRepository, ArtifactRepository artifactRepository, ApplicationEventPublisher applicationEventPublisher, WizardCache wizardCache, ArtifactCache artifactCache, PlatformTransactionManager transactionManager) {
         this.wizardRepository = wizardRepository;
         this.artifactRepository = artifactRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.wizardCache = wizardCache;
+        this.artifactCache = artifactCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public List<Wizard> findall() {
@@ -27,12 +56,24 @@ public class WizardService {
 
 
     public Wizard add(Wizard wizard) {
-        return wizardRepository.save(wizard);
+        Wizard savedWizard = wizardRepository.save(wizard);
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent()); // Changes the wizard list.
+        return savedWizard;
     }
 
+    /**
+     * Read-through the {@link WizardCache}. A hit is a detached copy without its artifacts collection.
+     */
     public Wizard findById(Integer wizardId) {
-        return wizardRepository.findById(wizardId)
+        Wizard cachedWizard = wizardCache.get(wizardId);
+        if (cachedWizard != null) {
+            return cachedWizard;
+        }
+        long generation = wizardCache.generation();
+        Wizard wizard = wizardRepository.findById(wizardId)
                 .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
+        wizardCache.put(wizard, generation);
+        return wizard;
     }
 
     public Wizard update(Integer wizardId, Wizard update) {
@@ -41,31 +82,214 @@ public class WizardService {
 
         wizard.setName(update.getName());
 
-        return wizardRepository.save(wizard);
+        Wizard updatedWizard = wizardRepository.save(wizard);
+        wizardCache.invalidate(List.of(wizardId));
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent()); // Owner names are part of the catalog.
+        return updatedWizard;
     }
 
+    /**
+     * Deletes a wizard with one UPDATE that unassigns its artifacts and one DELETE, without loading the wizard or its
+     * artifacts, so the cost does not grow with the number of artifacts in the persistence context.
+     */
     public void deleteWizardById(Integer wizardId) {
-        Wizard wizardToBeDeleted = wizardRepository.findById(wizardId)
+        int numberOfArtifacts = wizardRepository.findNumberOfArtifactsById(wizardId)
                 .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
 
-        wizardToBeDeleted.removeAllArtifacts();
+        // The artifacts are kept, without an owner.
+        List<Long> unassignedArtifactIds = lockArtifactIdsOwnedBy(wizardId, numberOfArtifacts);
+        artifactRepository.removeOwner(wizardRepository.getReferenceById(wizardId));
+        wizardRepository.deleteAllByIdInBatch(List.of(wizardId));
 
-        wizardRepository.deleteById(wizardId);
+        invalidateArtifacts(unassignedArtifactIds);
+        wizardCache.evict(wizardId);
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent());
     }
 
-    public void assignArtifact(Integer wizardId, String artifactId) {
+    /**
+     * Moves one artifact. The owners' artifact counts are changed with atomic UPDATEs rather than through the loaded
+     * wizards, so neither artifacts collection is loaded.
+     * <p>
+     * If the artifact is changed concurrently, its optimistic lock fails on commit and the move is retried in a new
+     * transaction, up to {@value #MAX_ASSIGN_ATTEMPTS} times; a conflict that remains is answered with 409. Within a
+     * caller's transaction there is nothing to retry on its own, so the move simply takes part in it.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public void assignArtifact(Integer wizardId, Long artifactId) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            moveArtifact(wizardId, artifactId);
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> moveArtifact(wizardId, artifactId));
+                return;
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt == MAX_ASSIGN_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void moveArtifact(Integer wizardId, Long artifactId) {
         Artifact artifactToBeAssigned = artifactRepository.findById(artifactId)
                 .orElseThrow(() -> new ObjectNotFoundException("artifact", artifactId));
         Wizard wizard = wizardRepository.findById(wizardId)
                 .orElseThrow(() -> new ObjectNotFoundException("wizard", wizardId));
 
+        Wizard oldOwner = artifactToBeAssigned.getOwner();
+        if (oldOwner != null && oldOwner.getId().equals(wizardId)) {
+            return;
+        }
+        artifactToBeAssigned.setOwner(wizard);
+
+        // In wizard id order, so two opposite moves cannot deadlock on the wizard rows.
+        if (oldOwner != null && oldOwner.getId() < wizardId) {
+            wizardRepository.addToNumberOfArtifacts(oldOwner.getId(), -1);
+        }
+        wizardRepository.addToNumberOfArtifacts(wizardId, 1);
+        if (oldOwner != null && oldOwner.getId() > wizardId) {
+            wizardRepository.addToNumberOfArtifacts(oldOwner.getId(), -1);
+        }
+
+        // The UPDATEs bypassed the wizard entities, so drop the cached copies instead of writing them through.
+        wizardCache.invalidate(oldOwner != null ? List.of(oldOwner.getId(), wizardId) : List.of(wizardId));
+        artifactCache.invalidate(List.of(artifactId));
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent());
+    }
+
+    /**
+     * Moves many artifacts at once, as set-based UPDATEs in one transaction: neither the artifacts nor any wizard's
+     * artifacts collection is loaded. If an artifact appears more than once, the last assignment wins. Returns the
+     * number of artifacts that changed owner.
+     */
+    public int assignArtifacts(Map<Long, Integer> wizardIdsByArtifactId) {
+        if (wizardIdsByArtifactId.isEmpty()) {
+            return 0;
+        }
+        requireWizards(new HashSet<>(wizardIdsByArtifactId.values()));
+
+        // Only artifacts whose owner actually changes are updated, and only their old and new owners recounted.
+        Map<Integer, List<Long>> artifactIdsByNewOwner = new HashMap<>();
+        Set<Integer> affectedWizardIds = new HashSet<>();
+        Set<Long> foundArtifactIds = new HashSet<>();
+        for (List<Long> artifactIds : inChunks(wizardIdsByArtifactId.keySet())) {
+            for (ArtifactOwnership ownership : artifactRepository.findOwnershipsByIdIn(artifactIds)) {
+                foundArtifactIds.add(ownership.getId());
+                Integer newOwnerId = wizardIdsByArtifactId.get(ownership.getId());
+                if (!newOwnerId.equals(ownership.getOwnerId())) {
+                    artifactIdsByNewOwner.computeIfAbsent(newOwnerId, id -> new ArrayList<>()).add(ownership.getId());
+                    affectedWizardIds.add(newOwnerId);
+                    if (ownership.getOwnerId() != null) {
+                        affectedWizardIds.add(ownership.getOwnerId());
+                    }
+                }
+            }
+        }
+        wizardIdsByArtifactId.keySet().stream()
+                .filter(artifactId -> !foundArtifactIds.contains(artifactId))
+                .findFirst()
+                .ifPresent(artifactId -> {
+                    throw new ObjectNotFoundException("artifact", artifactId);
+                });
+
+        int movedArtifacts = 0;
+        List<Long> movedArtifactIds = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> entry : artifactIdsByNewOwner.entrySet()) {
+            Wizard newOwner = wizardRepository.getReferenceById(entry.getKey());
+            for (List<Long> artifactIds : inChunks(entry.getValue())) {
+                movedArtifacts += artifactRepository.assignOwner(artifactIds, newOwner);
+            }
+            movedArtifactIds.addAll(entry.getValue());
+        }
+        if (movedArtifacts > 0) {
+            afterBulkReassignment(movedArtifactIds, affectedWizardIds);
+        }
+        return movedArtifacts;
+    }
+
+    /**
+     * Moves every artifact of one wizard to another with a single UPDATE. Returns the number of artifacts moved.
+     */
+    public int transferArtifacts(Integer fromWizardId, Integer toWizardId) {
+        requireWizards(new HashSet<>(List.of(fromWizardId, toWizardId))); // Set.of rejects equal ids.
+        if (fromWizardId.equals(toWizardId)) {
+            return 0;
+        }
+
+        List<Long> movedArtifactIds = lockArtifactIdsOwnedBy(fromWizardId,
+                wizardRepository.findNumberOfArtifactsById(fromWizardId).orElse(0));
+        int movedArtifacts = artifactRepository.transferOwner(
+                wizardRepository.getReferenceById(fromWizardId), wizardRepository.getReferenceById(toWizardId));
+        if (movedArtifacts > 0) {
+            afterBulkReassignment(movedArtifactIds, Set.of(fromWizardId, toWizardId));
+        }
+        return movedArtifacts;
+    }
+
+    /**
+     * Re-derives every wizard's artifact_count from the artifact table, repairing any drift of the denormalized counter.
+     * Returns the number of wizards whose count had drifted.
+     */
+    public int recalculateNumberOfArtifacts() {
+        int repairedWizards = wizardRepository.recalculateNumberOfArtifacts();
+        if (repairedWizards > 0) {
+            wizardCache.evictAll(); // The bulk update bypassed the entities.
+            applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent());
+        }
+        return repairedWizards;
+    }
+
+    // The bulk UPDATEs bypassed the entities: recount the owners (bumping their versions) and drop the cached copies.
+    // movedArtifactIds is null when there were too many to list.
+    private void afterBulkReassignment(Collection<Long> movedArtifactIds, Collection<Integer> affectedWizardIds) {
+        for (List<Integer> wizardIds : inChunks(affectedWizardIds)) {
+            wizardRepository.recalculateNumberOfArtifacts(wizardIds);
+        }
+        invalidateArtifacts(movedArtifactIds);
+        wizardCache.invalidate(affectedWizardIds);
+        applicationEventPublisher.publishEvent(new ArtifactCatalogChangedEvent());
+    }
+
+    /*
+     * Returns the ids of a wizard's artifacts, locked until the end of the transaction, so an artifact assigned to the
+     * wizard concurrently cannot slip into the following bulk UPDATE without being invalidated. Returns null instead of
+     * reading them when the wizard owns more than the cache invalidates one by one.
+     */
+    private List<Long> lockArtifactIdsOwnedBy(Integer wizardId, int numberOfArtifacts) {
+        return numberOfArtifacts > MAX_INVALIDATED_ARTIFACTS ? null : artifactRepository.findIdsByOwnerIdForUpdate(wizardId);
+    }
 
-        if (artifactToBeAssigned.getOwner() != null) {
-            artifactToBeAssigned.getOwner().removeArtifact(artifactToBeAssigned);
+    private void invalidateArtifacts(Collection<Long> artifactIds) {
+        if (artifactIds == null) {
+            artifactCache.evictAll();
+        } else {
+            artifactCache.invalidate(artifactIds);
         }
+    }
 
-        wizard.addArtifact(artifactToBeAssigned);
+    private void requireWizards(Set<Integer> wizardIds) {
+        Set<Integer> existingWizardIds = new HashSet<>();
+        for (List<Integer> chunk : inChunks(wizardIds)) {
+            existingWizardIds.addAll(wizardRepository.findIdsByIdIn(chunk));
+        }
+        wizardIds.stream()
+                .filter(wizardId -> !existingWizardIds.contains(wizardId))
+                .findFirst()
+                .ifPresent(wizardId -> {
+                    throw new ObjectNotFoundException("wizard", wizardId);
+                });
+    }
 
+    // Keeps IN lists at a size every database accepts and plans well.
+    private static <T> List<List<T>> inChunks(Collection<T> values) {
+        List<T> list = List.copyOf(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_LIST_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + IN_LIST_SIZE, list.size())));
+        }
+        return chunks;
     }
 
 }
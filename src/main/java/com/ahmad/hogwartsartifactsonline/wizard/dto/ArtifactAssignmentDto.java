@@ -0,0 +1,11 @@
+package com.ahmad.hogwartsartifactsonline.wizard.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+public record ArtifactAssignmentDto(
+        @NotEmpty(message = "artifactId is required.")
+        String artifactId,
+        @NotNull(message = "wizardId is required.")
+        Integer wizardId) {
+}
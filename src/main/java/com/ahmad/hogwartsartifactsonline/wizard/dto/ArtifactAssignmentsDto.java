@@ -0,0 +1,13 @@
+package com.ahmad.hogwartsartifactsonline.wizard.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ArtifactAssignmentsDto(
+        @NotEmpty(message = "assignments are required.")
+        @Size(max = 10000, message = "at most 10000 assignments are allowed per request.")
+        List<@Valid ArtifactAssignmentDto> assignments) {
+}
@@ -0,0 +1,11 @@
+--
+-- Denormalized number of artifacts owned by each wizard, maintained by the application on assign/remove.
+--
+
+ALTER TABLE `wizard` ADD COLUMN `artifact_count` int NOT NULL DEFAULT 0;
+
+--
+-- Backfill the counter from the existing artifacts.
+--
+
+UPDATE `wizard` w SET w.`artifact_count` = (SELECT COUNT(*) FROM `artifact` a WHERE a.`owner_id` = w.`id`);
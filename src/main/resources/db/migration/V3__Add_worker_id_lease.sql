@@ -0,0 +1,10 @@
+--
+-- Snowflake worker ids leased by the running nodes, see WorkerIdLeaseService.
+--
+
+CREATE TABLE `worker_id_lease` (
+                                   `worker_id` int NOT NULL,
+                                   `owner` varchar(255) NOT NULL,
+                                   `expires_at` bigint NOT NULL,
+                                   PRIMARY KEY (`worker_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
@@ -0,0 +1,7 @@
+--
+-- Artifact ids are Snowflake numbers, store them as BIGINT instead of VARCHAR(255). This shrinks the clustered
+-- index and every secondary index that carries the primary key, and makes key compares numeric.
+-- MODIFY converts the existing values in place; it fails (and leaves the table untouched) if any id is not numeric.
+--
+
+ALTER TABLE `artifact` MODIFY COLUMN `id` bigint NOT NULL;
@@ -0,0 +1,19 @@
+--
+-- Optimistic lock versions, from which the ETags of GET /artifacts/{id} are derived.
+--
+
+ALTER TABLE `artifact` ADD COLUMN `version` bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE `wizard` ADD COLUMN `version` bigint NOT NULL DEFAULT 0;
+
+--
+-- Catalog-wide change counter, the ETag of the collection reads. See CatalogVersionService.
+--
+
+CREATE TABLE `catalog_version` (
+                                   `id` int NOT NULL,
+                                   `version` bigint NOT NULL,
+                                   PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `catalog_version` (`id`, `version`) VALUES (1, 0);
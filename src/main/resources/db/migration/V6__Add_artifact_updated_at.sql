@@ -0,0 +1,9 @@
+--
+-- Time of the last write of each artifact row, maintained by MySQL itself, so it also covers rows written by other
+-- replicas, JDBC batches or plain SQL. The search index scans the rows changed since it was last complete, see
+-- ArtifactSearchIndex.
+--
+
+ALTER TABLE `artifact`
+    ADD COLUMN `updated_at` timestamp(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    ADD INDEX `artifact_updated_at` (`updated_at`);
@@ -0,0 +1,56 @@
+package com.ahmad.hogwartsartifactsonline;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/*
+ * Timing and reporting shared by the opt-in benchmarks of src/test/java. Those measure whole code paths against a
+ * database, a Spring context or a stand-in upstream, where one run takes milliseconds to seconds. Anything finer
+ * belongs in src/jmh/java, where JMH takes care of warm-up, forks and dead code elimination (see JmhBenchmarks).
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    @FunctionalInterface
+    public interface Action {
+
+        void run() throws Exception;
+    }
+
+    public static long elapsedNanos(Action action) throws Exception {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the mean duration of {@code runs} runs, measured after {@code warmups} runs that are not.
+     */
+    public static long meanNanos(int warmups, int runs, Action action) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / runs;
+    }
+
+    /**
+     * Returns the given percentile (0 to 1) of sorted values, or 0 if there are none.
+     */
+    public static long percentile(long[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    /**
+     * Logs one line of results as the given benchmark, formatted the same on every machine.
+     */
+    public static void report(Class<?> benchmark, String format, Object... args) {
+        LoggerFactory.getLogger(benchmark).info(String.format(Locale.ROOT, format, args));
+    }
+}
@@ -0,0 +1,254 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import com.ahmad.hogwartsartifactsonline.system.entitycache.EntityCache;
+import com.ahmad.hogwartsartifactsonline.system.entitycache.EntityCacheContext;
+import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactCacheTest {
+
+    @Mock
+    RedisCacheClient redisCacheClient;
+
+    // Stands in for Redis, shared by two replicas.
+    Map<String, String> redis = new ConcurrentHashMap<>();
+
+    List<EntityCache<?>> subscribers = new ArrayList<>();
+
+    Replica replica1;
+
+    Replica replica2;
+
+    Artifact artifact;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisCacheClient.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        lenient().when(redisCacheClient.setIfAbsent(anyString(), anyString(), anyLong(), any()))
+                .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        lenient().doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(redisCacheClient).set(anyString(), anyString(), anyLong(), any());
+        // Delivers invalidations to every replica, like the subscriber does.
+        lenient().doAnswer(invocation -> {
+            String message = invocation.getArgument(1);
+            int separator = message.indexOf(':');
+            subscribers.stream()
+                    .filter(cache -> cache.getName().equals(message.substring(0, separator)))
+                    .forEach(cache -> cache.onInvalidation(message.substring(separator + 1)));
+            return null;
+        }).when(redisCacheClient).publish(anyString(), anyString());
+
+        replica1 = new Replica();
+        replica2 = new Replica();
+
+        Wizard owner = new Wizard();
+        owner.setId(1);
+        owner.setName("Albus Dumbledore");
+        owner.setNumberOfArtifacts(1);
+        owner.setVersion(0L);
+
+        artifact = new Artifact();
+        artifact.setId(1250808601744904191L);
+        artifact.setName("Deluminator");
+        artifact.setDescription("A Deluminator is a device invented by Albus Dumbledore.");
+        artifact.setImageUrl("ImageUrl");
+        artifact.setVersion(0L);
+        artifact.setOwner(owner);
+    }
+
+    @Test
+    void testHitReturnsDetachedCopyWithOwner() {
+        replica1.artifactCache.put(artifact, replica1.artifactCache.generation());
+
+        Artifact cached = replica1.artifactCache.get(artifact.getId());
+
+        assertThat(cached).isNotSameAs(artifact);
+        assertThat(cached.getName()).isEqualTo("Deluminator");
+        assertThat(cached.getVersion()).isEqualTo(0L);
+        assertThat(cached.getOwner().getName()).isEqualTo("Albus Dumbledore");
+        assertThat(cached.getOwner().getNumberOfArtifacts()).isEqualTo(1);
+    }
+
+    @Test
+    void testOtherReplicaReadsRedisTier() {
+        replica1.artifactCache.put(artifact, replica1.artifactCache.generation());
+
+        assertThat(replica2.artifactCache.get(artifact.getId()).getName()).isEqualTo("Deluminator");
+    }
+
+    @Test
+    void testUpdateInvalidatesEveryReplica() {
+        replica1.artifactCache.put(artifact, replica1.artifactCache.generation());
+        replica2.artifactCache.get(artifact.getId());
+
+        artifact.setName("Deluminator (repaired)");
+        artifact.setVersion(1L);
+        replica1.artifactCache.invalidate(List.of(artifact.getId()));
+
+        assertThat(replica1.artifactCache.get(artifact.getId())).isNull();
+        assertThat(replica2.artifactCache.get(artifact.getId())).isNull();
+
+        // The next read of the new row caches it again.
+        replica2.artifactCache.put(artifact, replica2.artifactCache.generation());
+        assertThat(replica2.artifactCache.get(artifact.getId()).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void testStaleReadDoesNotOverwriteUpdate() {
+        replica1.wizardCache.put(artifact.getOwner(), replica1.wizardCache.generation());
+        long generation = replica2.artifactCache.generation(); // Replica 2 reads the old row...
+        Artifact staleArtifact = copyOf(artifact);
+
+        artifact.setName("Deluminator (repaired)");
+        replica1.artifactCache.invalidate(List.of(artifact.getId())); // ...while replica 1 commits an update.
+
+        replica2.artifactCache.put(staleArtifact, generation);
+
+        assertThat(replica1.artifactCache.get(artifact.getId())).isNull();
+        assertThat(replica2.artifactCache.get(artifact.getId())).isNull();
+    }
+
+    @Test
+    void testUpdatesNeverWriteSnapshotsToRedis() {
+        artifact.setName("Deluminator (repaired)");
+        replica1.artifactCache.invalidate(List.of(artifact.getId()));
+        artifact.setName("Deluminator (repaired twice)");
+        replica2.artifactCache.invalidate(List.of(artifact.getId()));
+
+        // Whichever update reaches Redis last, it leaves a tombstone rather than its own, possibly older, row.
+        assertThat(redis).containsOnlyKeys("entityCache:artifact:" + artifact.getId());
+        assertThat(redis).containsValue("-");
+    }
+
+    @Test
+    void testUnreadableEntryIsAMissAndIsDeleted() {
+        String key = "entityCache:artifact:" + artifact.getId();
+        redis.put(key, "{\"id\":");
+        lenient().when(redisCacheClient.deleteIfEquals(anyString(), anyString()))
+                .thenAnswer(invocation -> redis.remove(invocation.getArgument(0), invocation.getArgument(1)));
+
+        assertThat(replica2.artifactCache.get(artifact.getId())).isNull();
+        assertThat(redis).doesNotContainKey(key);
+    }
+
+    @Test
+    void testEntryWithUnknownFieldIsRead() {
+        replica1.artifactCache.put(artifact, replica1.artifactCache.generation());
+        String key = "entityCache:wizard:" + artifact.getOwner().getId();
+        redis.put(key, redis.get(key).replace("{", "{\"title\":\"Headmaster\","));
+
+        assertThat(replica2.artifactCache.get(artifact.getId()).getOwner().getName()).isEqualTo("Albus Dumbledore");
+    }
+
+    @Test
+    void testDeleteLeavesTombstone() {
+        long generation = replica2.artifactCache.generation();
+        Artifact staleArtifact = copyOf(artifact);
+
+        replica1.artifactCache.evict(artifact.getId());
+        replica2.artifactCache.put(staleArtifact, generation);
+
+        assertThat(replica1.artifactCache.get(artifact.getId())).isNull();
+        assertThat(replica2.artifactCache.get(artifact.getId())).isNull();
+    }
+
+    @Test
+    void testOwnerChangeIsVisibleThroughArtifact() {
+        replica1.artifactCache.put(artifact, replica1.artifactCache.generation());
+
+        artifact.getOwner().setNumberOfArtifacts(0);
+        replica1.wizardCache.invalidate(List.of(artifact.getOwner().getId()));
+
+        // The artifact entry stays, but is only a hit together with the owner's current row.
+        assertThat(replica2.artifactCache.get(artifact.getId())).isNull();
+        replica2.wizardCache.put(artifact.getOwner(), replica2.wizardCache.generation());
+        assertThat(replica2.artifactCache.get(artifact.getId()).getOwner().getNumberOfArtifacts()).isEqualTo(0);
+    }
+
+    @Test
+    void testBulkInvalidationDropsEntriesOnEveryReplica() {
+        replica1.artifactCache.put(artifact, replica1.artifactCache.generation());
+        replica2.artifactCache.get(artifact.getId());
+
+        replica1.artifactCache.invalidate(List.of(artifact.getId()));
+
+        assertThat(replica1.artifactCache.get(artifact.getId())).isNull();
+        assertThat(replica2.artifactCache.get(artifact.getId())).isNull();
+    }
+
+    @Test
+    void testBulkInvalidationKeepsOtherEntriesOnEveryReplica() {
+        Artifact other = copyOf(artifact);
+        other.setId(1250808601744904192L);
+        Artifact unchanged = copyOf(artifact);
+        unchanged.setId(1250808601744904193L);
+        for (Artifact cached : List.of(artifact, other, unchanged)) {
+            replica1.artifactCache.put(cached, replica1.artifactCache.generation());
+            replica2.artifactCache.get(cached.getId());
+        }
+        redis.remove("entityCache:artifact:" + unchanged.getId());
+
+        replica1.artifactCache.invalidate(List.of(artifact.getId(), other.getId()));
+
+        assertThat(replica2.artifactCache.get(artifact.getId())).isNull();
+        assertThat(replica2.artifactCache.get(other.getId())).isNull();
+        // Only in replica 2's local tier now, so a hit proves the invalidation did not clear it.
+        assertThat(replica2.artifactCache.get(unchanged.getId())).isNotNull();
+    }
+
+    @Test
+    void testRedisErrorIsAMiss() {
+        doThrow(new IllegalStateException("Redis is down")).when(redisCacheClient).get(anyString());
+
+        assertThat(replica2.artifactCache.get(artifact.getId())).isNull();
+    }
+
+    private static Artifact copyOf(Artifact artifact) {
+        Artifact copy = new Artifact();
+        copy.setId(artifact.getId());
+        copy.setName(artifact.getName());
+        copy.setDescription(artifact.getDescription());
+        copy.setImageUrl(artifact.getImageUrl());
+        copy.setVersion(artifact.getVersion());
+        copy.setOwner(artifact.getOwner());
+        return copy;
+    }
+
+    private class Replica {
+
+        final WizardCache wizardCache;
+
+        final ArtifactCache artifactCache;
+
+        Replica() {
+            EntityCacheContext context = new EntityCacheContext(true, true, Duration.ofMinutes(5), 100, Duration.ofHours(1), Duration.ofSeconds(10),
+                    redisCacheClient, new SimpleMeterRegistry());
+            context.setSubscribed(true);
+            wizardCache = new WizardCache(context);
+            artifactCache = new ArtifactCache(context, wizardCache);
+            subscribers.add(wizardCache);
+            subscribers.add(artifactCache);
+        }
+    }
+}
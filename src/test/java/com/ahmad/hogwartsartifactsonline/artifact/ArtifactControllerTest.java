@@ -1,9 +1,15 @@
 package com.ahmad.hogwartsartifactsonline.artifact;
 
 import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactDto;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactImportResult;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactSummaryJob;
 import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageVariants;
 import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import com.ahmad.hogwartsartifactsonline.system.CursorCodec;
 import com.ahmad.hogwartsartifactsonline.system.StatusCode;
+import com.ahmad.hogwartsartifactsonline.system.catalogversion.CatalogVersionService;
+import com.ahmad.hogwartsartifactsonline.system.exception.ImageUploadCapacityExceededException;
 import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
@@ -15,28 +21,49 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ArtifactController.class)
+@Import(ArtifactSummaryStreamer.class)
 @AutoConfigureMockMvc(addFilters = false)
 @ActiveProfiles(value = "dev")
 class ArtifactControllerTest {
@@ -56,6 +83,18 @@ class ArtifactControllerTest {
     @MockitoBean
     ArtifactService artifactService;
 
+    @MockitoBean
+    ArtifactSummaryCache artifactSummaryCache;
+
+    @MockitoBean
+    ArtifactSummaryJobService artifactSummaryJobService;
+
+    @MockitoBean
+    CatalogVersionService catalogVersionService;
+
+    @MockitoBean
+    ArtifactImportService artifactImportService;
+
     List<Artifact> artifacts;
 
     @Value("${api.endpoint.base-url}")
@@ -66,42 +105,42 @@ class ArtifactControllerTest {
 
         this.artifacts = new ArrayList<>();
         Artifact a1 = new Artifact();
-        a1.setId("1250808601744904191");
+        a1.setId(1250808601744904191L);
         a1.setName("Deluminator");
         a1.setDescription("A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user.");
         a1.setImageUrl("ImageUrl");
         this.artifacts.add(a1);
 
         Artifact a2 = new Artifact();
-        a2.setId("1250808601744904192");
+        a2.setId(1250808601744904192L);
         a2.setName("Invisibility Cloak");
         a2.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a2.setImageUrl("ImageUrl");
         this.artifacts.add(a2);
 
         Artifact a3 = new Artifact();
-        a3.setId("1250808601744904193");
+        a3.setId(1250808601744904193L);
         a3.setName("Elder Wand");
         a3.setDescription("The Elder Wand, known throughout history as the Deathstick or the Wand of Destiny, is an extremely powerful wand made of elder wood with a core of Thestral tail hair.");
         a3.setImageUrl("ImageUrl");
         this.artifacts.add(a3);
 
         Artifact a4 = new Artifact();
-        a4.setId("1250808601744904194");
+        a4.setId(1250808601744904194L);
         a4.setName("The Marauder's Map");
         a4.setDescription("A magical map of Hogwarts created by Remus Lupin, Peter Pettigrew, Sirius Black, and James Potter while they were students at Hogwarts.");
         a4.setImageUrl("ImageUrl");
         this.artifacts.add(a4);
 
         Artifact a5 = new Artifact();
-        a5.setId("1250808601744904195");
+        a5.setId(1250808601744904195L);
         a5.setName("The Sword Of Gryffindor");
         a5.setDescription("A goblin-made sword adorned with large rubies on the pommel. It was once owned by Godric Gryffindor, one of the medieval founders of Hogwarts.");
         a5.setImageUrl("ImageUrl");
         this.artifacts.add(a5);
 
         Artifact a6 = new Artifact();
-        a6.setId("1250808601744904196");
+        a6.setId(1250808601744904196L);
         a6.setName("Resurrection Stone");
         a6.setDescription("The Resurrection Stone allows the holder to bring back deceased loved ones, in a semi-physical form, and communicate with them.");
         a6.setImageUrl("ImageUrl");
@@ -115,7 +154,7 @@ class ArtifactControllerTest {
     @Test
     void testFindArtifactByIdSuccess() throws Exception {
 
-        given(artifactService.findArtifactById("1250808601744904191")).willReturn(artifacts.get(0));
+        given(artifactService.findArtifactById(1250808601744904191L)).willReturn(artifacts.get(0));
 
         mvc.perform(
                         get(baseUrl + "/artifacts/1250808601744904191")
@@ -126,15 +165,32 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.code").value(200))
                 .andExpect(jsonPath("$.message").value("Find One Success"))
                 .andExpect(jsonPath("$.data.id").value("1250808601744904191"))
-                .andExpect(jsonPath("$.data.name").value("Deluminator"));
+                .andExpect(jsonPath("$.data.name").value("Deluminator"))
+                .andExpect(jsonPath("$.data.imageVariantUrls").doesNotExist());
 
     }
 
+    @Test
+    void testFindArtifactByIdWithImageVariants() throws Exception {
+        String imageName = "0123456789abcdef".repeat(4);
+        Artifact artifact = artifacts.get(0);
+        artifact.setImageUrl("https://blob.local/images/" + imageName + ".jpg");
+        given(artifactService.findArtifactById(1250808601744904191L)).willReturn(artifact);
+        given(imageStorageClient.findImageVariantUrls(artifact.getImageUrl())).willReturn(ImageVariants.variantUrls(artifact.getImageUrl()));
+
+        mvc.perform(get(baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data.imageUrl").value("https://blob.local/images/" + imageName + ".jpg"))
+                .andExpect(jsonPath("$.data.imageVariantUrls.64").value("https://blob.local/images/" + imageName + "-64.jpg"))
+                .andExpect(jsonPath("$.data.imageVariantUrls.256").value("https://blob.local/images/" + imageName + "-256.jpg"))
+                .andExpect(jsonPath("$.data.imageVariantUrls.1024").value("https://blob.local/images/" + imageName + "-1024.jpg"));
+    }
+
 
     @Test
     void testFindArtifactByIdNotFound() throws Exception {
 
-        given(artifactService.findArtifactById("125")).willThrow(new ObjectNotFoundException("artifact", 125));
+        given(artifactService.findArtifactById(125L)).willThrow(new ObjectNotFoundException("artifact", 125));
 
         mvc.perform(
                         get(baseUrl + "/artifacts/125")
@@ -150,6 +206,63 @@ class ArtifactControllerTest {
 
     }
 
+    @Test
+    void testFindArtifactByIdNotANumber() throws Exception {
+        // Ids stay strings in the API; one that is not a number cannot exist.
+        mvc.perform(get(baseUrl + "/artifacts/abc").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.NOT_FOUND))
+                .andExpect(jsonPath("$.message").value("Could not find artifact With Id abc :("));
+    }
+
+    @Test
+    void testFindArtifactByIdSetsETag() throws Exception {
+        given(artifactService.findArtifactById(1250808601744904191L)).willReturn(artifacts.get(0));
+        given(artifactService.eTag(artifacts.get(0))).willReturn("a-3-x");
+
+        mvc.perform(get(baseUrl + "/artifacts/1250808601744904191").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"a-3-x\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void testFindArtifactByIdNotModified() throws Exception {
+        given(artifactService.findETagById(1250808601744904191L)).willReturn("a-3-x");
+
+        mvc.perform(get(baseUrl + "/artifacts/1250808601744904191").header("If-None-Match", "\"a-3-x\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"a-3-x\""))
+                .andExpect(content().string(""));
+
+        // Answered from the versions alone.
+        verify(artifactService, never()).findArtifactById(any());
+    }
+
+    @Test
+    void testFindArtifactByIdModifiedSinceETag() throws Exception {
+        given(artifactService.findETagById(1250808601744904191L)).willReturn("a-4-x");
+        given(artifactService.findArtifactById(1250808601744904191L)).willReturn(artifacts.get(0));
+        given(artifactService.eTag(artifacts.get(0))).willReturn("a-4-x");
+
+        mvc.perform(get(baseUrl + "/artifacts/1250808601744904191").header("If-None-Match", "\"a-3-x\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"a-4-x\""))
+                .andExpect(jsonPath("$.data.name").value("Deluminator"));
+    }
+
+    @Test
+    void testFindAllArtifactsNotModified() throws Exception {
+        given(catalogVersionService.currentVersion()).willReturn(7L);
+
+        mvc.perform(get(baseUrl + "/artifacts").header("If-None-Match", "\"c-7\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"c-7\""));
+
+        verify(artifactService, never()).findAll(any(Pageable.class));
+    }
+
     @Test
     void testFindAllArtifactsSuccess() throws Exception {
 
@@ -179,6 +292,103 @@ class ArtifactControllerTest {
     }
 
 
+    @Test
+    void testFindAllArtifactsByKeysetSuccess() throws Exception {
+
+        SliceImpl<Artifact> artifactSlice = new SliceImpl<>(artifacts.subList(0, 2), PageRequest.of(0, 2), true);
+        given(artifactService.findAll(1250808601744904190L, 2)).willReturn(artifactSlice);
+
+        mvc.perform(
+                        get(baseUrl + "/artifacts")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .param("pagination", "keyset")
+                                .param("cursor", CursorCodec.encode("1250808601744904190"))
+                                .param("size", "2")
+                )
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Find All Success"))
+                .andExpect(jsonPath("$.data.content", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.data.content[1].id").value("1250808601744904192"))
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andExpect(jsonPath("$.data.nextCursor").value(CursorCodec.encode("1250808601744904192")))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist());
+    }
+
+    @Test
+    void testFindAllArtifactsByKeysetLastSlice() throws Exception {
+
+        SliceImpl<Artifact> artifactSlice = new SliceImpl<>(artifacts, PageRequest.of(0, 20), false);
+        given(artifactService.findAll(null, 20)).willReturn(artifactSlice);
+
+        mvc.perform(
+                        get(baseUrl + "/artifacts")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .param("pagination", "keyset")
+                )
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data.content", Matchers.hasSize(artifacts.size())))
+                .andExpect(jsonPath("$.data.hasNext").value(false))
+                .andExpect(jsonPath("$.data.nextCursor").isEmpty());
+    }
+
+    @Test
+    void testFindAllArtifactsByKeysetSizeIsBoundedLikePageable() throws Exception {
+
+        given(artifactService.findAll(isNull(), anyInt())).willReturn(new SliceImpl<>(List.of()));
+
+        for (String size : List.of("0", "-1", String.valueOf(Integer.MAX_VALUE))) {
+            mvc.perform(
+                            get(baseUrl + "/artifacts")
+                                    .accept(MediaType.APPLICATION_JSON)
+                                    .param("pagination", "keyset")
+                                    .param("size", size)
+                    )
+                    .andExpect(jsonPath("$.flag").value(true))
+                    .andExpect(jsonPath("$.data.hasNext").value(false));
+        }
+
+        verify(artifactService, times(2)).findAll(null, 20);
+        verify(artifactService, times(1)).findAll(null, 2000);
+    }
+
+    @Test
+    void testFindAllArtifactsByKeysetWithInvalidCursor() throws Exception {
+
+        mvc.perform(
+                        get(baseUrl + "/artifacts")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .param("pagination", "keyset")
+                                .param("cursor", "not*base64")
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.message").value("The provided cursor not*base64 is invalid."));
+    }
+
+    @Test
+    void testFindArtifactsByCriteriaByKeysetSuccess() throws Exception {
+
+        Map<String, String> searchCriteria = Map.of("description", "Hogwarts");
+        SliceImpl<Artifact> artifactSlice = new SliceImpl<>(artifacts.subList(3, 5), PageRequest.of(0, 2), false);
+        given(artifactService.findByCriteria(searchCriteria, null, 2)).willReturn(artifactSlice);
+
+        mvc.perform(
+                        post(baseUrl + "/artifacts/search")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .param("pagination", "keyset")
+                                .param("size", "2")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(searchCriteria))
+                )
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Search Success"))
+                .andExpect(jsonPath("$.data.content", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$.data.hasNext").value(false));
+    }
+
     @Test
     void testAddArtifactSuccess() throws Exception {
 
@@ -187,7 +397,7 @@ class ArtifactControllerTest {
         String json = objectMapper.writeValueAsString(artifactDto);
 
         Artifact savedArtifact = new Artifact();
-        savedArtifact.setId("123456789");
+        savedArtifact.setId(123456789L);
         savedArtifact.setName("Remembrall");
         savedArtifact.setDescription("Des");
         savedArtifact.setImageUrl("imageUrl");
@@ -219,12 +429,12 @@ class ArtifactControllerTest {
         ArtifactDto artifactDto = new ArtifactDto(null, "new artifact", "new des", "imageUrl", null);
 
         Artifact artifact = new Artifact();
-        artifact.setId("123");
+        artifact.setId(123L);
         artifact.setName("new artifact");
         artifact.setDescription("new des");
         artifact.setImageUrl("imageUrl");
 
-        given(artifactService.update(eq("123"), Mockito.any(Artifact.class))).willReturn(artifact);
+        given(artifactService.update(eq(123L), Mockito.any(Artifact.class))).willReturn(artifact);
 
         String json = objectMapper.writeValueAsString(artifactDto);
 
@@ -248,7 +458,7 @@ class ArtifactControllerTest {
     void testUpdateArtifactErrorWithNotExistId() throws Exception {
 
         ArtifactDto artifactDto = new ArtifactDto(null, "new artifact", "new des", "imageUrl", null);
-        given(artifactService.update(eq("123"), Mockito.any(Artifact.class)))
+        given(artifactService.update(eq(123L), Mockito.any(Artifact.class)))
                 .willThrow(new ObjectNotFoundException("artifact", 123));
 
 
@@ -269,7 +479,7 @@ class ArtifactControllerTest {
     @Test
     void testDeleteArtifactSuccess() throws Exception {
 
-        doNothing().when(artifactService).delete("1");
+        doNothing().when(artifactService).delete(1L);
 
         mvc.perform(
                         delete(baseUrl + "/artifacts/1")
@@ -286,7 +496,7 @@ class ArtifactControllerTest {
     @Test
     void testDeleteArtifactErrorWithNotExistId() throws Exception {
 
-        doThrow(new ObjectNotFoundException("artifact", 2)).when(artifactService).delete("2");
+        doThrow(new ObjectNotFoundException("artifact", 2)).when(artifactService).delete(2L);
 
         mvc.perform(
                         delete(baseUrl + "/artifacts/2")
@@ -301,7 +511,7 @@ class ArtifactControllerTest {
 
     @Test
     void testSummarizeArtifactsSuccess() throws Exception {
-        given(artifactService.summarize(Mockito.anyList())).willReturn("The summary includes six artifacts, owned by three different wizards.");
+        given(artifactSummaryCache.getSummary()).willReturn("The summary includes six artifacts, owned by three different wizards.");
 
         mvc.perform(get(this.baseUrl + "/artifacts/summary").accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.flag").value(true))
@@ -310,4 +520,127 @@ class ArtifactControllerTest {
                 .andExpect(jsonPath("$.data").value("The summary includes six artifacts, owned by three different wizards."));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testStreamArtifactSummarySuccess() throws Exception {
+        willAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(0);
+            onToken.accept("Six artifacts, ");
+            onToken.accept("owned by three wizards.");
+            return null;
+        }).given(artifactSummaryCache).streamSummary(any());
+
+        MvcResult mvcResult = mvc.perform(get(this.baseUrl + "/artifacts/summary").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvcResult.getAsyncResult(5000);
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo(
+                "event:token\ndata:Six artifacts, \n\n" +
+                "event:token\ndata:owned by three wizards.\n\n" +
+                "event:done\ndata:\n\n");
+    }
+
+    @Test
+    void testStreamArtifactSummaryError() throws Exception {
+        willThrow(new IllegalStateException("Model unavailable")).given(artifactSummaryCache).streamSummary(any());
+
+        MvcResult mvcResult = mvc.perform(get(this.baseUrl + "/artifacts/summary").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvcResult.getAsyncResult(5000);
+
+        assertThat(mvcResult.getResponse().getContentAsString())
+                .isEqualTo("event:error\ndata:Could not generate the artifact summary\n\n");
+    }
+
+    @Test
+    void testSubmitArtifactSummaryJobSuccess() throws Exception {
+        given(artifactSummaryJobService.submit()).willReturn(ArtifactSummaryJob.pending("job-1"));
+
+        mvc.perform(post(this.baseUrl + "/artifacts/summary/jobs").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Submit Summary Job Success"))
+                .andExpect(jsonPath("$.data.id").value("job-1"))
+                .andExpect(jsonPath("$.data.status").value("PENDING"));
+    }
+
+    @Test
+    void testFindArtifactSummaryJobSuccess() throws Exception {
+        given(artifactSummaryJobService.findById("job-1")).willReturn(ArtifactSummaryJob.pending("job-1").succeeded("Six artifacts."));
+
+        mvc.perform(get(this.baseUrl + "/artifacts/summary/jobs/job-1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Find Summary Job Success"))
+                .andExpect(jsonPath("$.data.status").value("SUCCEEDED"))
+                .andExpect(jsonPath("$.data.summary").value("Six artifacts."));
+    }
+
+    @Test
+    void testFindArtifactSummaryJobNotFound() throws Exception {
+        given(artifactSummaryJobService.findById("unknown")).willThrow(new ObjectNotFoundException("summary job", "unknown"));
+
+        mvc.perform(get(this.baseUrl + "/artifacts/summary/jobs/unknown").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.NOT_FOUND))
+                .andExpect(jsonPath("$.message").value("Could not find summary job With Id unknown :("))
+                .andExpect(jsonPath("$.data").isEmpty());
+    }
+
+    @Test
+    void testImportArtifactsSuccess() throws Exception {
+        given(artifactImportService.importJsonArray(any())).willReturn(new ArtifactImportResult(2, 1,
+                List.of(new ArtifactImportResult.RowFailure(2, "name is required."))));
+
+        mvc.perform(post(this.baseUrl + "/artifacts/import").contentType(MediaType.APPLICATION_JSON).content("[]").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Import Success"))
+                .andExpect(jsonPath("$.data.imported").value(2))
+                .andExpect(jsonPath("$.data.failed").value(1))
+                .andExpect(jsonPath("$.data.failures[0].row").value(2))
+                .andExpect(jsonPath("$.data.failures[0].message").value("name is required."));
+    }
+
+    @Test
+    void testImportArtifactsFromNdjsonSuccess() throws Exception {
+        given(artifactImportService.importNdjson(any())).willReturn(new ArtifactImportResult(1, 0, List.of()));
+
+        mvc.perform(post(this.baseUrl + "/artifacts/import").contentType(MediaType.APPLICATION_NDJSON).content("{}\n").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data.imported").value(1));
+        verify(artifactImportService, never()).importJsonArray(any());
+    }
+
+    @Test
+    void testUploadImageSuccess() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "wand.jpg", MediaType.IMAGE_JPEG_VALUE, new byte[]{1, 2, 3});
+        given(imageStorageClient.uploadImageAsync(eq("images"), eq("wand.jpg"), any(), eq(3L)))
+                .willReturn(CompletableFuture.completedFuture("https://images/wand.jpg"));
+
+        MvcResult mvcResult = mvc.perform(multipart(this.baseUrl + "/artifacts/images").file(file).param("containerName", "images"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Upload Image Success"))
+                .andExpect(jsonPath("$.data").value("https://images/wand.jpg"));
+    }
+
+    @Test
+    void testUploadImageCapacityExceeded() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "wand.jpg", MediaType.IMAGE_JPEG_VALUE, new byte[]{1, 2, 3});
+        given(imageStorageClient.uploadImageAsync(any(), any(), any(), Mockito.anyLong())).willThrow(new ImageUploadCapacityExceededException());
+
+        mvc.perform(multipart(this.baseUrl + "/artifacts/images").file(file).param("containerName", "images"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.SERVICE_UNAVAILABLE))
+                .andExpect(jsonPath("$.message").value("Too many image uploads are in progress, please try again later."));
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageVariantsStoredEvent;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Tests for conditional artifact reads")
+@ActiveProfiles(value = "dev")
+class ArtifactETagTest {
+
+    // The Deluminator, owned by Albus Dumbledore.
+    static final String ARTIFACT_ID = "1250808601744904191";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    WizardService wizardService;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testRevalidationOnlyReadsVersions() throws Exception {
+        String eTag = eTagOf(baseUrl + "/artifacts/" + ARTIFACT_ID);
+
+        entityManager.clear();
+        statistics.clear();
+        mvc.perform(get(baseUrl + "/artifacts/" + ARTIFACT_ID).header("If-None-Match", eTag).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        // One select of the artifact and owner versions, no entity loads.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(0);
+    }
+
+    @Test
+    @WithMockUser
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // The catalog version changes once the move has committed.
+    void testAssigningArtifactChangesETags() throws Exception {
+        String artifactETag = eTagOf(baseUrl + "/artifacts/" + ARTIFACT_ID);
+        String artifactsETag = eTagOf(baseUrl + "/artifacts");
+        String wizardsETag = eTagOf(baseUrl + "/wizards");
+
+        // Neville Longbottom's artifact count, and with it the Deluminator's owner, changes.
+        wizardService.assignArtifact(3, Long.valueOf(ARTIFACT_ID));
+        try {
+            assertThat(eTagOf(baseUrl + "/artifacts/" + ARTIFACT_ID, artifactETag)).isNotEqualTo(artifactETag);
+            assertThat(eTagOf(baseUrl + "/artifacts", artifactsETag)).isNotEqualTo(artifactsETag);
+            assertThat(eTagOf(baseUrl + "/wizards", wizardsETag)).isNotEqualTo(wizardsETag);
+        } finally {
+            wizardService.assignArtifact(1, Long.valueOf(ARTIFACT_ID)); // Back to Albus Dumbledore.
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // The catalog version changes in a transaction of its own.
+    void testStoredImageVariantsChangeCollectionETag() throws Exception {
+        String artifactsETag = eTagOf(baseUrl + "/artifacts");
+
+        applicationEventPublisher.publishEvent(new ImageVariantsStoredEvent("https://blob.local/images/wand.jpg"));
+
+        assertThat(eTagOf(baseUrl + "/artifacts", artifactsETag)).isNotEqualTo(artifactsETag);
+    }
+
+    private String eTagOf(String url) throws Exception {
+        return mvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+    }
+
+    // A conditional read with a stale ETag gets the full response and the new ETag.
+    private String eTagOf(String url, String staleETag) throws Exception {
+        return mvc.perform(get(url).header("If-None-Match", staleETag).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+    }
+}
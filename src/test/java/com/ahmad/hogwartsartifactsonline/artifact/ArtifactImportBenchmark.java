@@ -0,0 +1,72 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactImportResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Rows per second of the bulk import (NDJSON, chunked, JDBC batched) versus one ArtifactService.save per row, as
+ * repeated POST /artifacts calls do. H2 in memory, so the absolute numbers flatter both; the ratio is what matters.
+ * Opt-in: mvn test -Dbenchmark=true -Dtest=ArtifactImportBenchmark
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark for the bulk artifact import")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles(value = "dev")
+class ArtifactImportBenchmark {
+
+    private static final int SINGLE_ROWS = 5_000;
+
+    private static final int IMPORTED_ROWS = 200_000;
+
+    @Autowired
+    ArtifactService artifactService;
+
+    @Autowired
+    ArtifactImportService artifactImportService;
+
+    @Test
+    void benchmarkImportVersusSingleSaves() throws Exception {
+        saveOneByOne(SINGLE_ROWS / 10); // Warm up.
+        double singleRowsPerSecond = SINGLE_ROWS / (Benchmarks.elapsedNanos(() -> saveOneByOne(SINGLE_ROWS)) / 1e9);
+
+        importRows(IMPORTED_ROWS / 10); // Warm up.
+        ArtifactImportResult[] result = new ArtifactImportResult[1];
+        double importedRowsPerSecond = IMPORTED_ROWS / (Benchmarks.elapsedNanos(() -> result[0] = importRows(IMPORTED_ROWS)) / 1e9);
+
+        assertThat(result[0].imported()).isEqualTo(IMPORTED_ROWS);
+        Benchmarks.report(ArtifactImportBenchmark.class, "single saves=%.0f rows/s bulk import=%.0f rows/s", singleRowsPerSecond, importedRowsPerSecond);
+    }
+
+    private void saveOneByOne(int rows) {
+        for (int i = 0; i < rows; i++) {
+            Artifact artifact = new Artifact();
+            artifact.setName("Artifact " + i);
+            artifact.setDescription("Description " + i);
+            artifact.setImageUrl("ImageUrl");
+            artifactService.save(artifact);
+        }
+    }
+
+    private ArtifactImportResult importRows(int rows) throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            ndjson.append("{\"name\": \"Artifact ").append(i)
+                    .append("\", \"description\": \"Description ").append(i)
+                    .append("\", \"imageUrl\": \"ImageUrl\"}\n");
+        }
+        return artifactImportService.importNdjson(new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,126 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactImportResult;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "artifact.import.chunk-size=100",
+        "artifact.import.max-reported-failures=2"})
+@Transactional
+@DisplayName("Tests for the bulk artifact import")
+@ActiveProfiles(value = "dev")
+class ArtifactImportServiceTest {
+
+    @Autowired
+    ArtifactImportService artifactImportService;
+
+    @Autowired
+    ArtifactRepository artifactRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testJsonArrayIsInsertedInBatches() throws Exception {
+        long before = artifactRepository.count();
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 250; i++) {
+            json.add(artifactJson("Artifact " + i));
+        }
+        statistics.clear();
+
+        ArtifactImportResult result = artifactImportService.importJsonArray(stream(json.toString()));
+
+        assertThat(result.imported()).isEqualTo(250);
+        assertThat(result.failed()).isEqualTo(0);
+        // Three chunks of at most 100 rows, one JDBC batch each, plus the catalog version bump of each chunk.
+        assertThat(statistics.getEntityStatistics(Artifact.class.getName()).getInsertCount()).isEqualTo(250);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 * 3);
+        // Saved artifacts do not stay in the persistence context.
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isLessThanOrEqualTo(1);
+        assertThat(artifactRepository.count()).isEqualTo(before + 250);
+    }
+
+    @Test
+    void testInvalidRowsAreReportedAndSkipped() throws Exception {
+        String json = "[" + artifactJson("Artifact 1") + ","
+                + "{\"description\": \"No name\", \"imageUrl\": \"ImageUrl\"},"
+                + "42,"
+                + "{\"name\": \"" + "x".repeat(256) + "\", \"description\": \"Description\", \"imageUrl\": \"ImageUrl\"},"
+                + artifactJson("Artifact 2") + "]";
+
+        ArtifactImportResult result = artifactImportService.importJsonArray(stream(json));
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(3);
+        // Only the first two failures are listed.
+        assertThat(result.failures()).containsExactly(
+                new ArtifactImportResult.RowFailure(2, "name is required."),
+                new ArtifactImportResult.RowFailure(3, "Expected an artifact object."));
+    }
+
+    @Test
+    void testMalformedJsonArrayKeepsRowsBeforeIt() throws Exception {
+        String json = "[" + artifactJson("Artifact 1") + ", {\"name\": ";
+
+        ArtifactImportResult result = artifactImportService.importJsonArray(stream(json));
+
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.failures().get(0).row()).isEqualTo(2);
+        assertThat(result.failures().get(0).message()).startsWith("Malformed JSON, the rest of the input was skipped");
+    }
+
+    @Test
+    void testMalformedNdjsonLineOnlyFailsThatRow() throws Exception {
+        String ndjson = artifactJson("Artifact 1") + "\n"
+                + "{\"name\": \n"
+                + "\n"
+                + artifactJson("Artifact 2") + "\n";
+
+        ArtifactImportResult result = artifactImportService.importNdjson(stream(ndjson));
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.failures().get(0).row()).isEqualTo(2);
+        assertThat(artifactRepository.findAll()).extracting(Artifact::getName).contains("Artifact 1", "Artifact 2");
+    }
+
+    private static String artifactJson(String name) {
+        return "{\"name\": \"" + name + "\", \"description\": \"Description\", \"imageUrl\": \"ImageUrl\"}";
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,159 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.system.StatusCode;
+import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Query count tests for paged Artifact API endpoints")
+@ActiveProfiles(value = "dev")
+class ArtifactQueryCountTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    WizardRepository wizardRepository;
+
+    @Autowired
+    ArtifactSearchIndex artifactSearchIndex;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // 30 extra wizards owning 2 artifacts each, so every page below spans many distinct owners.
+        for (int i = 0; i < 30; i++) {
+            Wizard wizard = new Wizard();
+            wizard.setName("Wizard " + i);
+            for (int j = 0; j < 2; j++) {
+                Artifact artifact = new Artifact();
+                artifact.setId(9_900_000L + i * 10 + j);
+                artifact.setName("Artifact " + i + "-" + j);
+                artifact.setDescription("Description");
+                artifact.setImageUrl("ImageUrl");
+                wizard.addArtifact(artifact);
+            }
+            wizardRepository.save(wizard);
+        }
+        entityManager.flush();
+        entityManager.clear(); // Start every request from an empty persistence context, like a real request.
+        artifactSearchIndex.rebuild(); // The artifacts above bypass ArtifactService, so index them explicitly.
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testFindAllArtifactsQueryCountDoesNotDependOnPageSize() throws Exception {
+        long smallPageQueries = countQueries(() -> mvc.perform(get(baseUrl + "/artifacts").param("size", "5").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.data.content", Matchers.hasSize(5))));
+
+        long largePageQueries = countQueries(() -> mvc.perform(get(baseUrl + "/artifacts").param("size", "50").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.data.content", Matchers.hasSize(50)))
+                .andExpect(jsonPath("$.data.content[?(@.owner.name == 'Wizard 0')].owner.numberOfArtifacts", Matchers.everyItem(Matchers.is(2)))));
+
+        // Catalog version lookup for the ETag, page select joined with the owners, plus the count select.
+        // Artifact counts come from the wizard row.
+        assertThat(largePageQueries).isEqualTo(smallPageQueries);
+        assertThat(largePageQueries).isBetween(2L, 3L);
+    }
+
+    @Test
+    void testFindArtifactsByCriteriaQueryCountDoesNotDependOnPageSize() throws Exception {
+        String json = objectMapper.writeValueAsString(Map.of("description", "Description"));
+
+        long smallPageQueries = countQueries(() -> mvc.perform(post(baseUrl + "/artifacts/search").param("size", "5").content(json).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.data.content", Matchers.hasSize(5))));
+
+        long largePageQueries = countQueries(() -> mvc.perform(post(baseUrl + "/artifacts/search").param("size", "50").content(json).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.data.content", Matchers.hasSize(50))));
+
+        assertThat(largePageQueries).isEqualTo(smallPageQueries);
+        assertThat(largePageQueries).isBetween(1L, 2L);
+    }
+
+    @Test
+    void testFindAllArtifactsByKeysetWalksEveryArtifactWithoutCount() throws Exception {
+        Set<String> seenIds = new HashSet<>();
+        String cursor = null;
+        do {
+            String currentCursor = cursor;
+            MvcResult[] result = new MvcResult[1];
+            long queries = countQueries(() -> result[0] = mvc.perform(get(baseUrl + "/artifacts")
+                            .param("pagination", "keyset")
+                            .param("size", "7")
+                            .param("cursor", currentCursor)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                    .andReturn());
+
+            // The catalog version lookup for the ETag and a single seek select: no COUNT(*) and no per-owner selects.
+            assertThat(queries).isEqualTo(2);
+
+            JsonNode data = objectMapper.readTree(result[0].getResponse().getContentAsString()).path("data");
+            data.path("content").forEach(artifact -> assertThat(seenIds.add(artifact.path("id").asText())).isTrue());
+            cursor = data.path("nextCursor").isNull() ? null : data.path("nextCursor").asText();
+        } while (cursor != null);
+
+        // 6 seeded artifacts plus 60 created in setUp.
+        assertThat(seenIds).hasSize(66);
+    }
+
+    private long countQueries(ThrowingRunnable request) throws Exception {
+        entityManager.clear();
+        statistics.clear();
+        request.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @FunctionalInterface
+    interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
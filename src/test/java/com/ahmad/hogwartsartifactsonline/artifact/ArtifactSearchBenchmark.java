@@ -0,0 +1,92 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
+import com.ahmad.hogwartsartifactsonline.system.LargeCatalogInitializer;
+import com.ahmad.hogwartsartifactsonline.system.LargeCatalogInitializer.GeneratedCatalog;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Compares a plain LIKE '%x%' scan with the n-gram search index for artifact name searches, over an unowned synthetic
+ * catalog (see SyntheticCatalog). Without a commit margin, the rows inserted before the rebuild are all covered by the
+ * index rather than its recently changed tail.
+ * Opt-in, since loading a million rows takes a while and a few GB of heap:
+ * mvn test -Dbenchmark=true -Dtest=ArtifactSearchBenchmark -DargLine=-Xmx4g
+ */
+@SpringBootTest(properties = "artifact.search-index.commit-margin=0s")
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark for artifact substring search")
+@ActiveProfiles(value = "dev")
+class ArtifactSearchBenchmark {
+
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    ArtifactService artifactService;
+
+    @Autowired
+    ArtifactRepository artifactRepository;
+
+    @Autowired
+    ArtifactSearchIndex artifactSearchIndex;
+
+    @Autowired
+    IdWorker idWorker;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    WizardRepository wizardRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    GeneratedCatalog catalog;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from artifact where id between ? and ?", catalog.firstArtifactId(), catalog.lastArtifactId());
+        artifactSearchIndex.rebuild();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    void benchmarkNameSearch(int rows) throws Exception {
+        catalog = new LargeCatalogInitializer(wizardRepository, jdbcTemplate, transactionTemplate, idWorker, rows, 0, 1.0, 1.0, 42).generate();
+        long indexBuildMillis = Benchmarks.elapsedNanos(artifactSearchIndex::rebuild) / 1_000_000;
+
+        // Selective: a full generated name, one of 18,000 combinations.
+        String name = jdbcTemplate.queryForObject("select name from artifact where id = ?", String.class, catalog.lastArtifactId());
+        Map<String, String> criteria = Map.of("name", name);
+        Pageable pageable = PageRequest.of(0, 20);
+
+        long scanNanos = Benchmarks.meanNanos(5, ITERATIONS, () -> artifactRepository.findAll(ArtifactSpecs.containsName(criteria.get("name")), pageable));
+        long indexNanos = Benchmarks.meanNanos(5, ITERATIONS, () -> artifactService.findByCriteria(criteria, pageable));
+
+        // Same result either way, the index only narrows the rows the database has to look at.
+        assertThat(artifactService.findByCriteria(criteria, pageable).map(Artifact::getId))
+                .containsExactlyInAnyOrderElementsOf(artifactRepository.findAll(ArtifactSpecs.containsName(criteria.get("name")), pageable).map(Artifact::getId));
+
+        Benchmarks.report(ArtifactSearchBenchmark.class, "rows=%d indexBuild=%dms likeScan=%.2fms indexed=%.2fms",
+                rows, indexBuildMillis, scanNanos / 1e6, indexNanos / 1e6);
+    }
+}
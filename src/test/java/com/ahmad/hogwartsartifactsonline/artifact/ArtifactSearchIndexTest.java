@@ -0,0 +1,62 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@DisplayName("Tests for searches narrowed by the artifact search index")
+@ActiveProfiles(value = "dev")
+class ArtifactSearchIndexTest {
+
+    @Autowired
+    ArtifactService artifactService;
+
+    @Autowired
+    ArtifactSearchIndex artifactSearchIndex;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testSearchFindsRowsInsertedAroundTheService() {
+        jdbcTemplate.update("insert into artifact (id, name, description, image_url, version) values (?, ?, ?, ?, 0)",
+                9_800_001L, "Sneakoscope", "Spins when someone untrustworthy is near.", "ImageUrl");
+
+        assertThat(artifactSearchIndex.findCandidates("Sneakoscope", null)).isNotNull();
+        assertThat(artifactService.findByCriteria(Map.of("name", "sneakoscope"), PageRequest.of(0, 20)).map(Artifact::getId))
+                .containsExactly(9_800_001L);
+    }
+
+    @Test
+    void testSearchWithLikeWildcardsIsNotNarrowed() {
+        assertThat(artifactSearchIndex.findCandidates("delu%tor", null)).isNull();
+        assertThat(artifactSearchIndex.findCandidates("deluminat_r", null)).isNull();
+        assertThat(artifactService.findByCriteria(Map.of("name", "delu%tor"), PageRequest.of(0, 20)).map(Artifact::getId))
+                .containsExactly(1250808601744904191L);
+    }
+
+    @Test
+    void testSearchFindsRowsRenamedAroundTheService() {
+        jdbcTemplate.update("update artifact set name = 'Put-Outer' where id = ?", 1250808601744904191L); // The Deluminator.
+
+        assertThat(artifactService.findByCriteria(Map.of("name", "put-outer"), PageRequest.of(0, 20)).map(Artifact::getId))
+                .containsExactly(1250808601744904191L);
+
+        artifactSearchIndex.refresh();
+
+        assertThat(artifactService.findByCriteria(Map.of("name", "put-outer"), PageRequest.of(0, 20)).map(Artifact::getId))
+                .containsExactly(1250808601744904191L);
+        assertThat(artifactService.findByCriteria(Map.of("name", "deluminator"), PageRequest.of(0, 20))).isEmpty();
+    }
+}
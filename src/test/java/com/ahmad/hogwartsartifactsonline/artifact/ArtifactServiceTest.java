@@ -7,11 +7,15 @@ import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Choice;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Message;
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
 import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
 import com.ahmad.hogwartsartifactsonline.wizard.Wizard;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardCache;
+import com.ahmad.hogwartsartifactsonline.wizard.WizardRepository;
 import com.ahmad.hogwartsartifactsonline.wizard.dto.WizardDto;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,11 +23,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
@@ -45,6 +54,27 @@ class ArtifactServiceTest {
     @Mock
     ChatClient chatClient;
 
+    @Mock
+    ArtifactSearchIndex artifactSearchIndex;
+
+    @Mock
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    ArtifactCache artifactCache;
+
+    @Mock
+    WizardCache wizardCache;
+
+    @Mock
+    WizardRepository wizardRepository;
+
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    ImageStorageClient imageStorageClient;
+
     @InjectMocks
     ArtifactService artifactService;
 
@@ -53,13 +83,13 @@ class ArtifactServiceTest {
     @BeforeEach
     void setUp() {
         Artifact a1 = new Artifact();
-        a1.setId("1250808601744904191");
+        a1.setId(1250808601744904191L);
         a1.setName("Deluminator");
         a1.setDescription("A Deluminator is a device invented by Albus Dumbledore that resembles a cigarette lighter. It is used to remove or absorb (as well as return) the light from any light source to provide cover to the user.");
         a1.setImageUrl("imageUrl");
 
         Artifact a2 = new Artifact();
-        a2.setId("1250808601744904192");
+        a2.setId(1250808601744904192L);
         a2.setName("Invisibility Cloak");
         a2.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a2.setImageUrl("imageUrl");
@@ -73,11 +103,23 @@ class ArtifactServiceTest {
     void tearDown() {
     }
 
+    @Test
+    void testETagChangesOnceImageVariantsAreStored() {
+        Artifact artifact = artifacts.get(0);
+        artifact.setVersion(3L);
+
+        assertThat(artifactService.eTag(artifact)).isEqualTo("a-3-x");
+
+        given(imageStorageClient.findImageVariantUrls("imageUrl")).willReturn(Map.of(64, "imageUrl-64"));
+
+        assertThat(artifactService.eTag(artifact)).isEqualTo("a-3-x-v");
+    }
+
     @Test
     void testFindByIdSuccess() {
 
         Artifact a = new Artifact();
-        a.setId("12345");
+        a.setId(12345L);
         a.setName("Invisibility Cloak");
         a.setDescription("des");
         a.setImageUrl("ImageUrl");
@@ -88,27 +130,41 @@ class ArtifactServiceTest {
         w.setName("Harry Potter");
         a.setOwner(w);
 
-        given(artifactRepository.findById("12345")).willReturn(Optional.of(a));
+        given(artifactRepository.findById(12345L)).willReturn(Optional.of(a));
 
-        Artifact returnedArtifact = artifactService.findArtifactById("12345");
+        Artifact returnedArtifact = artifactService.findArtifactById(12345L);
 
         assertThat(returnedArtifact.getId()).isEqualTo(a.getId());
         assertThat(returnedArtifact.getName()).isEqualTo(a.getName());
         assertThat(returnedArtifact.getDescription()).isEqualTo(a.getDescription());
         assertThat(returnedArtifact.getImageUrl()).isEqualTo(a.getImageUrl());
         assertThat(returnedArtifact.getOwner()).isEqualTo(a.getOwner());
-        verify(artifactRepository, times(1)).findById("12345");
+        verify(artifactRepository, times(1)).findById(12345L);
+        verify(artifactCache, times(1)).put(a, 0L);
+
+    }
+
+    @Test
+    void testFindByIdFromCache() {
+        Artifact a = new Artifact();
+        a.setId(12345L);
+        a.setName("Invisibility Cloak");
+        given(artifactCache.get(12345L)).willReturn(a);
 
+        Artifact returnedArtifact = artifactService.findArtifactById(12345L);
+
+        assertThat(returnedArtifact).isEqualTo(a);
+        verify(artifactRepository, never()).findById(12345L);
     }
 
     @Test
     void testFindByIdNotFound() {
         // Given
-        given(artifactRepository.findById(Mockito.any(String.class))).willReturn(Optional.empty());
+        given(artifactRepository.findById(Mockito.any(Long.class))).willReturn(Optional.empty());
 
         // when
         Throwable thrown = catchThrowable(() -> {
-            Artifact returnedArtifact = artifactService.findArtifactById("12345");
+            Artifact returnedArtifact = artifactService.findArtifactById(12345L);
         });
 
         assertThat(thrown)
@@ -116,7 +172,7 @@ class ArtifactServiceTest {
                 .hasMessage("Could not find artifact With Id 12345 :(");
 
 
-        verify(artifactRepository, times(1)).findById("12345");
+        verify(artifactRepository, times(1)).findById(12345L);
     }
 
     @Test
@@ -148,39 +204,63 @@ class ArtifactServiceTest {
 
         Artifact savedArtifact = artifactService.save(newArtifact);
 
-        assertThat(savedArtifact.getId()).isEqualTo("123456");
+        assertThat(savedArtifact.getId()).isEqualTo(123456L);
         assertThat(savedArtifact.getName()).isEqualTo(newArtifact.getName());
         assertThat(savedArtifact.getDescription()).isEqualTo(newArtifact.getDescription());
         assertThat(savedArtifact.getImageUrl()).isEqualTo(newArtifact.getImageUrl());
 
         verify(artifactRepository, times(1)).save(newArtifact);
+        verify(artifactSearchIndex, times(1)).index(newArtifact);
+        verify(applicationEventPublisher, times(1)).publishEvent(new ArtifactCatalogChangedEvent());
+    }
+
+    @Test
+    void testSaveAllUsesOneIdBlock() {
+        Artifact a1 = new Artifact();
+        a1.setName("Artifact 3");
+        Artifact a2 = new Artifact();
+        a2.setName("Artifact 4");
+        List<Artifact> newArtifacts = List.of(a1, a2);
+
+        given(idWorker.nextIds(2)).willReturn(new long[]{123456L, 123457L});
+        given(artifactRepository.saveAll(newArtifacts)).willReturn(newArtifacts);
+
+        List<Artifact> savedArtifacts = artifactService.saveAll(newArtifacts);
+
+        assertThat(savedArtifacts.get(0).getId()).isEqualTo(123456L);
+        assertThat(savedArtifacts.get(1).getId()).isEqualTo(123457L);
+        verify(idWorker, never()).nextId();
+        verify(artifactRepository, times(1)).flush();
+        verify(entityManager, times(1)).detach(a1);
+        verify(artifactSearchIndex, times(1)).index(a2);
+        verify(applicationEventPublisher, times(1)).publishEvent(new ArtifactCatalogChangedEvent());
     }
 
     @Test
     void testUpdateSuccess() {
         Artifact oldArtifact = new Artifact();
-        oldArtifact.setId("1234");
+        oldArtifact.setId(1234L);
         oldArtifact.setName("Artifact 3");
         oldArtifact.setDescription("Description");
         oldArtifact.setImageUrl("imageUrl");
 
         Artifact update = new Artifact();
-        // update.setId("1234");                      edit: The should not send the id
+        // update.setId(1234L);                      edit: The should not send the id
         update.setName("Artifact 3");
         update.setDescription(" new Description");
         update.setImageUrl("imageUrl");
 
-        given(artifactRepository.findById("1234")).willReturn(Optional.of(oldArtifact));
+        given(artifactRepository.findById(1234L)).willReturn(Optional.of(oldArtifact));
         given(artifactRepository.save(oldArtifact)).willReturn(oldArtifact);
 
-        Artifact updatedArtifact = artifactService.update("1234", update);
+        Artifact updatedArtifact = artifactService.update(1234L, update);
 
-        assertThat(updatedArtifact.getId()).isEqualTo("1234");
+        assertThat(updatedArtifact.getId()).isEqualTo(1234L);
         assertThat(updatedArtifact.getDescription()).isEqualTo(update.getDescription());
 
         verify(artifactRepository, times(1)).findById(oldArtifact.getId());
         verify(artifactRepository, times(1)).save(oldArtifact);
-
+        verify(artifactSearchIndex, times(1)).index(oldArtifact);
 
     }
 
@@ -189,49 +269,72 @@ class ArtifactServiceTest {
 
 
         Artifact update = new Artifact();
-        update.setId("1234");
+        update.setId(1234L);
         update.setName("Artifact 3");
         update.setDescription(" new Description");
         update.setImageUrl("imageUrl");
 
-        given(artifactRepository.findById(Mockito.any(String.class))).willReturn(Optional.empty());
+        given(artifactRepository.findById(Mockito.any(Long.class))).willReturn(Optional.empty());
 
 
         assertThrows(ObjectNotFoundException.class, () -> {
-            artifactService.update("1234", update);
+            artifactService.update(1234L, update);
         });
 
-        verify(artifactRepository, times(1)).findById("1234");
+        verify(artifactRepository, times(1)).findById(1234L);
     }
 
     @Test
     void testDeleteSuccess() {
 
         Artifact artifact = new Artifact();
-        artifact.setId("1");
+        artifact.setId(1L);
         artifact.setName("Artifact 3");
         artifact.setDescription("Description");
         artifact.setImageUrl("imageUrl");
 
-        given(artifactRepository.findById("1")).willReturn(Optional.of(artifact));
-        doNothing().when(artifactRepository).deleteById("1");
+        given(artifactRepository.findById(1L)).willReturn(Optional.of(artifact));
+        doNothing().when(artifactRepository).deleteById(1L);
+
+        artifactService.delete(1L);
+
+
+        verify(artifactRepository, times(1)).deleteById(1L);
+        verify(artifactSearchIndex, times(1)).remove(1L);
+    }
+
+    @Test
+    void testDeleteSuccessDecrementsOwnerArtifactCount() {
+
+        Artifact artifact = new Artifact();
+        artifact.setId(1L);
+        artifact.setName("Artifact 3");
+        artifact.setDescription("Description");
+        artifact.setImageUrl("imageUrl");
 
-        artifactService.delete("1");
+        Wizard w = new Wizard();
+        w.setId(2);
+        w.setName("Harry Potter");
+        w.addArtifact(artifact);
 
+        given(artifactRepository.findById(1L)).willReturn(Optional.of(artifact));
+        doNothing().when(artifactRepository).deleteById(1L);
 
-        verify(artifactRepository, times(1)).deleteById("1");
+        artifactService.delete(1L);
 
+        verify(artifactRepository, times(1)).deleteById(1L);
+        verify(wizardRepository, times(1)).addToNumberOfArtifacts(2, -1);
     }
 
     @Test
     void testDeleteNotFound() {
 
-        given(artifactRepository.findById(Mockito.any(String.class))).willReturn(Optional.empty());
+        given(artifactRepository.findById(Mockito.any(Long.class))).willReturn(Optional.empty());
 
-        assertThrows(ObjectNotFoundException.class, () -> artifactService.delete("2"));
+        assertThrows(ObjectNotFoundException.class, () -> artifactService.delete(2L));
 
 
-        verify(artifactRepository, times(1)).findById("2");
+        verify(artifactRepository, times(1)).findById(2L);
 
 
     }
@@ -268,4 +371,43 @@ class ArtifactServiceTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void testSummarizeStreamingRelaysTokens() throws Exception {
+        List<ArtifactDto> artifactDtos = List.of(
+                new ArtifactDto("1250808601744904191", "Deluminator", "A Deluminator.", "ImageUrl", null));
+        doAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(1);
+            onToken.accept("One ");
+            onToken.accept("artifact.");
+            return null;
+        }).when(this.chatClient).stream(any(ChatRequest.class), any());
+        List<String> tokens = new ArrayList<>();
+
+        String summary = this.artifactService.summarize(artifactDtos, tokens::add);
+
+        assertThat(summary).isEqualTo("One artifact.");
+        assertThat(tokens).isEqualTo(List.of("One ", "artifact."));
+    }
+
+    @Test
+    void testFindAllByKeysetHasNext() {
+        given(artifactRepository.findBy(Mockito.<Specification<Artifact>>any(), any())).willReturn(artifacts);
+
+        Slice<Artifact> artifactSlice = artifactService.findAll(1250808601744904190L, 1);
+
+        assertThat(artifactSlice.getContent().size()).isEqualTo(1);
+        assertThat(artifactSlice.getContent().get(0).getId()).isEqualTo(1250808601744904191L);
+        assertThat(artifactSlice.hasNext()).isTrue();
+    }
+
+    @Test
+    void testFindAllByKeysetLastSlice() {
+        given(artifactRepository.findBy(Mockito.<Specification<Artifact>>any(), any())).willReturn(artifacts);
+
+        Slice<Artifact> artifactSlice = artifactService.findAll(null, 2);
+
+        assertThat(artifactSlice.getContent().size()).isEqualTo(2);
+        assertThat(artifactSlice.hasNext()).isFalse();
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import com.ahmad.hogwartsartifactsonline.artifact.converter.ArtifactToArtifactDtoConverter;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.StubChatClient;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Message;
+import com.ahmad.hogwartsartifactsonline.wizard.converter.WizardToWizardDtoConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+ * Wall time of summarizing a 5,000 artifact catalog in one request versus chunked map-reduce, against a stub model
+ * whose latency grows with the request size (50ms + 2ms per KB).
+ * Opt-in: mvn test -Dbenchmark=true -Dtest=ArtifactSummarizerBenchmark
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark for chunked artifact summarization")
+class ArtifactSummarizerBenchmark {
+
+    private static final int ARTIFACTS = 5_000;
+
+    @Test
+    void benchmarkSummarize() throws Exception {
+        List<Artifact> artifacts = new ArrayList<>();
+        for (int i = 1; i <= ARTIFACTS; i++) {
+            Artifact artifact = new Artifact();
+            artifact.setId((long) i);
+            artifact.setName("Artifact " + i);
+            artifact.setDescription("An artifact with a description that is about as long as the ones in the catalog " + i);
+            artifact.setImageUrl("https://hogwarts.blob.core.windows.net/artifact-images/" + i + ".jpg");
+            artifacts.add(artifact);
+        }
+
+        run(artifacts, ARTIFACTS, 1);
+        for (int parallelism : new int[]{1, 4, 8}) {
+            run(artifacts, 250, parallelism);
+        }
+    }
+
+    private void run(List<Artifact> artifacts, int chunkSize, int parallelism) throws Exception {
+        StubChatClient chatClient = new StubChatClient(Duration.ofMillis(50), Duration.ofMillis(2));
+        ArtifactService artifactService = mock(ArtifactService.class);
+        when(artifactService.findAll(any(), anyInt())).thenAnswer(invocation -> {
+            Long afterId = invocation.getArgument(0);
+            int size = invocation.getArgument(1);
+            int from = afterId == null ? 0 : afterId.intValue();
+            int to = Math.min(from + size, artifacts.size());
+            return new SliceImpl<>(artifacts.subList(from, to), PageRequest.of(0, size), to < artifacts.size());
+        });
+        // What ArtifactService.summarize does: the whole catalog in one request.
+        when(artifactService.summarize(anyList())).thenAnswer(invocation -> chatClient.generate(new ChatRequest("gpt-4",
+                List.of(new Message("user", new ObjectMapper().writeValueAsString(invocation.getArgument(0))))))
+                .choices().get(0).message().content());
+
+        ArtifactSummarizer artifactSummarizer = new ArtifactSummarizer(artifactService,
+                new ArtifactToArtifactDtoConverter(new WizardToWizardDtoConverter()), chatClient, chunkSize, parallelism, 20, false);
+        try {
+            long elapsedMillis = Benchmarks.elapsedNanos(artifactSummarizer::summarize) / 1_000_000;
+
+            int largestRequest = chatClient.getRequests().stream()
+                    .mapToInt(request -> request.messages().stream().mapToInt(message -> message.content().length()).sum())
+                    .max().orElse(0);
+            Benchmarks.report(ArtifactSummarizerBenchmark.class, "chunk-size=%d parallelism=%d requests=%d largest-request=%dKB wall=%dms",
+                    chunkSize, parallelism, chatClient.getRequests().size(), largestRequest / 1024, elapsedMillis);
+        } finally {
+            artifactSummarizer.destroy();
+        }
+    }
+}
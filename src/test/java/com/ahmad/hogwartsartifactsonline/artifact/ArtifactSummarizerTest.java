@@ -0,0 +1,122 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.artifact.converter.ArtifactToArtifactDtoConverter;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.StubChatClient;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
+import com.ahmad.hogwartsartifactsonline.wizard.converter.WizardToWizardDtoConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactSummarizerTest {
+
+    @Mock
+    ArtifactService artifactService;
+
+    StubChatClient chatClient;
+
+    ArtifactSummarizer artifactSummarizer;
+
+    List<Artifact> artifacts;
+
+    @BeforeEach
+    void setUp() {
+        artifacts = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            Artifact artifact = new Artifact();
+            artifact.setId((long) i);
+            artifact.setName("Artifact " + i);
+            artifact.setDescription("Description " + i);
+            artifact.setImageUrl("ImageUrl");
+            artifacts.add(artifact);
+        }
+        // Serve keyset slices from the list above, like ArtifactService.findAll(afterId, size).
+        lenient().when(artifactService.findAll(any(), anyInt())).thenAnswer(invocation -> {
+            Long afterId = invocation.getArgument(0);
+            int size = invocation.getArgument(1);
+            List<Artifact> rest = artifacts.stream().filter(artifact -> afterId == null || artifact.getId() > afterId).toList();
+            return new SliceImpl<>(rest.subList(0, Math.min(size, rest.size())), PageRequest.of(0, size), rest.size() > size);
+        });
+
+        chatClient = new StubChatClient(Duration.ofMillis(20), Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        artifactSummarizer.destroy();
+    }
+
+    @Test
+    void testSmallCatalogIsSummarizedInOneRequest() throws Exception {
+        artifactSummarizer = newSummarizer(10, 2, 2);
+        given(artifactService.summarize(anyList())).willReturn("Ten artifacts.");
+
+        assertThat(artifactSummarizer.summarize()).isEqualTo("Ten artifacts.");
+
+        verify(artifactService, times(1)).summarize(anyList());
+        assertThat(chatClient.getRequests()).isEmpty();
+    }
+
+    @Test
+    void testLargeCatalogIsMappedAndReducedWithBoundedParallelism() {
+        artifactSummarizer = newSummarizer(3, 2, 2);
+
+        String summary = artifactSummarizer.summarize();
+
+        // 4 chunks (3 + 3 + 3 + 1), reduced 4 -> 2 -> 1.
+        List<ChatRequest> requests = chatClient.getRequests();
+        assertThat(requests).hasSize(7);
+        assertThat(requests).filteredOn(request -> request.messages().get(0).content().equals(ArtifactSummarizer.MAP_PROMPT)).hasSize(4);
+        assertThat(requests).filteredOn(request -> request.messages().get(0).content().equals(ArtifactSummarizer.REDUCE_PROMPT)).hasSize(3);
+        assertThat(requests.get(0).messages().get(1).content()).contains("Artifact 1", "Artifact 3").doesNotContain("Artifact 4");
+        assertThat(chatClient.getMaxInFlight()).isLessThanOrEqualTo(2);
+        assertThat(summary).startsWith("A summary of");
+    }
+
+    @Test
+    void testStreamingRelaysOnlyTheFinalSummary() {
+        artifactSummarizer = newSummarizer(3, 2, 2);
+        List<String> tokens = new ArrayList<>();
+
+        String summary = artifactSummarizer.summarize(tokens::add);
+
+        assertThat(tokens.size()).isGreaterThan(1);
+        assertThat(String.join("", tokens)).isEqualTo(summary);
+        assertThat(chatClient.getRequests()).hasSize(7);
+    }
+
+    @Test
+    void testFingerprintChangesOnlyWithCatalogContent() {
+        artifactSummarizer = newSummarizer(3, 2, 2);
+
+        String fingerprint = artifactSummarizer.fingerprint();
+        assertThat(artifactSummarizer.fingerprint()).isEqualTo(fingerprint);
+
+        artifacts.get(9).setDescription("Another description");
+        assertThat(artifactSummarizer.fingerprint()).isNotEqualTo(fingerprint);
+    }
+
+    private ArtifactSummarizer newSummarizer(int chunkSize, int parallelism, int reduceFanIn) {
+        return new ArtifactSummarizer(artifactService, new ArtifactToArtifactDtoConverter(new WizardToWizardDtoConverter()),
+                chatClient, chunkSize, parallelism, reduceFanIn, false);
+    }
+}
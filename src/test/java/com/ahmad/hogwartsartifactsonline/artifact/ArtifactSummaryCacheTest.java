@@ -0,0 +1,125 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactSummaryCacheTest {
+
+    @Mock
+    ArtifactSummarizer artifactSummarizer;
+
+    ExecutorService refreshExecutor;
+
+    ArtifactSummaryCache artifactSummaryCache;
+
+    @BeforeEach
+    void setUp() {
+        refreshExecutor = Executors.newSingleThreadExecutor();
+        artifactSummaryCache = new ArtifactSummaryCache(artifactSummarizer, true, Duration.ofHours(1),
+                new SimpleMeterRegistry(), refreshExecutor);
+    }
+
+    @Test
+    void testSummaryIsGeneratedOnceWhileCatalogIsUnchanged() {
+        given(artifactSummarizer.fingerprint()).willReturn("one");
+        given(artifactSummarizer.summarize()).willReturn("One artifact.");
+
+        assertThat(artifactSummaryCache.getSummary()).isEqualTo("One artifact.");
+        assertThat(artifactSummaryCache.getSummary()).isEqualTo("One artifact.");
+
+        verify(artifactSummarizer, times(1)).fingerprint();
+        verify(artifactSummarizer, times(1)).summarize();
+    }
+
+    @Test
+    void testCatalogChangeServesStaleSummaryWhileRefreshing() throws Exception {
+        given(artifactSummarizer.fingerprint()).willReturn("one", "two");
+        given(artifactSummarizer.summarize()).willReturn("One artifact.", "Two artifacts.");
+        artifactSummaryCache.getSummary();
+
+        artifactSummaryCache.onCatalogChanged(new ArtifactCatalogChangedEvent());
+
+        // The reader that notices the change still gets the last good summary.
+        assertThat(artifactSummaryCache.getSummary()).isEqualTo("One artifact.");
+        awaitRefresh();
+        assertThat(artifactSummaryCache.getSummary()).isEqualTo("Two artifacts.");
+
+        verify(artifactSummarizer, times(2)).summarize();
+    }
+
+    @Test
+    void testChangeWithoutContentDifferenceDoesNotCallModel() throws Exception {
+        given(artifactSummarizer.fingerprint()).willReturn("one");
+        given(artifactSummarizer.summarize()).willReturn("One artifact.");
+        artifactSummaryCache.getSummary();
+
+        artifactSummaryCache.onCatalogChanged(new ArtifactCatalogChangedEvent());
+        artifactSummaryCache.getSummary();
+        awaitRefresh();
+
+        // The catalog was fingerprinted again, but it matched the cached one.
+        verify(artifactSummarizer, times(2)).fingerprint();
+        verify(artifactSummarizer, times(1)).summarize();
+    }
+
+    @Test
+    void testConcurrentColdStreamsShareOneGeneration() throws Exception {
+        CountDownLatch followerJoined = new CountDownLatch(1);
+        given(artifactSummarizer.fingerprint()).willReturn("one");
+        given(artifactSummarizer.summarize(any())).willAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(0);
+            onToken.accept("One ");
+            assertThat(followerJoined.await(5, TimeUnit.SECONDS)).isTrue();
+            onToken.accept("artifact.");
+            return "One artifact.";
+        });
+        StringBuffer leader = new StringBuffer();
+        StringBuffer follower = new StringBuffer();
+        ExecutorService streams = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> leading = streams.submit(() -> artifactSummaryCache.streamSummary(leader::append));
+            while (leader.isEmpty()) {
+                Thread.onSpinWait();
+            }
+            Future<?> following = streams.submit(() -> artifactSummaryCache.streamSummary(token -> {
+                follower.append(token);
+                followerJoined.countDown();
+            }));
+
+            leading.get(5, TimeUnit.SECONDS);
+            following.get(5, TimeUnit.SECONDS);
+        } finally {
+            streams.shutdownNow();
+        }
+
+        // The follower got the text written before it joined as one token and the rest as it was written.
+        assertThat(leader.toString()).isEqualTo("One artifact.");
+        assertThat(follower.toString()).isEqualTo("One artifact.");
+        assertThat(artifactSummaryCache.getSummary()).isEqualTo("One artifact.");
+        verify(artifactSummarizer, times(1)).summarize(any());
+    }
+
+    private void awaitRefresh() throws Exception {
+        refreshExecutor.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ahmad.hogwartsartifactsonline.artifact;
+
+import com.ahmad.hogwartsartifactsonline.artifact.dto.ArtifactSummaryJob;
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import com.ahmad.hogwartsartifactsonline.system.exception.SummaryJobCapacityExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactSummaryJobServiceTest {
+
+    @Mock
+    ArtifactSummaryCache artifactSummaryCache;
+
+    @Mock
+    RedisCacheClient redisCacheClient;
+
+    // Stands in for Redis.
+    Map<String, String> redis = new ConcurrentHashMap<>();
+
+    ExecutorService executor;
+
+    ArtifactSummaryJobService artifactSummaryJobService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisCacheClient.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        lenient().when(redisCacheClient.setIfAbsent(anyString(), anyString(), anyLong(), any()))
+                .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        lenient().when(redisCacheClient.deleteIfEquals(anyString(), anyString()))
+                .thenAnswer(invocation -> redis.remove(invocation.getArgument(0), invocation.getArgument(1)));
+        lenient().doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(redisCacheClient).set(anyString(), anyString(), anyLong(), any());
+        lenient().doAnswer(invocation -> redis.remove(invocation.<String>getArgument(0)))
+                .when(redisCacheClient).delete(anyString());
+
+        executor = Executors.newSingleThreadExecutor();
+        artifactSummaryJobService = new ArtifactSummaryJobService(artifactSummaryCache, redisCacheClient,
+                Duration.ofHours(1), Duration.ofMinutes(10), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentSubmissionsShareOneJob() throws Exception {
+        CountDownLatch modelAnswers = new CountDownLatch(1);
+        given(artifactSummaryCache.getSummary()).willAnswer(invocation -> {
+            modelAnswers.await(5, TimeUnit.SECONDS);
+            return "Six artifacts.";
+        });
+
+        ArtifactSummaryJob first = artifactSummaryJobService.submit();
+        ArtifactSummaryJob second = artifactSummaryJobService.submit();
+
+        assertThat(second.id()).isEqualTo(first.id());
+        assertThat(second.status()).isIn(ArtifactSummaryJob.Status.PENDING, ArtifactSummaryJob.Status.RUNNING);
+
+        modelAnswers.countDown();
+        awaitJobs();
+
+        ArtifactSummaryJob finished = artifactSummaryJobService.findById(first.id());
+        assertThat(finished.status()).isEqualTo(ArtifactSummaryJob.Status.SUCCEEDED);
+        assertThat(finished.summary()).isEqualTo("Six artifacts.");
+        assertThat(finished.finishedAt()).isNotNull();
+        verify(artifactSummaryCache, times(1)).getSummary();
+
+        // Once the job is done, the next submission starts a new one.
+        assertThat(artifactSummaryJobService.submit().id()).isNotEqualTo(first.id());
+    }
+
+    @Test
+    void testFailedJobIsReported() throws Exception {
+        given(artifactSummaryCache.getSummary()).willThrow(new IllegalStateException("Model unavailable"));
+
+        ArtifactSummaryJob job = artifactSummaryJobService.submit();
+        awaitJobs();
+
+        ArtifactSummaryJob failed = artifactSummaryJobService.findById(job.id());
+        assertThat(failed.status()).isEqualTo(ArtifactSummaryJob.Status.FAILED);
+        assertThat(failed.error()).isEqualTo("Could not generate the artifact summary");
+        assertThat(redis).doesNotContainKey(ArtifactSummaryJobService.ACTIVE_JOB_KEY);
+    }
+
+    @Test
+    void testSubmitWhenQueueIsFull() {
+        executor.shutdown(); // Rejects every job, like a full queue.
+
+        assertThatThrownBy(() -> artifactSummaryJobService.submit())
+                .isInstanceOf(SummaryJobCapacityExceededException.class);
+        assertThat(redis).isEmpty();
+    }
+
+    @Test
+    void testFindByIdNotFound() {
+        assertThatThrownBy(() -> artifactSummaryJobService.findById("unknown"))
+                .isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find summary job With Id unknown :(");
+    }
+
+    @Test
+    void testFindByIdOfOtherKeyNotFound() {
+        redis.put(ArtifactSummaryJobService.ACTIVE_JOB_KEY, "0b7e6a9c-3f43-4c1e-9a55-2d7c1f0e8b21");
+
+        assertThatThrownBy(() -> artifactSummaryJobService.findById("active"))
+                .isInstanceOf(ObjectNotFoundException.class)
+                .hasMessage("Could not find summary job With Id active :(");
+        verify(redisCacheClient, never()).get(anyString());
+    }
+
+    private void awaitJobs() throws Exception {
+        executor.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
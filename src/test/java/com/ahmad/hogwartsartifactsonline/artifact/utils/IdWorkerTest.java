@@ -0,0 +1,175 @@
+package com.ahmad.hogwartsartifactsonline.artifact.utils;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdWorkerTest {
+
+    @Test
+    void testIdsAreUniqueAndIncreasingUnderContention() throws Exception {
+        IdWorker idWorker = new IdWorker(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(threads.submit(() -> {
+                long last = 0;
+                for (int i = 0; i < 50_000; i++) {
+                    long id = idWorker.nextId();
+                    assertThat(id).isGreaterThan(last);
+                    assertThat((id >> 12) & IdWorker.MAX_WORKER_ID).isEqualTo(7);
+                    ids.add(id);
+                    last = id;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        threads.shutdown();
+
+        assertThat(ids).hasSize(8 * 50_000);
+    }
+
+    @Test
+    void testSequenceOverflowBorrowsNextMillisecond() {
+        IdWorker idWorker = new IdWorker(1, () -> IdWorker.EPOCH + 1_000, 5_000); // The clock never moves.
+
+        long first = idWorker.nextId();
+        long last = first;
+        for (int i = 0; i < 5_000; i++) {
+            last = idWorker.nextId();
+        }
+
+        assertThat(last >> 22).isEqualTo((first >> 22) + 1);
+    }
+
+    @Test
+    void testIdBlocksDoNotOverlapSingleIds() {
+        IdWorker idWorker = new IdWorker(1, () -> IdWorker.EPOCH + 1_000, 5_000); // The clock never moves.
+
+        long before = idWorker.nextId();
+        long[] block = idWorker.nextIds(IdWorker.MAX_BLOCK_SIZE);
+        long after = idWorker.nextId();
+
+        assertThat(block).hasSize(IdWorker.MAX_BLOCK_SIZE);
+        assertThat(block[0]).isGreaterThan(before);
+        for (int i = 1; i < block.length; i++) {
+            assertThat(block[i]).isGreaterThan(block[i - 1]);
+        }
+        assertThat(after).isGreaterThan(block[block.length - 1]);
+        assertThrows(IllegalArgumentException.class, () -> idWorker.nextIds(IdWorker.MAX_BLOCK_SIZE + 1));
+    }
+
+    @Test
+    void testSaturatedGeneratorWaitsForClockInsteadOfFailing() {
+        AtomicLong reads = new AtomicLong();
+        // A slow clock: one millisecond per 1000 reads, far below 4096 ids per millisecond.
+        IdWorker idWorker = new IdWorker(1, () -> IdWorker.EPOCH + reads.incrementAndGet() / 1000, 1);
+
+        long last = 0;
+        for (int i = 0; i < 50_000; i++) {
+            long id = idWorker.nextId();
+            assertThat(id).isGreaterThan(last);
+            assertThat((id >> 22) - reads.get() / 1000).isLessThanOrEqualTo(1);
+            last = id;
+        }
+    }
+
+    @Test
+    void testSmallClockRegressionIsTolerated() {
+        AtomicLong now = new AtomicLong(IdWorker.EPOCH + 10_000);
+        IdWorker idWorker = new IdWorker(1, now::get, 5_000);
+        long before = idWorker.nextId();
+
+        now.addAndGet(-2_000);
+
+        assertThat(idWorker.nextId()).isGreaterThan(before);
+    }
+
+    @Test
+    void testLargeClockRegressionIsRefused() {
+        AtomicLong now = new AtomicLong(IdWorker.EPOCH + 10_000);
+        IdWorker idWorker = new IdWorker(1, now::get, 5_000);
+        idWorker.nextId();
+
+        now.addAndGet(-6_000);
+
+        assertThrows(IllegalStateException.class, idWorker::nextId);
+    }
+
+    @Test
+    void testWorkerIdIsValidated() {
+        assertThrows(IllegalArgumentException.class, () -> new IdWorker(IdWorker.MAX_WORKER_ID + 1));
+        assertThrows(IllegalArgumentException.class, () -> new IdWorker(-1));
+    }
+
+    @Test
+    void testNextIdDoesNotPinVirtualThreads() throws Exception {
+        assertThat(Modifier.isSynchronized(IdWorker.class.getMethod("nextId").getModifiers())).isFalse();
+
+        // A clock running 10 times slower than real time keeps the generator saturated, so callers regularly wait in it.
+        IdWorker idWorker = new IdWorker(1, () -> IdWorker.EPOCH + System.nanoTime() / 10_000_000, 1);
+        List<RecordedEvent> pinnedEvents = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinnedEvents::add);
+            recording.startAsync();
+
+            try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int t = 0; t < 64; t++) {
+                    virtualThreads.submit(() -> {
+                        for (int i = 0; i < 1_000; i++) {
+                            idWorker.nextId();
+                        }
+                    });
+                }
+            }
+
+            // Control: blocking inside a monitor does pin, so the recording above would have caught it.
+            Object monitor = new Object();
+            Thread.ofVirtual().start(() -> {
+                synchronized (monitor) {
+                    sleep(5);
+                }
+            }).join();
+
+            recording.stop();
+        }
+
+        assertThat(pinnedEvents).filteredOn(event -> onStack(event, "IdWorkerTest", "lambda")).isNotEmpty();
+        assertThat(pinnedEvents).filteredOn(event -> onStack(event, IdWorker.class.getName(), "nextId")).isEmpty();
+    }
+
+    private static boolean onStack(RecordedEvent event, String className, String methodName) {
+        return event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+                .anyMatch(frame -> frame.getMethod().getType().getName().endsWith(className)
+                        && frame.getMethod().getName().contains(methodName));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
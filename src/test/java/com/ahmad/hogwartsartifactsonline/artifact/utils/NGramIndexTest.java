@@ -0,0 +1,76 @@
+package com.ahmad.hogwartsartifactsonline.artifact.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NGramIndexTest {
+
+    NGramIndex<String> index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NGramIndex<>();
+        index.put("1", "Deluminator");
+        index.put("2", "Invisibility Cloak");
+        index.put("3", "Elder Wand");
+        index.put("4", "The Marauder's Map");
+    }
+
+    @Test
+    void testSearchFindsSubstringIgnoringCase() {
+        assertThat(index.search("INVIS")).containsExactly("2");
+        assertThat(index.search("and")).containsExactly("3");
+        assertThat(index.search("r")).isNull();
+    }
+
+    @Test
+    void testSearchIntersectsAllGrams() {
+        assertThat(index.search("der")).containsExactlyInAnyOrder("3", "4");
+        assertThat(index.search("elder")).containsExactly("3");
+        assertThat(index.search("wizard")).isEmpty();
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDeletes() {
+        index.put("3", "Resurrection Stone");
+        index.remove("1");
+
+        assertThat(index.search("wand")).isEmpty();
+        assertThat(index.search("stone")).containsExactly("3");
+        assertThat(index.search("lumi")).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testSearchIgnoresAccentsLikeTheCollation() {
+        index.put("5", "Café Gobstones");
+
+        assertThat(index.search("cafe")).containsExactly("5");
+        assertThat(index.search("CAFÉ")).containsExactly("5");
+        assertThat(index.search("deluminätor")).containsExactly("1");
+    }
+
+    @Test
+    void testSearchExpandsLettersLikeTheCollation() {
+        index.put("6", "Straße of Encyclopædia");
+
+        assertThat(index.search("strasse")).containsExactly("6");
+        assertThat(index.search("STRAẞE")).containsExactly("6");
+        assertThat(index.search("encyclopaedia")).containsExactly("6");
+    }
+
+    @Test
+    void testRepeatedUpdatesAreCompacted() {
+        for (int i = 0; i < 10_000; i++) {
+            index.put("3", "Elder Wand " + i);
+        }
+
+        assertThat(index.search("wand 9999")).containsExactly("3");
+        assertThat(index.search("wand 9998")).isEmpty();
+        assertThat(index.search("cloak")).containsExactly("2");
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.documentCount()).isLessThan(2 * 1024 + 4);
+    }
+}
@@ -4,8 +4,10 @@ import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Choice;
 import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Message;
+import com.ahmad.hogwartsartifactsonline.system.exception.ChatClientCapacityExceededException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,8 +17,19 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -151,4 +164,120 @@ class OpenAiChatClientTest {
                 .isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testStreamSuccess() {
+        String events = """
+                data: {"choices":[{"index":0,"delta":{"role":"assistant","content":""}}]}
+
+                data: {"choices":[{"index":0,"delta":{"content":"Six "}}]}
+
+                data: {"choices":[{"index":0,"delta":{"content":"artifacts."}}]}
+
+                data: [DONE]
+
+                """;
+        mockServer.expect(requestTo(url))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Accept", MediaType.TEXT_EVENT_STREAM_VALUE))
+                .andExpect(jsonPath("$.stream").value(true))
+                .andRespond(withSuccess(events, MediaType.TEXT_EVENT_STREAM));
+
+        List<String> tokens = new ArrayList<>();
+        openAiChatClient.stream(chatRequest, tokens::add);
+
+        mockServer.verify();
+        assertThat(tokens).containsExactly("Six ", "artifacts.");
+    }
+
+    @Test
+    void testStreamStopsReadingWhenConsumerFails() {
+        String events = """
+                data: {"choices":[{"index":0,"delta":{"content":"Six "}}]}
+
+                data: {"choices":[{"index":0,"delta":{"content":"artifacts."}}]}
+
+                data: [DONE]
+
+                """;
+        mockServer.expect(requestTo(url))
+                .andRespond(withSuccess(events, MediaType.TEXT_EVENT_STREAM));
+
+        List<String> tokens = new ArrayList<>();
+        Throwable thrown = catchThrowable(() -> openAiChatClient.stream(chatRequest, token -> {
+            tokens.add(token);
+            throw new IllegalStateException("Client went away");
+        }));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(tokens).containsExactly("Six ");
+    }
+
+    @Test
+    void testStreamUnauthorizedRequest() {
+        mockServer.expect(requestTo(url))
+                .andRespond(withUnauthorizedRequest());
+
+        Throwable thrown = catchThrowable(() -> openAiChatClient.stream(chatRequest, token -> {
+        }));
+
+        mockServer.verify();
+        assertThat(thrown).isInstanceOf(HttpClientErrorException.Unauthorized.class);
+    }
+
+    @Test
+    void testBulkheadRejectsCallsBeyondMaxConcurrentCalls() throws Exception {
+        RestClient.Builder restClientBuilder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restClientBuilder).build();
+        OpenAiChatClient client = new OpenAiChatClient(url, "key", restClientBuilder, 1, Duration.ofMillis(100), Duration.ofMinutes(2));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        client.bindTo(meterRegistry);
+
+        CountDownLatch upstreamCalled = new CountDownLatch(1);
+        CompletableFuture<Void> upstreamAnswers = new CompletableFuture<>();
+        ChatResponse chatResponse = new ChatResponse(List.of(new Choice(0, new Message("assistant", "Six artifacts."))));
+        server.expect(requestTo(url)).andRespond(request -> {
+            upstreamCalled.countDown();
+            upstreamAnswers.join();
+            return withSuccess(objectMapper.writeValueAsString(chatResponse), MediaType.APPLICATION_JSON).createResponse(request);
+        });
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<ChatResponse> slowCall = executor.submit(() -> client.generate(chatRequest));
+            upstreamCalled.await(5, TimeUnit.SECONDS);
+
+            // The only slot is taken, so the second call gives up after max-wait instead of queueing behind it.
+            Throwable thrown = catchThrowable(() -> client.generate(chatRequest));
+            assertThat(thrown).isInstanceOf(ChatClientCapacityExceededException.class);
+            assertThat(meterRegistry.get("ai.openai.calls.in-flight").gauge().value()).isEqualTo(1);
+            assertThat(meterRegistry.get("ai.openai.calls.rejected").functionCounter().count()).isEqualTo(1);
+
+            upstreamAnswers.complete(null);
+            assertThat(slowCall.get(5, TimeUnit.SECONDS).choices().get(0).message().content()).isEqualTo("Six artifacts.");
+            assertThat(meterRegistry.get("ai.openai.calls.in-flight").gauge().value()).isEqualTo(0);
+        } finally {
+            client.destroy();
+        }
+    }
+
+    @Test
+    void testCallIsRejectedWhenHttpClientExecutorIsFull() {
+        RestClient.Builder restClientBuilder = RestClient.builder()
+                .requestFactory((uri, httpMethod) -> {
+                    throw new IOException(new RejectedExecutionException("Queue full"));
+                });
+        OpenAiChatClient client = new OpenAiChatClient(url, "key", restClientBuilder, 1, Duration.ofMillis(100), Duration.ofMinutes(2));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        client.bindTo(meterRegistry);
+
+        try {
+            Throwable thrown = catchThrowable(() -> client.generate(chatRequest));
+
+            assertThat(thrown).isInstanceOf(ChatClientCapacityExceededException.class);
+            assertThat(meterRegistry.get("ai.openai.calls.rejected").functionCounter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("ai.openai.calls.in-flight").gauge().value()).isEqualTo(0);
+        } finally {
+            client.destroy();
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.ahmad.hogwartsartifactsonline.client.ai.chat;
+
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatRequest;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.ChatResponse;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Choice;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.dto.Message;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Local stand-in for the chat API. It answers every request with a short canned summary after a latency that grows
+ * with the size of the request, like a real model, and records the requests and the peak number of concurrent calls.
+ */
+public class StubChatClient implements ChatClient {
+
+    private final Duration baseLatency;
+
+    private final Duration latencyPerKilobyte;
+
+    private final Queue<ChatRequest> requests = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public StubChatClient() {
+        this(Duration.ZERO, Duration.ZERO);
+    }
+
+    public StubChatClient(Duration baseLatency, Duration latencyPerKilobyte) {
+        this.baseLatency = baseLatency;
+        this.latencyPerKilobyte = latencyPerKilobyte;
+    }
+
+    @Override
+    public ChatResponse generate(ChatRequest chatRequest) {
+        requests.add(chatRequest);
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            int length = chatRequest.messages().stream().mapToInt(message -> message.content().length()).sum();
+            sleep(baseLatency.plus(latencyPerKilobyte.multipliedBy(length / 1024)));
+            return new ChatResponse(List.of(
+                    new Choice(0, new Message("assistant", "A summary of " + length + " characters."))));
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Streams the canned summary word by word, spreading the latency over the words.
+     */
+    @Override
+    public void stream(ChatRequest chatRequest, Consumer<String> onToken) {
+        String content = generate(chatRequest).choices().get(0).message().content();
+        for (String word : content.split("(?<= )")) {
+            onToken.accept(word);
+        }
+    }
+
+    public List<ChatRequest> getRequests() {
+        return List.copyOf(requests);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.ahmad.hogwartsartifactsonline.client.imagestorage;
+
+import com.ahmad.hogwartsartifactsonline.system.exception.ImageUploadCapacityExceededException;
+import com.ahmad.hogwartsartifactsonline.system.exception.InvalidImageLocationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemImageStorageClientTest {
+
+    static final int BLOCK_SIZE = 1024;
+
+    @TempDir
+    Path root;
+
+    ExecutorService uploadExecutor;
+
+    ExecutorService blockExecutor;
+
+    ImageHashIndex imageHashIndex;
+
+    // Random bytes are no image, so there is nothing to scale here; see ImageVariantGeneratorTest.
+    ImageVariantGenerator imageVariantGenerator = new ImageVariantGenerator(false, 0, null, null);
+
+    byte[] image;
+
+    @BeforeEach
+    void setUp() {
+        imageHashIndex = new ImageHashIndex(true, 1000);
+        uploadExecutor = Executors.newSingleThreadExecutor();
+        blockExecutor = Executors.newFixedThreadPool(8);
+        image = new byte[10 * BLOCK_SIZE + 100];
+        new Random(42).nextBytes(image);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadExecutor.shutdownNow();
+        blockExecutor.shutdownNow();
+    }
+
+    @Test
+    void testUploadImageReassemblesTheBlocksInOrder() throws Exception {
+        FileSystemImageStorageClient client = new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 4, uploadExecutor, blockExecutor);
+
+        String imageUrl = client.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+
+        Path uploaded = Path.of(URI.create(imageUrl));
+        assertThat(uploaded.getParent()).isEqualTo(root.resolve("images"));
+        assertThat(uploaded.getFileName().toString())
+                .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image)) + ".jpg");
+        assertThat(Files.readAllBytes(uploaded)).isEqualTo(image);
+        assertThat(root.resolve(".staging/images")).isEmptyDirectory();
+    }
+
+    @Test
+    void testUploadImageEmpty() throws Exception {
+        FileSystemImageStorageClient client = new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 4, uploadExecutor, blockExecutor);
+
+        String imageUrl = client.uploadImage("images", "wand.jpg", new ByteArrayResource(new byte[0]), 0);
+
+        assertThat(Path.of(URI.create(imageUrl))).isEmptyFile();
+    }
+
+    @Test
+    void testUploadImageStagesAtMostBlockConcurrencyBlocksAtATime() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        FileSystemImageStorageClient client = new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 2, uploadExecutor, blockExecutor) {
+            @Override
+            protected void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) throws IOException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                    super.stageBlock(containerName, imageName, blockIndex, block);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+
+        String imageUrl = client.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+
+        assertThat(Files.readAllBytes(Path.of(URI.create(imageUrl)))).isEqualTo(image);
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testUploadImageFailedBlockDiscardsTheUpload() {
+        FileSystemImageStorageClient client = new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 4, uploadExecutor, blockExecutor) {
+            @Override
+            protected void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) throws IOException {
+                if (blockIndex == 3) {
+                    throw new IOException("Disk full");
+                }
+                super.stageBlock(containerName, imageName, blockIndex, block);
+            }
+        };
+
+        assertThatThrownBy(() -> client.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Disk full");
+        assertThat(root.resolve("images")).doesNotExist();
+        assertThat(root.resolve(".staging/images")).isEmptyDirectory();
+    }
+
+    @Test
+    void testUploadImageSameContentIsStoredOnce() throws Exception {
+        AtomicInteger stagedBlocks = new AtomicInteger();
+        AtomicInteger existenceChecks = new AtomicInteger();
+        FileSystemImageStorageClient client = countingClient(stagedBlocks, existenceChecks);
+
+        String first = client.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+        String second = client.uploadImage("images", "elder-wand.JPG", new ByteArrayResource(image), image.length);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(stagedBlocks.get()).isEqualTo(11);
+        // The second upload is answered by the index.
+        assertThat(existenceChecks.get()).isEqualTo(1);
+        assertThat(root.resolve("images").toFile().list()).hasSize(1);
+    }
+
+    @Test
+    void testUploadImageFindsImageStoredBeforeRestart() throws Exception {
+        String first = client().uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+        AtomicInteger stagedBlocks = new AtomicInteger();
+        AtomicInteger existenceChecks = new AtomicInteger();
+        imageHashIndex = new ImageHashIndex(true, 1000);
+
+        String second = countingClient(stagedBlocks, existenceChecks).uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(stagedBlocks.get()).isZero();
+        assertThat(existenceChecks.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testUploadImageConcurrentUploadsOfSameContentShareOneUpload() throws Exception {
+        CountDownLatch firstBlockStaging = new CountDownLatch(1);
+        CountDownLatch secondUploadWaiting = new CountDownLatch(1);
+        AtomicInteger commits = new AtomicInteger();
+        FileSystemImageStorageClient client = new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 4, uploadExecutor, blockExecutor) {
+            @Override
+            protected void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) throws IOException {
+                firstBlockStaging.countDown();
+                try {
+                    secondUploadWaiting.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.stageBlock(containerName, imageName, blockIndex, block);
+            }
+
+            @Override
+            protected String commitBlocks(String containerName, String imageName, int blockCount) throws IOException {
+                commits.incrementAndGet();
+                return super.commitBlocks(containerName, imageName, blockCount);
+            }
+        };
+
+        CompletableFuture<String> first = client.uploadImageAsync("images", "wand.jpg", new ByteArrayResource(image), image.length);
+        firstBlockStaging.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return client.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Thread.sleep(100);
+        secondUploadWaiting.countDown();
+
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(first.get(5, TimeUnit.SECONDS));
+        assertThat(commits.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testUploadImageSameContentToTwoContainersAtOnce() throws Exception {
+        CountDownLatch bothStaging = new CountDownLatch(2);
+        FileSystemImageStorageClient client = new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 4, uploadExecutor, blockExecutor) {
+            @Override
+            protected void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) throws IOException {
+                if (blockIndex == 0) {
+                    bothStaging.countDown();
+                    try {
+                        bothStaging.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.stageBlock(containerName, imageName, blockIndex, block);
+            }
+        };
+
+        CompletableFuture<String> images = CompletableFuture.supplyAsync(() -> upload(client, "images"));
+        CompletableFuture<String> thumbnails = CompletableFuture.supplyAsync(() -> upload(client, "thumbnails"));
+
+        assertThat(Files.readAllBytes(Path.of(URI.create(images.get(5, TimeUnit.SECONDS))))).isEqualTo(image);
+        assertThat(Files.readAllBytes(Path.of(URI.create(thumbnails.get(5, TimeUnit.SECONDS))))).isEqualTo(image);
+    }
+
+    @Test
+    void testUploadImageOutsideTheRootIsRejected() {
+        FileSystemImageStorageClient client = client();
+
+        for (String containerName : new String[]{"..", "../outside", "images/../../outside", ".staging", ""}) {
+            assertThatThrownBy(() -> client.uploadImage(containerName, "wand.jpg", new ByteArrayResource(image), image.length))
+                    .isInstanceOf(InvalidImageLocationException.class);
+        }
+        assertThatThrownBy(() -> client.uploadImage("images", "wand./../../outside", new ByteArrayResource(image), image.length))
+                .isInstanceOf(InvalidImageLocationException.class);
+        assertThat(root.getParent().resolve("outside")).doesNotExist();
+        assertThat(root).isEmptyDirectory();
+    }
+
+    @Test
+    void testUploadImageAsyncBeyondQueueCapacity() throws Exception {
+        ExecutorService boundedUploadExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        FileSystemImageStorageClient client = new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 4, boundedUploadExecutor, blockExecutor);
+        CountDownLatch clientSends = new CountDownLatch(1);
+        InputStreamSource slowImage = () -> {
+            try {
+                clientSends.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ByteArrayInputStream(image);
+        };
+
+        try {
+            CompletableFuture<String> running = client.uploadImageAsync("images", "wand.jpg", slowImage, image.length);
+            CompletableFuture<String> queued = client.uploadImageAsync("images", "cloak.jpg", slowImage, image.length);
+
+            assertThatThrownBy(() -> client.uploadImageAsync("images", "stone.jpg", slowImage, image.length))
+                    .isInstanceOf(ImageUploadCapacityExceededException.class);
+
+            clientSends.countDown();
+            assertThat(Files.readAllBytes(Path.of(URI.create(running.get(5, TimeUnit.SECONDS))))).isEqualTo(image);
+            assertThat(Files.readAllBytes(Path.of(URI.create(queued.get(5, TimeUnit.SECONDS))))).isEqualTo(image);
+        } finally {
+            boundedUploadExecutor.shutdownNow();
+        }
+    }
+
+    String upload(FileSystemImageStorageClient client, String containerName) {
+        try {
+            return client.uploadImage(containerName, "wand.jpg", new ByteArrayResource(image), image.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    FileSystemImageStorageClient client() {
+        return new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 4, uploadExecutor, blockExecutor);
+    }
+
+    FileSystemImageStorageClient countingClient(AtomicInteger stagedBlocks, AtomicInteger existenceChecks) {
+        return new FileSystemImageStorageClient(root, imageHashIndex, imageVariantGenerator, BLOCK_SIZE, 4, uploadExecutor, blockExecutor) {
+            @Override
+            protected String findImage(String containerName, String imageName) {
+                existenceChecks.incrementAndGet();
+                return super.findImage(containerName, imageName);
+            }
+
+            @Override
+            protected void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) throws IOException {
+                stagedBlocks.incrementAndGet();
+                super.stageBlock(containerName, imageName, blockIndex, block);
+            }
+        };
+    }
+}
@@ -0,0 +1,193 @@
+package com.ahmad.hogwartsartifactsonline.client.imagestorage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageVariantGeneratorTest {
+
+    @TempDir
+    Path root;
+
+    ExecutorService variantExecutor;
+
+    ExecutorService uploadExecutor;
+
+    ExecutorService blockExecutor;
+
+    FileSystemImageStorageClient client;
+
+    List<Object> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        variantExecutor = Executors.newSingleThreadExecutor();
+        uploadExecutor = Executors.newSingleThreadExecutor();
+        blockExecutor = Executors.newFixedThreadPool(4);
+        client = new FileSystemImageStorageClient(root, new ImageHashIndex(true, 1000), new ImageVariantGenerator(true, 1000, variantExecutor, events::add),
+                64 * 1024, 4, uploadExecutor, blockExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        variantExecutor.shutdownNow();
+        uploadExecutor.shutdownNow();
+        blockExecutor.shutdownNow();
+    }
+
+    @Test
+    void testVariantsAreStoredNextToTheOriginal() throws Exception {
+        byte[] image = image(2000, 1000, "png");
+
+        String imageUrl = client.uploadImage("images", "wand.png", new ByteArrayResource(image), image.length);
+        awaitVariants();
+
+        Map<Integer, String> variantUrls = ImageVariants.variantUrls(imageUrl);
+        assertThat(variantUrls).containsOnlyKeys(64, 256, 1024);
+        assertThat(Path.of(URI.create(variantUrls.get(64))).getParent()).isEqualTo(Path.of(URI.create(imageUrl)).getParent());
+        assertThat(dimensions(variantUrls.get(64))).containsExactly(64, 32);
+        assertThat(dimensions(variantUrls.get(256))).containsExactly(256, 128);
+        assertThat(dimensions(variantUrls.get(1024))).containsExactly(1024, 512);
+    }
+
+    @Test
+    void testSmallImageIsNotScaledUp() throws Exception {
+        byte[] image = image(100, 50, "jpg");
+
+        String imageUrl = client.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+        awaitVariants();
+
+        Map<Integer, String> variantUrls = ImageVariants.variantUrls(imageUrl);
+        assertThat(dimensions(variantUrls.get(64))).containsExactly(64, 32);
+        assertThat(dimensions(variantUrls.get(256))).containsExactly(100, 50);
+        assertThat(dimensions(variantUrls.get(1024))).containsExactly(100, 50);
+    }
+
+    @Test
+    void testVariantUrlsAreOnlyFoundOnceGenerated() throws Exception {
+        byte[] image = image(2000, 1000, "jpg");
+        CountDownLatch generating = new CountDownLatch(1);
+        variantExecutor.execute(() -> awaitQuietly(generating));
+
+        String imageUrl = client.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+
+        assertThat(client.findImageVariantUrls(imageUrl)).isEmpty();
+        generating.countDown();
+        awaitVariants();
+        assertThat(client.findImageVariantUrls(imageUrl)).isEqualTo(ImageVariants.variantUrls(imageUrl));
+        assertThat(events).containsExactly(new ImageVariantsStoredEvent(imageUrl));
+    }
+
+    @Test
+    void testVariantsOfAnImageStoredWithoutThemAreGeneratedOnLookup() throws Exception {
+        byte[] image = image(2000, 1000, "jpg");
+        FileSystemImageStorageClient clientWithoutVariants = new FileSystemImageStorageClient(root, new ImageHashIndex(true, 1000),
+                new ImageVariantGenerator(false, 1000, null, null), 64 * 1024, 4, uploadExecutor, blockExecutor);
+        String imageUrl = clientWithoutVariants.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+
+        assertThat(client.findImageVariantUrls(imageUrl)).isEmpty();
+        awaitVariants();
+
+        assertThat(client.findImageVariantUrls(imageUrl)).containsOnlyKeys(64, 256, 1024);
+        assertThat(dimensions(client.findImageVariantUrls(imageUrl).get(64))).containsExactly(64, 32);
+    }
+
+    @Test
+    void testVariantsOfAnImageStoredWithoutThemAreGeneratedOnUploadAgain() throws Exception {
+        byte[] image = image(2000, 1000, "png");
+        FileSystemImageStorageClient clientWithoutVariants = new FileSystemImageStorageClient(root, new ImageHashIndex(true, 1000),
+                new ImageVariantGenerator(false, 1000, null, null), 64 * 1024, 4, uploadExecutor, blockExecutor);
+        clientWithoutVariants.uploadImage("images", "wand.png", new ByteArrayResource(image), image.length);
+
+        String imageUrl = client.uploadImage("images", "wand.png", new ByteArrayResource(image), image.length);
+        awaitVariants();
+
+        assertThat(root.resolve("images").toFile().list()).hasSize(4);
+        assertThat(client.findImageVariantUrls(imageUrl)).containsOnlyKeys(64, 256, 1024);
+    }
+
+    @Test
+    void testUndecodableImageGetsNoVariants() throws Exception {
+        byte[] image = new byte[4096];
+        new Random(42).nextBytes(image);
+
+        String imageUrl = client.uploadImage("images", "wand.jpg", new ByteArrayResource(image), image.length);
+        awaitVariants();
+
+        assertThat(root.resolve("images").toFile().list()).hasSize(1);
+        assertThat(client.findImageVariantUrls(imageUrl)).isEmpty();
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void testImageOfAnotherStorageGetsNoVariants() throws Exception {
+        String imageUrl = "https://blob.local/images/" + "0123456789abcdef".repeat(4) + ".jpg";
+
+        assertThat(client.findImageVariantUrls(imageUrl)).isEmpty();
+        awaitVariants();
+
+        assertThat(client.findImageVariantUrls(imageUrl)).isEmpty();
+        assertThat(root.resolve("images")).doesNotExist();
+    }
+
+    @Test
+    void testVariantUrlsOnlyForContentAddressedImagesInAWritableFormat() {
+        String hash = "0123456789abcdef".repeat(4);
+
+        assertThat(ImageVariants.variantUrls("https://blob.local/images/" + hash + ".jpg"))
+                .containsEntry(256, "https://blob.local/images/" + hash + "-256.jpg");
+        assertThat(ImageVariants.variantUrls("https://blob.local/images/" + hash + ".webp")).isEmpty();
+        assertThat(ImageVariants.variantUrls("https://blob.local/images/deluminator.jpg")).isEmpty();
+        assertThat(ImageVariants.variantUrls(null)).isEmpty();
+    }
+
+    static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void awaitVariants() throws InterruptedException {
+        variantExecutor.shutdown();
+        assertThat(variantExecutor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    static byte[] image(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillOval(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+
+    static int[] dimensions(String imageUrl) throws IOException {
+        BufferedImage image = ImageIO.read(Path.of(URI.create(imageUrl)).toFile());
+        return new int[]{image.getWidth(), image.getHeight()};
+    }
+}
@@ -0,0 +1,63 @@
+package com.ahmad.hogwartsartifactsonline.client.rediscache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedisCacheClientTest {
+
+    @Mock
+    StringRedisTemplate redisTemplate;
+
+    @Mock
+    ValueOperations<String, String> valueOperations;
+
+    RedisCacheClient redisCacheClient;
+
+    @BeforeEach
+    void setUp() {
+        WhiteListNearCache whiteListNearCache = new WhiteListNearCache(true, Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+        whiteListNearCache.setSubscribed(true);
+        redisCacheClient = new RedisCacheClient(redisTemplate, whiteListNearCache);
+    }
+
+    @Test
+    void testIsUserTokenInWhiteListReadsRedisOnce() {
+        given(redisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("whiteList:1")).willReturn("token");
+
+        assertThat(redisCacheClient.isUserTokenInWhiteList("1", "token")).isTrue();
+        assertThat(redisCacheClient.isUserTokenInWhiteList("1", "token")).isTrue();
+        assertThat(redisCacheClient.isUserTokenInWhiteList("1", "stolenToken")).isFalse();
+
+        verify(valueOperations, times(1)).get("whiteList:1");
+    }
+
+    @Test
+    void testRemoveUserTokenFromWhiteListInvalidatesAndPublishes() {
+        given(redisTemplate.opsForValue()).willReturn(valueOperations);
+        given(valueOperations.get("whiteList:1")).willReturn("token", (String) null);
+        assertThat(redisCacheClient.isUserTokenInWhiteList("1", "token")).isTrue();
+
+        redisCacheClient.removeUserTokenFromWhiteList("1");
+
+        assertThat(redisCacheClient.isUserTokenInWhiteList("1", "token")).isFalse();
+        verify(redisTemplate, times(1)).delete("whiteList:1");
+        verify(redisTemplate, times(1)).convertAndSend(eq(RedisCacheClient.WHITE_LIST_INVALIDATION_CHANNEL), startsWith("1:"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.ahmad.hogwartsartifactsonline.client.rediscache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WhiteListNearCacheTest {
+
+    SimpleMeterRegistry meterRegistry;
+
+    WhiteListNearCache whiteListNearCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        whiteListNearCache = new WhiteListNearCache(true, Duration.ofMinutes(1), 2, meterRegistry);
+        whiteListNearCache.setSubscribed(true);
+    }
+
+    @Test
+    void testCachedTokenIsCompared() {
+        assertThat(whiteListNearCache.isTokenWhiteListed("1", "token")).isNull();
+
+        whiteListNearCache.put("1", "token", whiteListNearCache.generation());
+        whiteListNearCache.put("2", null, whiteListNearCache.generation());
+
+        assertThat(whiteListNearCache.isTokenWhiteListed("1", "token")).isTrue();
+        assertThat(whiteListNearCache.isTokenWhiteListed("1", "otherToken")).isFalse();
+        assertThat(whiteListNearCache.isTokenWhiteListed("2", "token")).isFalse();
+        assertThat(meterRegistry.get("whitelist.near-cache.requests").tag("result", "hit").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("whitelist.near-cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidationMessageDropsEntry() {
+        whiteListNearCache.put("1", "token", whiteListNearCache.generation());
+
+        whiteListNearCache.onInvalidationMessage("1:" + System.currentTimeMillis());
+
+        assertThat(whiteListNearCache.isTokenWhiteListed("1", "token")).isNull();
+        assertThat(meterRegistry.get("whitelist.near-cache.invalidation.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testReadRacingWithInvalidationIsNotCached() {
+        long generation = whiteListNearCache.generation();
+        whiteListNearCache.invalidate("1"); // The token changes while the old value is being read from Redis.
+
+        whiteListNearCache.put("1", "oldToken", generation);
+
+        assertThat(whiteListNearCache.isTokenWhiteListed("1", "oldToken")).isNull();
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        whiteListNearCache.put("1", "token1", whiteListNearCache.generation());
+        whiteListNearCache.put("2", "token2", whiteListNearCache.generation());
+        whiteListNearCache.put("3", "token3", whiteListNearCache.generation());
+
+        assertThat(meterRegistry.get("whitelist.near-cache.size").gauge().value()).isEqualTo(2);
+        assertThat(whiteListNearCache.isTokenWhiteListed("3", "token3")).isTrue();
+    }
+
+    @Test
+    void testCacheIsBypassedWithoutSubscription() {
+        whiteListNearCache.put("1", "token", whiteListNearCache.generation());
+
+        whiteListNearCache.setSubscribed(false);
+        whiteListNearCache.put("2", "token", whiteListNearCache.generation());
+
+        assertThat(whiteListNearCache.isTokenWhiteListed("1", "token")).isNull();
+        assertThat(whiteListNearCache.isTokenWhiteListed("2", "token")).isNull();
+    }
+}
@@ -1,6 +1,7 @@
 package com.ahmad.hogwartsartifactsonline.hogwartsuser;
 
 import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import com.ahmad.hogwartsartifactsonline.security.CredentialCache;
 import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
 import com.ahmad.hogwartsartifactsonline.system.exception.PasswordChangeIllegalArgumentException;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +41,9 @@ class UserServiceTest {
     @Mock
     RedisCacheClient redisCacheClient;
 
+    @Mock
+    CredentialCache credentialCache;
+
     @InjectMocks
     UserService userService;
 
@@ -196,6 +200,7 @@ class UserServiceTest {
         assertThat(updatedUser.getUsername()).isEqualTo(update.getUsername());
         verify(this.userRepository, times(1)).findById(2);
         verify(this.userRepository, times(1)).save(oldUser);
+        verify(this.credentialCache, times(1)).evict("eric");
     }
 
     @Test
@@ -246,6 +251,7 @@ class UserServiceTest {
 
         verify(userRepository, times(1)).findById(1);
         verify(userRepository, times(1)).deleteById(1);
+        verify(credentialCache, times(1)).evict("john");
     }
 
     @Test
@@ -275,17 +281,19 @@ class UserServiceTest {
 
         HogwartsUser hogwartsUser = new HogwartsUser();
         hogwartsUser.setId(2);
+        hogwartsUser.setUsername("eric");
         hogwartsUser.setPassword("encryptedOldPassword");
 
         given(userRepository.findById(2)).willReturn(Optional.of(hogwartsUser));
         given(passwordEncoder.matches(anyString(), anyString())).willReturn(true);
         given(passwordEncoder.encode(anyString())).willReturn("encryptedNewPassword");
         given(userRepository.save(hogwartsUser)).willReturn(hogwartsUser);
-        doNothing().when(redisCacheClient).delete(anyString());
+        doNothing().when(redisCacheClient).removeUserTokenFromWhiteList(anyString());
         userService.changePassword(2, "unencryptedOldPassword", "Abc12345", "Abc12345");
 
         assertThat(hogwartsUser.getPassword()).isEqualTo("encryptedNewPassword");
         verify(userRepository, times(1)).save(hogwartsUser);
+        verify(credentialCache, times(1)).evict("eric");
     }
 
     @Test
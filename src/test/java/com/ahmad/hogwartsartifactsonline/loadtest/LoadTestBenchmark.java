@@ -0,0 +1,408 @@
+package com.ahmad.hogwartsartifactsonline.loadtest;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import com.ahmad.hogwartsartifactsonline.HogwartsArtifactsOnlineApplication;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.ChatClient;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.StubChatClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.testcontainers.RedisContainer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * End-to-end load test: boots the application on a random port with the dev profile, a real Redis and the
+ * StandIns below, then drives a mix of login, browse, search, assign, upload and summary traffic from concurrent
+ * clients. Reports throughput, latency percentiles and server-side allocation per endpoint.
+ * Redis is a Testcontainers Redis unless -Dloadtest.redis-url points at a running one.
+ * Tuning: -Dloadtest.clients=32 -Dloadtest.warm-up=10s -Dloadtest.duration=30s -Dloadtest.chat-latency=500ms
+ * Opt-in: mvn test -Dbenchmark=true -Dtest=LoadTestBenchmark
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("End-to-end load test with local stand-ins")
+class LoadTestBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 32);
+
+    private static final Duration WARM_UP = DurationStyle.detectAndParse(System.getProperty("loadtest.warm-up", "10s"));
+
+    private static final Duration MEASUREMENT = DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "30s"));
+
+    private static final String BOUNDARY = "load-test-boundary";
+
+    // Noise compresses badly, which keeps the upload at tens of kilobytes.
+    private static final byte[] JPEG = jpeg(256, 256);
+
+    private static final String PASSWORD = "load-test";
+
+    // Request header naming the endpoint of the traffic mix a request belongs to.
+    private static final String ENDPOINT_HEADER = "X-Load-Test-Endpoint";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String baseUrl;
+
+    private List<String> artifactIds;
+
+    private List<Integer> wizardIds;
+
+    private List<String> searchTerms;
+
+    @Test
+    void benchmarkTrafficMix() throws Exception {
+        String redisUrl = System.getProperty("loadtest.redis-url");
+        RedisContainer redisContainer = null;
+        if (redisUrl == null) {
+            redisContainer = new RedisContainer(DockerImageName.parse("redis"));
+            redisContainer.start();
+            redisUrl = redisContainer.getRedisURI();
+        }
+        Path imageDirectory = Files.createTempDirectory("load-test-images");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(HogwartsArtifactsOnlineApplication.class, StandIns.class)
+                .profiles("dev")
+                // Command line arguments, since properties() would only set defaults that application.yml overrides.
+                .run("--server.port=0",
+                        "--spring.data.redis.url=" + redisUrl,
+                        "--entity-cache.redis-tier=true",
+                        "--image-storage.type=filesystem",
+                        "--image-storage.directory=" + imageDirectory,
+                        "--management.zipkin.tracing.export.enabled=false", // Spans are still recorded, just not sent.
+                        "--spring.jpa.show-sql=false")) {
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("api.endpoint.base-url");
+            prepare();
+            StandIns.AllocationRecorder allocationRecorder = context.getBean(StandIns.AllocationRecorder.class);
+
+            run(WARM_UP);
+            allocationRecorder.reset();
+            List<Endpoint> endpoints = run(MEASUREMENT);
+
+            Benchmarks.report(LoadTestBenchmark.class, "clients=%d duration=%ds", CLIENTS, MEASUREMENT.toSeconds());
+            Benchmarks.report(LoadTestBenchmark.class, "%-16s %9s %9s %8s %8s %8s %8s %7s %10s %10s",
+                    "endpoint", "requests", "req/s", "p50ms", "p90ms", "p99ms", "maxms", "errors", "alloc MB/s", "alloc KB/req");
+            for (Endpoint endpoint : endpoints) {
+                long[] sorted = endpoint.latencies().stream().mapToLong(Long::longValue).sorted().toArray();
+                long allocated = allocationRecorder.allocatedBytes(endpoint.name());
+                Benchmarks.report(LoadTestBenchmark.class, "%-16s %9d %9.1f %8.1f %8.1f %8.1f %8.1f %7d %10.1f %10.1f",
+                        endpoint.name(), sorted.length, sorted.length / (double) MEASUREMENT.toSeconds(),
+                        Benchmarks.percentile(sorted, 0.50) / 1e6, Benchmarks.percentile(sorted, 0.90) / 1e6,
+                        Benchmarks.percentile(sorted, 0.99) / 1e6, Benchmarks.percentile(sorted, 1.0) / 1e6, endpoint.errors().get(),
+                        allocated / 1e6 / MEASUREMENT.toSeconds(),
+                        sorted.length == 0 ? 0 : allocated / 1024.0 / (sorted.length + endpoint.errors().get()));
+            }
+            assertThat(endpoints).allSatisfy(endpoint -> assertThat(endpoint.latencies()).isNotEmpty());
+        } finally {
+            FileSystemUtils.deleteRecursively(imageDirectory);
+            if (redisContainer != null) {
+                redisContainer.stop();
+            }
+        }
+    }
+
+    // The traffic mix. Weights are relative; every request names its endpoint so the server side can attribute it.
+    private List<Endpoint> mix() {
+        return List.of(
+                new Endpoint("login", 5, client -> loginRequest(client.username)),
+                new Endpoint("browse page", 25, client -> request("browse page")
+                        .uri(uri("/artifacts?page=" + ThreadLocalRandom.current().nextInt(3) + "&size=20"))
+                        .GET()),
+                new Endpoint("browse artifact", 20, client -> request("browse artifact")
+                        .uri(uri("/artifacts/" + any(artifactIds)))
+                        .GET()),
+                new Endpoint("browse wizards", 10, client -> request("browse wizards")
+                        .header("Authorization", "Bearer " + client.token)
+                        .uri(uri("/wizards"))
+                        .GET()),
+                new Endpoint("search", 20, client -> request("search")
+                        .header("Content-Type", "application/json")
+                        .uri(uri("/artifacts/search?size=20"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"" + any(searchTerms) + "\"}"))),
+                new Endpoint("assign", 10, client -> request("assign")
+                        .header("Authorization", "Bearer " + client.token)
+                        .uri(uri("/wizards/" + any(wizardIds) + "/artifacts/" + any(artifactIds)))
+                        .PUT(HttpRequest.BodyPublishers.noBody())),
+                new Endpoint("upload", 5, client -> request("upload")
+                        .header("Authorization", "Bearer " + client.token)
+                        .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                        .uri(uri("/artifacts/images?containerName=images"))
+                        // A new image every time, so it is really uploaded rather than found by its hash.
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(multipartImage()))),
+                new Endpoint("summary", 5, client -> request("summary")
+                        .header("Accept", "application/json")
+                        .uri(uri("/artifacts/summary"))
+                        .GET()));
+    }
+
+    private List<Endpoint> run(Duration duration) {
+        List<Endpoint> endpoints = mix();
+        int totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                String username = username(c);
+                clients.submit(() -> {
+                    Client client = new Client(username, login(username));
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = pick(endpoints, ThreadLocalRandom.current().nextInt(totalWeight));
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = httpClient.send(endpoint.request().apply(client).build(), HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() != 200 || !response.body().contains("\"flag\":true")) {
+                                endpoint.errors().incrementAndGet();
+                                continue;
+                            }
+                            endpoint.latencies().add(System.nanoTime() - start);
+                            if (endpoint.name().equals("login")) {
+                                client.token = token(response);
+                            }
+                        } catch (Exception e) {
+                            endpoint.errors().incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return endpoints;
+    }
+
+    // Every client logs in as a user of its own: a login replaces the user's previous token.
+    private void prepare() throws Exception {
+        String token = login("john");
+        for (int c = 0; c < CLIENTS; c++) {
+            send(HttpRequest.newBuilder(uri("/users"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"username\": \"" + username(c) + "\", \"password\": \"" + PASSWORD
+                            + "\", \"enabled\": true, \"roles\": \"user\"}")));
+        }
+        JsonNode artifacts = send(HttpRequest.newBuilder(uri("/artifacts?size=100")).GET()).path("data").path("content");
+        artifactIds = new ArrayList<>();
+        searchTerms = new ArrayList<>();
+        for (JsonNode artifact : artifacts) {
+            artifactIds.add(artifact.path("id").asText());
+            searchTerms.add(artifact.path("name").asText().split(" ")[0].toLowerCase());
+        }
+        wizardIds = new ArrayList<>();
+        for (JsonNode wizard : send(HttpRequest.newBuilder(uri("/wizards")).header("Authorization", "Bearer " + token).GET()).path("data")) {
+            wizardIds.add(wizard.path("id").asInt());
+        }
+    }
+
+    private String login(String username) throws Exception {
+        return token(httpClient.send(loginRequest(username).build(), HttpResponse.BodyHandlers.ofString()));
+    }
+
+    private HttpRequest.Builder loginRequest(String username) {
+        String password = username.equals("john") ? "123456" : PASSWORD;
+        return request("login")
+                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)))
+                .uri(uri("/users/login"))
+                .POST(HttpRequest.BodyPublishers.noBody());
+    }
+
+    private static String username(int client) {
+        return "load-test-" + client;
+    }
+
+    private String token(HttpResponse<String> loginResponse) throws Exception {
+        return objectMapper.readTree(loginResponse.body()).path("data").path("token").asText();
+    }
+
+    private JsonNode send(HttpRequest.Builder request) throws Exception {
+        return objectMapper.readTree(httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    private static HttpRequest.Builder request(String endpoint) {
+        return HttpRequest.newBuilder().header(ENDPOINT_HEADER, endpoint);
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static Endpoint pick(List<Endpoint> endpoints, int point) {
+        for (Endpoint endpoint : endpoints) {
+            point -= endpoint.weight();
+            if (point < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static <T> T any(List<T> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    private static byte[] multipartImage() {
+        // Decoders stop at the end of the JPEG, so random trailing bytes make every upload a new image that still gets
+        // its variants.
+        byte[] data = Arrays.copyOf(JPEG, JPEG.length + 32);
+        byte[] trailer = new byte[32];
+        ThreadLocalRandom.current().nextBytes(trailer);
+        System.arraycopy(trailer, 0, data, JPEG.length, trailer.length);
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"image.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[head.length + data.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(data, 0, body, head.length, data.length);
+        System.arraycopy(tail, 0, body, head.length + data.length, tail.length);
+        return body;
+    }
+
+    private static byte[] jpeg(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpg", output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static class Client {
+
+        private final String username;
+
+        private String token;
+
+        Client(String username, String token) {
+            this.username = username;
+            this.token = token;
+        }
+    }
+
+    private record Endpoint(String name, int weight, Function<Client, HttpRequest.Builder> request,
+                            ConcurrentLinkedQueue<Long> latencies, AtomicInteger errors) {
+
+        Endpoint(String name, int weight, Function<Client, HttpRequest.Builder> request) {
+            this(name, weight, request, new ConcurrentLinkedQueue<>(), new AtomicInteger());
+        }
+    }
+
+    /**
+     * Local stand-ins for the external services the load test would otherwise need: the chat model answers after a
+     * configurable latency. Images go to a temporary directory through the filesystem image storage, and Redis is a
+     * real server.
+     */
+    @Configuration
+    static class StandIns {
+
+        @Bean
+        @Primary
+        ChatClient stubChatClient(@Value("${loadtest.chat-latency:500ms}") Duration latency) {
+            return new StubChatClient(latency, Duration.ZERO);
+        }
+
+        @Bean
+        AllocationRecorder allocationRecorder() {
+            return new AllocationRecorder();
+        }
+
+        @Bean
+        FilterRegistrationBean<AllocationRecorder> allocationRecorderRegistration(AllocationRecorder allocationRecorder) {
+            FilterRegistrationBean<AllocationRecorder> registration = new FilterRegistrationBean<>(allocationRecorder);
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE); // Before the security filters, so they are counted too.
+            return registration;
+        }
+
+        /**
+         * Sums the bytes allocated by the request thread while handling each request, per endpoint of the mix. Work
+         * handed to other threads is not counted, and neither are requests on virtual threads, whose allocations the JVM
+         * does not report.
+         */
+        static class AllocationRecorder extends OncePerRequestFilter {
+
+            private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+            private final Map<String, LongAdder> allocatedBytes = new ConcurrentHashMap<>();
+
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+                String endpoint = request.getHeader(ENDPOINT_HEADER);
+                long before = endpoint != null ? threadMXBean.getCurrentThreadAllocatedBytes() : -1;
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    if (before >= 0) {
+                        allocatedBytes.computeIfAbsent(endpoint, key -> new LongAdder())
+                                .add(threadMXBean.getCurrentThreadAllocatedBytes() - before);
+                    }
+                }
+            }
+
+            long allocatedBytes(String endpoint) {
+                LongAdder bytes = allocatedBytes.get(endpoint);
+                return bytes != null ? bytes.sum() : 0;
+            }
+
+            void reset() {
+                allocatedBytes.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ahmad.hogwartsartifactsonline.security;
+
+import com.ahmad.hogwartsartifactsonline.hogwartsuser.HogwartsUser;
+import com.ahmad.hogwartsartifactsonline.hogwartsuser.MyUserPrincipal;
+import com.ahmad.hogwartsartifactsonline.system.exception.LoginCapacityExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CachingDaoAuthenticationProviderTest {
+
+    @Mock
+    UserDetailsService userDetailsService;
+
+    @Mock
+    PasswordEncoder passwordEncoder;
+
+    HogwartsUser john;
+
+    CachingDaoAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        john = new HogwartsUser();
+        john.setId(1);
+        john.setUsername("john");
+        john.setPassword("encodedPassword");
+        john.setEnabled(true);
+        john.setRoles("admin user");
+
+        provider = new CachingDaoAuthenticationProvider(userDetailsService, passwordEncoder,
+                new CredentialCache(true, Duration.ofMinutes(5), 100), 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.destroy();
+    }
+
+    @Test
+    void testRepeatedLoginSkipsPasswordEncoder() {
+        given(userDetailsService.loadUserByUsername("john")).willReturn(new MyUserPrincipal(john));
+        given(passwordEncoder.matches("123456", "encodedPassword")).willReturn(true);
+
+        Authentication first = provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456"));
+        Authentication second = provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456"));
+
+        assertThat(first.isAuthenticated()).isTrue();
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(((MyUserPrincipal) second.getPrincipal()).getHogwartsUser().getId()).isEqualTo(1);
+        verify(passwordEncoder, times(1)).matches("123456", "encodedPassword");
+    }
+
+    @Test
+    void testWrongPasswordIsNeverCached() {
+        given(userDetailsService.loadUserByUsername("john")).willReturn(new MyUserPrincipal(john));
+        given(passwordEncoder.matches("wrong", "encodedPassword")).willReturn(false);
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(new UsernamePasswordAuthenticationToken("john", "wrong")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(new UsernamePasswordAuthenticationToken("john", "wrong")));
+
+        verify(passwordEncoder, times(2)).matches("wrong", "encodedPassword");
+    }
+
+    @Test
+    void testPasswordChangeInvalidatesCachedCredential() {
+        given(userDetailsService.loadUserByUsername("john")).willReturn(new MyUserPrincipal(john));
+        given(passwordEncoder.matches("123456", "encodedPassword")).willReturn(true);
+        provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456"));
+
+        john.setPassword("newEncodedPassword"); // Changed, possibly on another replica.
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456")));
+    }
+
+    @Test
+    void testDisabledUserIsRejectedEvenWhenCached() {
+        given(userDetailsService.loadUserByUsername("john")).willReturn(new MyUserPrincipal(john));
+        given(passwordEncoder.matches("123456", "encodedPassword")).willReturn(true);
+        provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456"));
+
+        john.setEnabled(false);
+
+        assertThrows(DisabledException.class, () -> provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456")));
+    }
+
+    @Test
+    void testLoginIsRejectedWhenHashingQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(userDetailsService.loadUserByUsername("john")).willAnswer(invocation -> new MyUserPrincipal(john));
+        given(passwordEncoder.matches("123456", "encodedPassword")).willAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+
+        // One check running on the single thread and one waiting in the queue of one, so of two more logins one is
+        // queued and the other rejected. The rejected one is the only one that can finish before the encoder is released.
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        Future<Authentication> running = callers.submit(() -> provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456")));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletionService<Authentication> logins = new ExecutorCompletionService<>(callers);
+        logins.submit(() -> provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456")));
+        logins.submit(() -> provider.authenticate(new UsernamePasswordAuthenticationToken("john", "123456")));
+
+        Future<Authentication> rejected = logins.poll(5, TimeUnit.SECONDS);
+        assertThat(rejected).isNotNull();
+        ExecutionException rejection = assertThrows(ExecutionException.class, rejected::get);
+        assertThat(rejection.getCause()).isInstanceOf(LoginCapacityExceededException.class);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS).isAuthenticated()).isTrue();
+        Future<Authentication> queued = logins.poll(5, TimeUnit.SECONDS);
+        assertThat(queued).isNotNull();
+        assertThat(queued.get().isAuthenticated()).isTrue();
+        callers.shutdown();
+    }
+}
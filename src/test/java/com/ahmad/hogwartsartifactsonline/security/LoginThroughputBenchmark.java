@@ -0,0 +1,87 @@
+package com.ahmad.hogwartsartifactsonline.security;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * Login throughput with and without the credential cache, using 16 concurrent clients.
+ * Opt-in: mvn test -Dbenchmark=true -Dtest=LoginThroughputBenchmark
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark for Basic login throughput")
+@ActiveProfiles(value = "dev")
+class LoginThroughputBenchmark {
+
+    private static final int CLIENTS = 16;
+
+    private static final int LOGINS = 200;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    CredentialCache credentialCache;
+
+    @MockitoBean
+    RedisCacheClient redisCacheClient; // The white list write is not what is measured here.
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    @Test
+    void benchmarkLoginThroughput() throws Exception {
+        runLogins(false); // Warm up.
+
+        double uncachedPerSecond = runLogins(true);
+        double cachedPerSecond = runLogins(false);
+
+        Benchmarks.report(LoginThroughputBenchmark.class, "clients=%d logins=%d bcryptEveryLogin=%.1f/s credentialCache=%.1f/s",
+                CLIENTS, LOGINS, uncachedPerSecond, cachedPerSecond);
+    }
+
+    private double runLogins(boolean clearCacheBeforeEachLogin) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long elapsedNanos = Benchmarks.elapsedNanos(() -> {
+            List<Future<?>> logins = new ArrayList<>();
+            for (int i = 0; i < LOGINS; i++) {
+                logins.add(clients.submit(() -> {
+                    if (clearCacheBeforeEachLogin) {
+                        credentialCache.evict("john");
+                    }
+                    mvc.perform(post(baseUrl + "/users/login").with(httpBasic("john", "123456")))
+                            .andExpect(status().isOk());
+                    return null;
+                }));
+            }
+            for (Future<?> login : logins) {
+                login.get();
+            }
+        });
+        clients.shutdown();
+        return LOGINS / (elapsedNanos / 1e9);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ahmad.hogwartsartifactsonline.system;
+
+import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "large-catalog.artifacts=20000",
+        "large-catalog.wizards=500"})
+@DisplayName("Tests for the synthetic large catalog")
+@ActiveProfiles(value = {"dev", "large-catalog"})
+class LargeCatalogInitializerTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testCatalogIsGeneratedOnTopOfTheDevData() {
+        // 6 hand-written artifacts and 3 wizards plus the generated ones.
+        assertThat(jdbcTemplate.queryForObject("select count(*) from artifact", Long.class)).isEqualTo(6 + 20000);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from wizard", Long.class)).isEqualTo(3 + 500);
+        assertThat(jdbcTemplate.queryForObject("select name from wizard where id = 1", String.class)).isEqualTo("Albus Dumbledore");
+    }
+
+    @Test
+    void testArtifactCountsMatchTheOwnedArtifacts() {
+        Long mismatches = jdbcTemplate.queryForObject("""
+                select count(*) from wizard w
+                where w.artifact_count <> (select count(*) from artifact a where a.owner_id = w.id)""", Long.class);
+
+        assertThat(mismatches).isZero();
+    }
+
+    @Test
+    void testOwnershipIsSkewed() {
+        List<Integer> counts = jdbcTemplate.queryForList("select artifact_count from wizard where id > 3 order by artifact_count desc", Integer.class);
+        long unowned = jdbcTemplate.queryForObject("select count(*) from artifact where owner_id is null", Long.class);
+
+        // The busiest wizard owns far more than the median one, and roughly 10% of the artifacts have no owner.
+        assertThat(counts.get(0)).isGreaterThan(20 * counts.get(counts.size() / 2));
+        assertThat(unowned).isBetween(1500L, 2500L);
+    }
+
+    @Test
+    void testTextFitsTheColumns() {
+        Integer longestDescription = jdbcTemplate.queryForObject("select max(length(description)) from artifact", Integer.class);
+        Integer shortestDescription = jdbcTemplate.queryForObject("select min(length(description)) from artifact", Integer.class);
+
+        assertThat(longestDescription).isLessThanOrEqualTo(255);
+        assertThat(shortestDescription).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void testSameSeedGeneratesSameCatalog() {
+        SyntheticCatalog first = new SyntheticCatalog(7, 100, 1.0, 0.1);
+        SyntheticCatalog second = new SyntheticCatalog(7, 100, 1.0, 0.1);
+
+        for (int i = 0; i < 100; i++) {
+            Artifact artifact = first.nextArtifact(i);
+            assertThat(second.nextArtifact(i)).usingRecursiveComparison().isEqualTo(artifact);
+            assertThat(second.nextOwner()).isEqualTo(first.nextOwner());
+        }
+    }
+}
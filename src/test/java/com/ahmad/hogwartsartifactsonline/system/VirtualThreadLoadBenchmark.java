@@ -0,0 +1,196 @@
+package com.ahmad.hogwartsartifactsonline.system;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import com.ahmad.hogwartsartifactsonline.HogwartsArtifactsOnlineApplication;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.ChatClient;
+import com.ahmad.hogwartsartifactsonline.client.ai.chat.StubChatClient;
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.BlockImageStorageClient;
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageHashIndex;
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageStorageClient;
+import com.ahmad.hogwartsartifactsonline.client.imagestorage.ImageVariantGenerator;
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/*
+ * Throughput and p99 latency of the platform thread and the virtual thread mode (spring.threads.virtual.enabled)
+ * when every request waits 250ms on a slow stand-in: the chat model (GET /artifacts/summary, summary cache off) or
+ * the blob storage (POST /artifacts/images). 400 concurrent clients, so the 200 Tomcat platform threads are the
+ * ceiling in platform mode. Image uploads run on the upload workers of BlockImageStorageClient, so they no longer hold
+ * a request thread in either mode.
+ * Opt-in: mvn test -Dbenchmark=true -Dtest=VirtualThreadLoadBenchmark
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Load test for the virtual thread mode")
+class VirtualThreadLoadBenchmark {
+
+    private static final int CLIENTS = 400;
+
+    private static final Duration STAND_IN_LATENCY = Duration.ofMillis(250);
+
+    private static final Duration WARM_UP = Duration.ofSeconds(3);
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void benchmarkSlowStandIns(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(HogwartsArtifactsOnlineApplication.class, SlowStandIns.class)
+                .profiles("dev")
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "artifact.summary-cache.enabled=false",
+                        "spring.jpa.show-sql=false")
+                .run()) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("api.endpoint.base-url");
+            String token = login(baseUrl);
+
+            run(virtualThreads, "chat", () -> HttpRequest.newBuilder(URI.create(baseUrl + "/artifacts/summary"))
+                    .header("Accept", "application/json")
+                    .GET().build());
+
+            String boundary = "benchmark-boundary";
+            AtomicInteger images = new AtomicInteger();
+            // A different image every time, so none of them is found by its hash.
+            run(virtualThreads, "blob", () -> HttpRequest.newBuilder(URI.create(baseUrl + "/artifacts/images?containerName=images"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofString("--" + boundary + "\r\n"
+                            + "Content-Disposition: form-data; name=\"file\"; filename=\"image.jpg\"\r\n"
+                            + "Content-Type: image/jpeg\r\n\r\n"
+                            + "%08d".formatted(images.incrementAndGet()) + "x".repeat(4088) + "\r\n"
+                            + "--" + boundary + "--\r\n")).build());
+        }
+    }
+
+    private void run(boolean virtualThreads, String standIn, Supplier<HttpRequest> request) throws Exception {
+        load(request, WARM_UP, new ConcurrentLinkedQueue<>(), new AtomicInteger());
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+        load(request, MEASUREMENT, latencies, errors);
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        Benchmarks.report(VirtualThreadLoadBenchmark.class, "mode=%s stand-in=%s clients=%d throughput=%.0f/s p50=%dms p99=%dms errors=%d",
+                virtualThreads ? "virtual" : "platform", standIn, CLIENTS, sorted.length / (double) MEASUREMENT.toSeconds(),
+                Benchmarks.percentile(sorted, 0.50), Benchmarks.percentile(sorted, 0.99), errors.get());
+    }
+
+    private void load(Supplier<HttpRequest> request, Duration duration, ConcurrentLinkedQueue<Long> latencies, AtomicInteger errors) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = httpClient.send(request.get(), HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() != 200 || !response.body().contains("\"flag\":true")) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                            latencies.add((System.nanoTime() - start) / 1_000_000);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private String login(String baseUrl) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/users/login"))
+                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString("john:123456".getBytes(StandardCharsets.UTF_8)))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        return new ObjectMapper().readTree(response.body()).path("data").path("token").asText();
+    }
+
+    @Configuration
+    static class SlowStandIns {
+
+        @Bean
+        @Primary
+        ChatClient slowChatClient() {
+            return new StubChatClient(STAND_IN_LATENCY, Duration.ZERO);
+        }
+
+        @Bean
+        @Primary
+        ImageStorageClient slowImageStorageClient(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+            // Enough upload workers for every client, so only the request threads are measured.
+            return new BlockImageStorageClient(new ImageHashIndex(true, 10000), new ImageVariantGenerator(false, 1, 1, 1, false, event -> {
+            }), 1024 * 1024, 4, CLIENTS, CLIENTS, virtualThreads) {
+                @Override
+                protected String findImage(String containerName, String imageName) {
+                    return null;
+                }
+
+                @Override
+                protected void stageBlock(String containerName, String imageName, int blockIndex, byte[] block) {
+                }
+
+                @Override
+                protected String commitBlocks(String containerName, String imageName, int blockCount) {
+                    try {
+                        Thread.sleep(STAND_IN_LATENCY);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "https://blob.local/" + containerName + "/" + imageName;
+                }
+
+                @Override
+                protected void abortBlocks(String containerName, String imageName) {
+                }
+
+                @Override
+                protected InputStream openImage(String containerName, String imageName) {
+                    return InputStream.nullInputStream();
+                }
+            };
+        }
+
+        @Bean
+        @Primary
+        RedisCacheClient redisCacheClient() {
+            RedisCacheClient redisCacheClient = mock(RedisCacheClient.class);
+            given(redisCacheClient.isUserTokenInWhiteList(anyString(), anyString())).willReturn(true);
+            return redisCacheClient;
+        }
+    }
+}
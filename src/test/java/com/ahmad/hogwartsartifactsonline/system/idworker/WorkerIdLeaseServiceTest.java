@@ -0,0 +1,78 @@
+package com.ahmad.hogwartsartifactsonline.system.idworker;
+
+import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@DisplayName("Tests for worker id leasing")
+@ActiveProfiles(value = "dev")
+class WorkerIdLeaseServiceTest {
+
+    @Autowired
+    WorkerIdLeaseRepository workerIdLeaseRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ObjectProvider<IdWorker> idWorkerProvider;
+
+    @Autowired
+    WorkerIdLeaseService applicationLeaseService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testNodesLeaseDistinctWorkerIds() {
+        int first = newNode().acquire();
+        int second = newNode().acquire();
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(first).isNotEqualTo(applicationLeaseService.getWorkerId());
+        assertThat(second).isNotEqualTo(applicationLeaseService.getWorkerId());
+        assertThat(idWorkerProvider.getObject().getWorkerId()).isEqualTo(applicationLeaseService.getWorkerId().longValue());
+    }
+
+    @Test
+    void testExpiredLeaseIsReused() {
+        WorkerIdLeaseService crashedNode = newNode();
+        int workerId = crashedNode.acquire();
+        jdbcTemplate.update("update worker_id_lease set expires_at = 0 where worker_id = ?", workerId);
+
+        assertThat(newNode().acquire()).isEqualTo(workerId);
+    }
+
+    @Test
+    void testReleasedLeaseIsHeldUntilIssuedIdsArePast() {
+        WorkerIdLeaseService stoppedNode = newNode();
+        int workerId = stoppedNode.acquire();
+        long releasedAt = System.currentTimeMillis();
+        stoppedNode.release();
+
+        Long expiresAt = jdbcTemplate.queryForObject("select expires_at from worker_id_lease where worker_id = ?", Long.class, workerId);
+        assertThat(expiresAt).isGreaterThanOrEqualTo(releasedAt + IdWorker.DEFAULT_MAX_BACKWARD_MILLIS + 1_000);
+        assertThat(newNode().acquire()).isNotEqualTo(workerId);
+
+        jdbcTemplate.update("update worker_id_lease set expires_at = 0 where worker_id = ?", workerId); // Time passes.
+
+        assertThat(newNode().acquire()).isEqualTo(workerId);
+    }
+
+    private WorkerIdLeaseService newNode() {
+        return new WorkerIdLeaseService(workerIdLeaseRepository, transactionTemplate, idWorkerProvider, Duration.ofMinutes(1), Duration.ofSeconds(1));
+    }
+}
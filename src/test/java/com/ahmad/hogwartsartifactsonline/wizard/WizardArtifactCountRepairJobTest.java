@@ -0,0 +1,65 @@
+package com.ahmad.hogwartsartifactsonline.wizard;
+
+import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class WizardArtifactCountRepairJobTest {
+
+    @Mock
+    WizardService wizardService;
+
+    @Mock
+    RedisCacheClient redisCacheClient;
+
+    WizardArtifactCountRepairJob wizardArtifactCountRepairJob;
+
+    @BeforeEach
+    void setUp() {
+        wizardArtifactCountRepairJob = new WizardArtifactCountRepairJob(wizardService, redisCacheClient, Duration.ofHours(1));
+    }
+
+    @Test
+    void testReplicaThatTakesTheLockRepairs() {
+        given(redisCacheClient.setIfAbsent(eq(WizardArtifactCountRepairJob.LOCK_KEY), anyString(), eq(3_600_000L), eq(TimeUnit.MILLISECONDS)))
+                .willReturn(true);
+
+        wizardArtifactCountRepairJob.repair();
+
+        verify(wizardService, times(1)).recalculateNumberOfArtifacts();
+    }
+
+    @Test
+    void testOtherReplicasSkipTheRepair() {
+        given(redisCacheClient.setIfAbsent(eq(WizardArtifactCountRepairJob.LOCK_KEY), anyString(), eq(3_600_000L), eq(TimeUnit.MILLISECONDS)))
+                .willReturn(false);
+
+        wizardArtifactCountRepairJob.repair();
+
+        verify(wizardService, never()).recalculateNumberOfArtifacts();
+    }
+
+    @Test
+    void testRepairRunsWhenRedisIsDown() {
+        given(redisCacheClient.setIfAbsent(eq(WizardArtifactCountRepairJob.LOCK_KEY), anyString(), eq(3_600_000L), eq(TimeUnit.MILLISECONDS)))
+                .willThrow(new IllegalStateException("Redis is down"));
+
+        wizardArtifactCountRepairJob.repair();
+
+        verify(wizardService, times(1)).recalculateNumberOfArtifacts();
+    }
+}
@@ -0,0 +1,157 @@
+package com.ahmad.hogwartsartifactsonline.wizard;
+
+import com.ahmad.hogwartsartifactsonline.artifact.ArtifactService;
+import com.ahmad.hogwartsartifactsonline.system.StatusCode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+@DisplayName("Tests for the denormalized wizard artifact count")
+@ActiveProfiles(value = "dev")
+class WizardArtifactCountTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    WizardService wizardService;
+
+    @Autowired
+    ArtifactService artifactService;
+
+    @Autowired
+    WizardArtifactCountRepairJob wizardArtifactCountRepairJob;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Value("${api.endpoint.base-url}")
+    String baseUrl;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @WithMockUser
+    void testFindAllWizardsDoesNotLoadArtifacts() throws Exception {
+        mvc.perform(get(baseUrl + "/wizards").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.data[?(@.name == 'Albus Dumbledore')].numberOfArtifacts", Matchers.contains(2)))
+                .andExpect(jsonPath("$.data[?(@.name == 'Neville Longbottom')].numberOfArtifacts", Matchers.contains(1)));
+
+        // The catalog version lookup for the ETag and the wizard select.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(0);
+    }
+
+    @Test
+    void testAssignArtifactKeepsCountsInSync() {
+        // Move the Deluminator from Albus Dumbledore (1) to Neville Longbottom (3).
+        wizardService.assignArtifact(3, 1250808601744904191L);
+        entityManager.flush();
+
+        assertThat(countsByName()).containsExactly(1, 2, 2);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(0);
+    }
+
+    @Test
+    void testDeleteArtifactKeepsCountInSync() {
+        artifactService.delete(1250808601744904191L); // The Deluminator, of Albus Dumbledore.
+
+        assertThat(countsByName()).containsExactly(1, 2, 1);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(0);
+    }
+
+    @Test
+    void testBulkAssignmentKeepsCountsInSyncWithoutLoadingCollections() {
+        Map<Long, Integer> wizardIdsByArtifactId = new LinkedHashMap<>();
+        wizardIdsByArtifactId.put(1250808601744904191L, 3); // Deluminator, from Albus Dumbledore.
+        wizardIdsByArtifactId.put(1250808601744904196L, 3); // Resurrection Stone, unowned.
+        wizardIdsByArtifactId.put(1250808601744904192L, 2); // Invisibility Cloak, already Harry Potter's.
+
+        int movedArtifacts = wizardService.assignArtifacts(wizardIdsByArtifactId);
+
+        assertThat(movedArtifacts).isEqualTo(2);
+        assertThat(countsByName()).containsExactly(1, 2, 3);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(0);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(0);
+        // Only the wizards whose counts changed get a new version.
+        assertThat(versionsByName()).containsExactly(1L, 0L, 1L);
+    }
+
+    @Test
+    void testTransferMovesEveryArtifact() {
+        // Everything of Harry Potter (2) to Neville Longbottom (3).
+        int movedArtifacts = wizardService.transferArtifacts(2, 3);
+
+        assertThat(movedArtifacts).isEqualTo(2);
+        assertThat(countsByName()).containsExactly(2, 0, 3);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(0);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(0);
+    }
+
+    @Test
+    void testDeleteWizardUnassignsArtifactsWithoutLoadingThem() {
+        wizardService.deleteWizardById(1); // Albus Dumbledore owns the Deluminator and the Elder Wand.
+
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(0);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(0);
+        assertThat(countsByName()).containsExactly(2, 1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from artifact where owner_id is null", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void testRepairJobRederivesCounts() {
+        jdbcTemplate.update("update wizard set artifact_count = 42");
+
+        wizardArtifactCountRepairJob.repair();
+
+        assertThat(countsByName()).containsExactly(2, 2, 1);
+    }
+
+    private List<Integer> countsByName() {
+        return jdbcTemplate.queryForList("select artifact_count from wizard order by name", Integer.class);
+    }
+
+    private List<Long> versionsByName() {
+        return jdbcTemplate.queryForList("select version from wizard order by name", Long.class);
+    }
+}
@@ -2,7 +2,10 @@ package com.ahmad.hogwartsartifactsonline.wizard;
 
 import com.ahmad.hogwartsartifactsonline.client.rediscache.RedisCacheClient;
 import com.ahmad.hogwartsartifactsonline.system.StatusCode;
+import com.ahmad.hogwartsartifactsonline.system.catalogversion.CatalogVersionService;
 import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
+import com.ahmad.hogwartsartifactsonline.wizard.dto.ArtifactAssignmentDto;
+import com.ahmad.hogwartsartifactsonline.wizard.dto.ArtifactAssignmentsDto;
 import com.ahmad.hogwartsartifactsonline.wizard.dto.WizardDto;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
@@ -14,19 +17,25 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.doNothing;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(WizardController.class)
 @AutoConfigureMockMvc(addFilters = false)
@@ -42,6 +51,9 @@ class WizardControllerTest {
     @MockitoBean
     RedisCacheClient redisCacheClient;
 
+    @MockitoBean
+    CatalogVersionService catalogVersionService;
+
     List<WizardDto> wizardDtoList;
     List<Wizard> wizards;
 
@@ -272,7 +284,7 @@ class WizardControllerTest {
     @Test
     void testAssignArtifactSuccess() throws Exception {
 
-        doNothing().when(wizardService).assignArtifact(1, "100");
+        doNothing().when(wizardService).assignArtifact(1, 100L);
 
         mvc.perform(
                         put(baseUrl + "/wizards/1/artifacts/100")
@@ -288,7 +300,7 @@ class WizardControllerTest {
     @Test
     void testAssignArtifactErrorWithNonExistentWizardId() throws Exception {
 
-        doThrow(new ObjectNotFoundException("wizard", 1)).when(wizardService).assignArtifact(1, "125");
+        doThrow(new ObjectNotFoundException("wizard", 1)).when(wizardService).assignArtifact(1, 125L);
 
         mvc.perform(
                         put(baseUrl + "/wizards/1/artifacts/125")
@@ -301,11 +313,28 @@ class WizardControllerTest {
                 .andExpect(jsonPath("$.data").isEmpty());
     }
 
+    @Test
+    void testAssignArtifactConflictWithConcurrentChange() throws Exception {
+
+        doThrow(new ObjectOptimisticLockingFailureException(Wizard.class, 1)).when(wizardService).assignArtifact(1, 125L);
+
+        mvc.perform(
+                        put(baseUrl + "/wizards/1/artifacts/125")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.CONFLICT))
+                .andExpect(jsonPath("$.message").value("The data was changed by another request at the same time, please try again."))
+                .andExpect(jsonPath("$.data").isEmpty());
+    }
+
     @Test
     void testAssignArtifactErrorWithNonExistentArtifactId() throws Exception {
 
         doThrow(new ObjectNotFoundException("artifact", "125")).when(wizardService)
-                .assignArtifact(5, "125");
+                .assignArtifact(5, 125L);
 
         mvc.perform(
                         put(baseUrl + "/wizards/5/artifacts/125")
@@ -317,4 +346,66 @@ class WizardControllerTest {
                 .andExpect(jsonPath("$.message").value("Could not find artifact With Id 125 :("))
                 .andExpect(jsonPath("$.data").isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testAssignArtifactsSuccess() throws Exception {
+        given(wizardService.assignArtifacts(Map.of(100L, 1, 101L, 2))).willReturn(2);
+        String json = objectMapper.writeValueAsString(new ArtifactAssignmentsDto(List.of(
+                new ArtifactAssignmentDto("100", 1), new ArtifactAssignmentDto("101", 2))));
+
+        mvc.perform(put(baseUrl + "/wizards/artifacts").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Artifact Assignment Success"))
+                .andExpect(jsonPath("$.data").value(2));
+    }
+
+    @Test
+    void testAssignArtifactsWithInvalidInput() throws Exception {
+        String json = objectMapper.writeValueAsString(new ArtifactAssignmentsDto(List.of(new ArtifactAssignmentDto("100", null))));
+
+        mvc.perform(put(baseUrl + "/wizards/artifacts").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.data['assignments[0].wizardId']").value("wizardId is required."));
+    }
+
+    @Test
+    void testAssignArtifactsWithTooManyAssignments() throws Exception {
+        List<ArtifactAssignmentDto> assignments = new ArrayList<>();
+        for (int i = 0; i <= 10000; i++) {
+            assignments.add(new ArtifactAssignmentDto(String.valueOf(i), 1));
+        }
+        String json = objectMapper.writeValueAsString(new ArtifactAssignmentsDto(assignments));
+
+        mvc.perform(put(baseUrl + "/wizards/artifacts").contentType(MediaType.APPLICATION_JSON).content(json).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.flag").value(false))
+                .andExpect(jsonPath("$.code").value(StatusCode.INVALID_ARGUMENT))
+                .andExpect(jsonPath("$.data.assignments").value("at most 10000 assignments are allowed per request."));
+        verify(wizardService, never()).assignArtifacts(Mockito.any());
+    }
+
+    @Test
+    void testTransferArtifactsSuccess() throws Exception {
+        given(wizardService.transferArtifacts(1, 2)).willReturn(2);
+
+        mvc.perform(put(baseUrl + "/wizards/1/artifacts/transfer/2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.code").value(StatusCode.SUCCESS))
+                .andExpect(jsonPath("$.message").value("Artifact Transfer Success"))
+                .andExpect(jsonPath("$.data").value(2));
+    }
+
+    @Test
+    void testFindAllWizardNotModified() throws Exception {
+        given(catalogVersionService.currentVersion()).willReturn(7L);
+
+        mvc.perform(get(this.baseUrl + "/wizards").header("If-None-Match", "\"c-7\"").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"c-7\""));
+
+        verify(wizardService, never()).findall();
+    }
+
+}
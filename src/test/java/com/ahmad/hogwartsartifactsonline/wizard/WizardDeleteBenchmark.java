@@ -0,0 +1,83 @@
+package com.ahmad.hogwartsartifactsonline.wizard;
+
+import com.ahmad.hogwartsartifactsonline.Benchmarks;
+import com.ahmad.hogwartsartifactsonline.artifact.utils.IdWorker;
+import com.ahmad.hogwartsartifactsonline.system.LargeCatalogInitializer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * Time and JDBC statements to delete a wizard owning 10, 1k and 100k artifacts: the previous entity based delete
+ * (load the wizard, null every artifact's owner through removeAllArtifacts, delete) versus the set-based
+ * WizardService.deleteWizardById (one UPDATE of the artifacts, one DELETE). The wizards and their artifacts come from
+ * LargeCatalogInitializer.
+ * Opt-in: mvn test -Dbenchmark=true -Dtest=WizardDeleteBenchmark
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark for deleting wizards with many artifacts")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.generate_statistics=true"})
+@ActiveProfiles(value = "dev")
+class WizardDeleteBenchmark {
+
+    @Autowired
+    IdWorker idWorker;
+
+    @Autowired
+    WizardService wizardService;
+
+    @Autowired
+    WizardRepository wizardRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 100_000})
+    void benchmarkDeleteWizard(int artifacts) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Integer loadedWizardId = wizardWithArtifacts(artifacts);
+        statistics.clear();
+        long entityBasedNanos = Benchmarks.elapsedNanos(() -> transactionTemplate.executeWithoutResult(status -> {
+            Wizard wizard = wizardRepository.findById(loadedWizardId).orElseThrow();
+            wizard.removeAllArtifacts();
+            wizardRepository.deleteById(loadedWizardId);
+        }));
+        long entityBasedStatements = statistics.getPrepareStatementCount();
+
+        Integer wizardId = wizardWithArtifacts(artifacts);
+        statistics.clear();
+        long setBasedNanos = Benchmarks.elapsedNanos(() -> wizardService.deleteWizardById(wizardId));
+        long setBasedStatements = statistics.getPrepareStatementCount();
+
+        assertThat(wizardRepository.existsById(wizardId)).isFalse();
+        Benchmarks.report(WizardDeleteBenchmark.class, "artifacts=%d entity based=%.1fms (%d statements) set based=%.1fms (%d statements)",
+                artifacts, entityBasedNanos / 1e6, entityBasedStatements, setBasedNanos / 1e6, setBasedStatements);
+    }
+
+    // One wizard owning every generated artifact.
+    private Integer wizardWithArtifacts(int artifacts) {
+        return new LargeCatalogInitializer(wizardRepository, jdbcTemplate, transactionTemplate, idWorker, artifacts, 1, 1.0, 0.0, 42)
+                .generate().wizardIds().get(0);
+    }
+}
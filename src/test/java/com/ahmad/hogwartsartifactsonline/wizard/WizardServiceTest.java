@@ -2,20 +2,31 @@ package com.ahmad.hogwartsartifactsonline.wizard;
 
 
 import com.ahmad.hogwartsartifactsonline.artifact.Artifact;
+import com.ahmad.hogwartsartifactsonline.artifact.ArtifactCache;
+import com.ahmad.hogwartsartifactsonline.artifact.ArtifactCatalogChangedEvent;
+import com.ahmad.hogwartsartifactsonline.artifact.ArtifactOwnership;
 import com.ahmad.hogwartsartifactsonline.artifact.ArtifactRepository;
 import com.ahmad.hogwartsartifactsonline.system.exception.ObjectNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
@@ -32,6 +43,18 @@ class WizardServiceTest {
     @Mock
     ArtifactRepository artifactRepository;
 
+    @Mock
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    WizardCache wizardCache;
+
+    @Mock
+    ArtifactCache artifactCache;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
     @InjectMocks
     WizardService wizardService;
 
@@ -118,29 +141,43 @@ class WizardServiceTest {
     @Test
     void testDeleteByIdSuccess() {
 
-        Wizard wizard = new Wizard();
-        wizard.setId(1);
-        wizard.setName("Gandalf the Grey");
-
-        given(wizardRepository.findById(1)).willReturn(Optional.of(wizard));
-        doNothing().when(wizardRepository).deleteById(1);
+        given(wizardRepository.findNumberOfArtifactsById(1)).willReturn(Optional.of(1));
+        given(artifactRepository.findIdsByOwnerIdForUpdate(1)).willReturn(List.of(1250808601744904191L));
 
         wizardService.deleteWizardById(1);
 
+        // Set-based: neither the wizard nor its artifacts are loaded.
+        verify(wizardRepository, never()).findById(1);
+        verify(artifactRepository, times(1)).removeOwner(wizardRepository.getReferenceById(1));
+        verify(wizardRepository, times(1)).deleteAllByIdInBatch(List.of(1));
+        verify(artifactCache, times(1)).invalidate(List.of(1250808601744904191L));
+        verify(wizardCache, times(1)).evict(1);
 
-        verify(wizardRepository, times(1)).findById(1);
-        verify(wizardRepository, times(1)).deleteById(1);
+    }
+
+    @Test
+    void testDeleteWizardWithManyArtifactsEvictsArtifactCache() {
 
+        given(wizardRepository.findNumberOfArtifactsById(1)).willReturn(Optional.of(5000));
+
+        wizardService.deleteWizardById(1);
+
+        // The ids are not read at all.
+        verify(artifactRepository, never()).findIdsByOwnerIdForUpdate(any());
+        verify(artifactRepository, times(1)).removeOwner(wizardRepository.getReferenceById(1));
+        verify(artifactCache, times(1)).evictAll();
+        verify(artifactCache, never()).invalidate(any());
     }
 
     @Test
     void testDeleteNotFound() {
 
-        given(wizardRepository.findById(2)).willReturn(Optional.empty());
+        given(wizardRepository.findNumberOfArtifactsById(2)).willReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> wizardService.deleteWizardById(2));
 
-        verify(wizardRepository, times(1)).findById(2);
+        verify(wizardRepository, times(1)).findNumberOfArtifactsById(2);
+        verify(wizardRepository, never()).deleteAllByIdInBatch(any());
     }
 
     @Test
@@ -206,7 +243,7 @@ class WizardServiceTest {
     void testAssignArtifactSuccess() {
 
         Artifact a = new Artifact();
-        a.setId("1250808601744904192");
+        a.setId(1250808601744904192L);
         a.setName("Invisibility Cloak");
         a.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a.setImageUrl("ImageUrl");
@@ -220,21 +257,86 @@ class WizardServiceTest {
         w3.setId(3);
         w3.setName("Neville Longbottom");
 
-        given(artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(a));
+        given(artifactRepository.findById(1250808601744904192L)).willReturn(Optional.of(a));
         given(wizardRepository.findById(3)).willReturn(Optional.of(w3));
 
-        wizardService.assignArtifact(3, "1250808601744904192");
+        wizardService.assignArtifact(3, 1250808601744904192L);
 
         assertThat(a.getOwner().getId()).isEqualTo(3);
-        assertThat(w3.getArtifacts().contains(a));
+        InOrder inOrder = inOrder(wizardRepository);
+        inOrder.verify(wizardRepository).addToNumberOfArtifacts(2, -1);
+        inOrder.verify(wizardRepository).addToNumberOfArtifacts(3, 1);
+    }
+
+    @Test
+    void testAssignArtifactToCurrentOwnerChangesNothing() {
+
+        Artifact a = new Artifact();
+        a.setId(1250808601744904192L);
+
+        Wizard w2 = new Wizard();
+        w2.setId(2);
+        w2.addArtifact(a);
+
+        given(artifactRepository.findById(1250808601744904192L)).willReturn(Optional.of(a));
+        given(wizardRepository.findById(2)).willReturn(Optional.of(w2));
+
+        wizardService.assignArtifact(2, 1250808601744904192L);
+
+        verify(wizardRepository, never()).addToNumberOfArtifacts(anyInt(), anyInt());
+    }
+
+
+    @Test
+    void testAssignArtifactIsRetriedAfterConcurrentChange() {
+
+        Wizard w3 = new Wizard();
+        w3.setId(3);
+
+        // Every attempt reads the artifact afresh.
+        given(artifactRepository.findById(1250808601744904192L)).willAnswer(invocation -> {
+            Artifact a = new Artifact();
+            a.setId(1250808601744904192L);
+            return Optional.of(a);
+        });
+        given(wizardRepository.findById(3)).willReturn(Optional.of(w3));
+        given(wizardRepository.addToNumberOfArtifacts(3, 1))
+                .willThrow(new ObjectOptimisticLockingFailureException(Wizard.class, 3))
+                .willReturn(1);
+
+        wizardService.assignArtifact(3, 1250808601744904192L);
+
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(applicationEventPublisher).publishEvent(any(ArtifactCatalogChangedEvent.class));
     }
 
+    @Test
+    void testAssignArtifactGivesUpAfterRepeatedConcurrentChanges() {
+
+        Wizard w3 = new Wizard();
+        w3.setId(3);
+
+        given(artifactRepository.findById(1250808601744904192L)).willAnswer(invocation -> {
+            Artifact a = new Artifact();
+            a.setId(1250808601744904192L);
+            return Optional.of(a);
+        });
+        given(wizardRepository.findById(3)).willReturn(Optional.of(w3));
+        given(wizardRepository.addToNumberOfArtifacts(3, 1)).willThrow(new ObjectOptimisticLockingFailureException(Wizard.class, 3));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> wizardService.assignArtifact(3, 1250808601744904192L));
+
+        verify(transactionManager, times(3)).rollback(any());
+        verify(applicationEventPublisher, never()).publishEvent(any());
+    }
 
     @Test
     void testAssignArtifactErrorWithNonExistentWizardId() {
 
         Artifact a = new Artifact();
-        a.setId("1250808601744904192");
+        a.setId(1250808601744904192L);
         a.setName("Invisibility Cloak");
         a.setDescription("An invisibility cloak is used to make the wearer invisible.");
         a.setImageUrl("ImageUrl");
@@ -245,11 +347,11 @@ class WizardServiceTest {
         w2.addArtifact(a);
 
 
-        given(artifactRepository.findById("1250808601744904192")).willReturn(Optional.of(a));
+        given(artifactRepository.findById(1250808601744904192L)).willReturn(Optional.of(a));
         given(wizardRepository.findById(3)).willReturn(Optional.empty());
 
         Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> {
-            wizardService.assignArtifact(3, "1250808601744904192");
+            wizardService.assignArtifact(3, 1250808601744904192L);
         });
 
         assertThat(thrown)
@@ -263,10 +365,10 @@ class WizardServiceTest {
     void testAssignArtifactErrorWithNonExistentArtifactId() {
 
 
-        given(artifactRepository.findById(Mockito.any(String.class))).willReturn(Optional.empty());
+        given(artifactRepository.findById(Mockito.any(Long.class))).willReturn(Optional.empty());
 
         Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> {
-            wizardService.assignArtifact(3, "123");
+            wizardService.assignArtifact(3, 123L);
         });
 
         assertThat(thrown)
@@ -275,4 +377,105 @@ class WizardServiceTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void testRecalculateNumberOfArtifactsSuccess() {
+
+        given(wizardRepository.recalculateNumberOfArtifacts()).willReturn(5);
+
+        int updatedWizards = wizardService.recalculateNumberOfArtifacts();
+
+        assertThat(updatedWizards).isEqualTo(5);
+        verify(wizardRepository, times(1)).recalculateNumberOfArtifacts();
+    }
+
+    @Test
+    void testAssignArtifactsOnlyMovesArtifactsWhoseOwnerChanges() {
+        given(wizardRepository.findIdsByIdIn(List.of(3))).willReturn(List.of(3));
+        given(artifactRepository.findOwnershipsByIdIn(any())).willReturn(List.of(
+                ownership(1250808601744904191L, 1), ownership(1250808601744904195L, 3)));
+        given(artifactRepository.assignOwner(List.of(1250808601744904191L), wizardRepository.getReferenceById(3))).willReturn(1);
+
+        Map<Long, Integer> wizardIdsByArtifactId = new LinkedHashMap<>();
+        wizardIdsByArtifactId.put(1250808601744904191L, 3);
+        wizardIdsByArtifactId.put(1250808601744904195L, 3);
+        int movedArtifacts = wizardService.assignArtifacts(wizardIdsByArtifactId);
+
+        assertThat(movedArtifacts).isEqualTo(1);
+        verify(wizardRepository, times(1)).recalculateNumberOfArtifacts(List.of(1, 3));
+        verify(artifactCache, times(1)).invalidate(List.of(1250808601744904191L));
+        verify(wizardCache, times(1)).invalidate(Set.of(1, 3));
+        verify(applicationEventPublisher, times(1)).publishEvent(new ArtifactCatalogChangedEvent());
+    }
+
+    @Test
+    void testAssignArtifactsErrorWithNonExistentArtifactId() {
+        given(wizardRepository.findIdsByIdIn(List.of(3))).willReturn(List.of(3));
+        given(artifactRepository.findOwnershipsByIdIn(any())).willReturn(List.of());
+
+        Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> wizardService.assignArtifacts(Map.of(123L, 3)));
+
+        assertThat(thrown).hasMessage("Could not find artifact With Id 123 :(");
+        verify(artifactRepository, never()).assignOwner(any(), any());
+    }
+
+    @Test
+    void testTransferArtifactsErrorWithNonExistentWizardId() {
+        given(wizardRepository.findIdsByIdIn(List.of(1, 5))).willReturn(List.of(1));
+
+        Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> wizardService.transferArtifacts(1, 5));
+
+        assertThat(thrown).hasMessage("Could not find wizard With Id 5 :(");
+        verify(artifactRepository, never()).transferOwner(any(), any());
+    }
+
+    @Test
+    void testTransferArtifactsToSameWizardChangesNothing() {
+        given(wizardRepository.findIdsByIdIn(List.of(2))).willReturn(List.of(2));
+
+        int movedArtifacts = wizardService.transferArtifacts(2, 2);
+
+        assertThat(movedArtifacts).isEqualTo(0);
+        verify(artifactRepository, never()).transferOwner(any(), any());
+    }
+
+    @Test
+    void testTransferArtifactsToSameNonExistentWizard() {
+        given(wizardRepository.findIdsByIdIn(List.of(5))).willReturn(List.of());
+
+        Throwable thrown = assertThrows(ObjectNotFoundException.class, () -> wizardService.transferArtifacts(5, 5));
+
+        assertThat(thrown).hasMessage("Could not find wizard With Id 5 :(");
+    }
+
+    @Test
+    void testAssignArtifactsLooksUpWizardsInChunks() {
+        Map<Long, Integer> wizardIdsByArtifactId = new LinkedHashMap<>();
+        List<ArtifactOwnership> ownerships = new ArrayList<>();
+        for (int i = 1; i <= 1500; i++) {
+            wizardIdsByArtifactId.put((long) i, i);
+            ownerships.add(ownership((long) i, i)); // Already owned by the wizard it is assigned to.
+        }
+        given(wizardRepository.findIdsByIdIn(any())).willAnswer(invocation -> List.copyOf(invocation.<Collection<Integer>>getArgument(0)));
+        given(artifactRepository.findOwnershipsByIdIn(any())).willReturn(ownerships.subList(0, 1000), ownerships.subList(1000, 1500));
+
+        int movedArtifacts = wizardService.assignArtifacts(wizardIdsByArtifactId);
+
+        assertThat(movedArtifacts).isEqualTo(0);
+        verify(wizardRepository, times(2)).findIdsByIdIn(any());
+    }
+
+    private static ArtifactOwnership ownership(Long artifactId, Integer ownerId) {
+        return new ArtifactOwnership() {
+            @Override
+            public Long getId() {
+                return artifactId;
+            }
+
+            @Override
+            public Integer getOwnerId() {
+                return ownerId;
+            }
+        };
+    }
+
+}